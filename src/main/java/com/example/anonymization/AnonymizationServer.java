@@ -0,0 +1,246 @@
+package com.example.anonymization;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP front end for {@link QueryPipeline}, started with {@code Main --serve [port] [threads]}.
+ *
+ * The sensitivity and KYU tables stay loaded and data_df stays on disk, so a request only pays for its
+ * query and the anonymization. Each worker thread opens its own read-only connection to the store on
+ * first use, which also keeps requests from modifying data_df.
+ *
+ * Endpoints (bound to the loopback interface):
+ * <ul>
+ *   <li>{@code POST /anonymize} with form fields {@code user_id} and {@code query} (a GET with the same
+ *       URL parameters also works): the anonymized rows, the strategy that produced them and the
+ *       AnonymizationScore, as JSON.</li>
+ *   <li>{@code GET /health}: {@code {"status":"ok"}}.</li>
+ * </ul>
+ * Queries are still appended to the query log; columns learned from it get indexed at the next start.
+ */
+public class AnonymizationServer {
+
+    public static final int DEFAULT_PORT = 8085;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+
+    private final QueryPipeline pipeline;
+    private final Path dbPath;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final Queue<Connection> connections = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Connection> connection = new ThreadLocal<>();
+
+    public AnonymizationServer(QueryPipeline pipeline, Path dbPath, int port, int threads) throws IOException {
+        this.pipeline = pipeline;
+        this.dbPath = dbPath;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        AtomicInteger ids = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "anonymization-worker-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(workers);
+        server.createContext("/anonymize", this::handleAnonymize);
+        server.createContext("/health", exchange -> respond(exchange, 200, "{\"status\":\"ok\"}"));
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("Anonymization server listening on http://" + server.getAddress().getHostString()
+                + ":" + server.getAddress().getPort() + "/anonymize");
+    }
+
+    public void stop() {
+        server.stop(1);
+        workers.shutdown();
+        for (Connection conn : connections) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Warning: could not close connection: " + e.getMessage());
+            }
+        }
+        connections.clear();
+    }
+
+    private void handleAnonymize(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!"POST".equals(method) && !"GET".equals(method)) {
+                respond(exchange, 405, error("Use POST or GET."));
+                return;
+            }
+            Map<String, String> params = parseForm(exchange.getRequestURI().getRawQuery());
+            if ("POST".equals(method)) params.putAll(parseForm(readBody(exchange)));
+
+            String userId = params.get("user_id");
+            String query = params.get("query");
+            if (userId == null || userId.isEmpty() || query == null || query.isBlank()) {
+                respond(exchange, 400, error("Both user_id and query are required."));
+                return;
+            }
+
+            Connection conn = connection();
+            QueryPipeline.Outcome outcome;
+            try {
+                outcome = pipeline.run(conn, userId, query);
+            } catch (SQLException e) {
+                respond(exchange, 400, error("Query failed: " + e.getMessage()));
+                return;
+            }
+            respond(exchange, 200, toJson(userId, outcome));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, error(e.getMessage()));
+        } catch (RuntimeException | SQLException e) {
+            System.err.println("Request failed: " + e.getMessage());
+            e.printStackTrace();
+            respond(exchange, 500, error("Internal error: " + e.getMessage()));
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        Connection conn = connection.get();
+        if (conn == null) {
+            conn = SqliteStore.connectReadOnly(dbPath);
+            connection.set(conn);
+            connections.add(conn);
+        }
+        return conn;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) throw new IllegalArgumentException("Request body too large.");
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** application/x-www-form-urlencoded pairs; a repeated name keeps its last value. */
+    static Map<String, String> parseForm(String encoded) {
+        Map<String, String> params = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) return params;
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String error(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        appendValue(sb, message);
+        return sb.append('}').toString();
+    }
+
+    static String toJson(String userId, QueryPipeline.Outcome outcome) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"userId\":");
+        appendValue(sb, userId);
+        sb.append(",\"kyuScore\":");
+        appendValue(sb, outcome.kyuScore());
+        sb.append(",\"resultType\":");
+        appendValue(sb, outcome.resultType());
+        sb.append(",\"sensitivityLevel\":");
+        appendValue(sb, outcome.sensitivityLevel());
+        sb.append(",\"strategies\":[");
+        List<String> strategies = outcome.strategies();
+        for (int i = 0; i < strategies.size(); i++) {
+            if (i > 0) sb.append(',');
+            appendValue(sb, strategies.get(i));
+        }
+        sb.append("],\"appliedStrategy\":");
+        appendValue(sb, outcome.appliedStrategy());
+        sb.append(",\"score\":");
+        if (outcome.score() == null) {
+            sb.append("null");
+        } else {
+            sb.append("{\"score\":");
+            appendValue(sb, outcome.score().getScore());
+            sb.append(",\"utilityRetained\":");
+            appendValue(sb, outcome.score().getUtilityRetained());
+            sb.append('}');
+        }
+        SimpleDataFrame df = outcome.isEmpty() ? outcome.original() : outcome.anonymized();
+        sb.append(",\"rowCount\":").append(df.getRowCount()).append(",\"columns\":[");
+        List<String> headers = df.getColumnHeaders();
+        for (int c = 0; c < headers.size(); c++) {
+            if (c > 0) sb.append(',');
+            appendValue(sb, headers.get(c));
+        }
+        sb.append("],\"rows\":[");
+        for (int r = 0; r < df.getRowCount(); r++) {
+            sb.append(r > 0 ? ",[" : "[");
+            for (int c = 0; c < headers.size(); c++) {
+                if (c > 0) sb.append(',');
+                appendValue(sb, df.getValue(r, c));
+            }
+            sb.append(']');
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static void appendValue(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            // JSON has no NaN or Infinity
+            if (Double.isFinite(d)) sb.append(d);
+            else sb.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else {
+            String s = value.toString();
+            sb.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                switch (ch) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                        else sb.append(ch);
+                    }
+                }
+            }
+            sb.append('"');
+        }
+    }
+}
@@ -1,6 +1,14 @@
 package com.example.anonymization;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 // Assuming AnonymizationTechniques is in the same package
 
 public class AnonymizationService {
@@ -25,159 +33,232 @@ public class AnonymizationService {
         if (originalDf == null || strategies == null || strategies.isEmpty()) {
             return new AnonymizationResult(originalDf, null); // Or throw exception
         }
+        Granularity g = Granularity.parse(granularity);
+        if (g == null) {
+            // Unknown granularity: nothing can be applied
+            for (int i = 0; i < strategies.size(); i++) System.err.println("Warning: Unknown granularity: " + granularity);
+            return new AnonymizationResult(originalDf.copy(), null);
+        }
+        return anonymize(originalDf, StrategyPlan.ofNames(g, strategies));
+    }
 
-        SimpleDataFrame dfCopy = originalDf.copy(); // Work on a deep copy
-        String appliedStrategyName = null;
+    /**
+     * Applies the first step of {@code plan} that succeeds, as {@link #anonymizeBySensitivity} does
+     * for strategy names. The plan's steps are already bound, so nothing is looked up by name here.
+     */
+    static AnonymizationResult anonymize(SimpleDataFrame originalDf, StrategyPlan plan) {
+        if (originalDf == null || plan.isEmpty()) {
+            return new AnonymizationResult(originalDf, null);
+        }
 
-        for (String strategy : strategies) {
-            SimpleDataFrame tempDf = dfCopy.copy(); // Use a copy for each attempt from the current state of dfCopy
-            boolean strategySuccessfullyApplied = true;
+        SimpleDataFrame dfCopy = originalDf.copy(); // Copy-on-write: columns are only duplicated when a strategy writes them
+        String appliedStrategyName = null;
 
+        for (StrategyStep step : plan.steps()) {
+            SimpleDataFrame tempDf = dfCopy.copy(); // A failed attempt is dropped along with only the columns it touched
             try {
-                // CELL and COLUMN granularities often iterate over columns
-                if ("cell".equals(granularity) || "column".equals(granularity)) {
-                    for (String columnName : tempDf.getColumnHeaders()) {
-                        // Note: Some strategies from Python are column-specific by name,
-                        // others apply to all columns if listed under cell/column granularity.
-                        // The Python code applies the chosen strategy to *all* columns if granularity is cell/column.
-                        applyStrategyToColumn(tempDf, columnName, strategy, kyuScore);
-                    }
-                } else if ("row".equals(granularity)) {
-                    applyStrategyToRow(tempDf, strategy, kyuScore);
-                } else if ("table".equals(granularity)) {
-                    applyStrategyToTable(tempDf, strategy, kyuScore);
-                } else {
-                    // Unknown granularity, maybe log a warning
-                    System.err.println("Warning: Unknown granularity: " + granularity);
-                    strategySuccessfullyApplied = false;
-                }
-                
-                // If no exception, commit changes from tempDf to dfCopy
-                if (strategySuccessfullyApplied) {
-                    dfCopy = tempDf; 
-                    appliedStrategyName = strategy;
-                    break; // Apply only the FIRST successful strategy
-                }
-
+                step.applyTo(tempDf);
+                dfCopy = tempDf;
+                appliedStrategyName = step.name();
+                break; // Apply only the FIRST successful strategy
             } catch (UnsupportedOperationException uoe) {
-                System.err.println("Strategy '" + strategy + "' is not yet implemented. Trying next. " + uoe.getMessage());
-                strategySuccessfullyApplied = false; // Mark as not applied
+                System.err.println("Strategy '" + step.name() + "' is not yet implemented. Trying next. " + uoe.getMessage());
             } catch (Exception e) {
-                System.err.println("Strategy '" + strategy + "' failed: " + e.getMessage() + ". Trying next.");
-                // e.printStackTrace(); // for debugging
-                strategySuccessfullyApplied = false; // Mark as not applied
+                System.err.println("Strategy '" + step.name() + "' failed: " + e.getMessage() + ". Trying next.");
             }
         }
         return new AnonymizationResult(dfCopy, appliedStrategyName);
     }
 
-    private static void applyStrategyToColumn(SimpleDataFrame df, String columnName, String strategy, String kyuScore) {
-        // Default parameters for strategies
-        double defaultEpsilon = 0.1; 
-        int defaultBinSize = 10; 
-        int defaultK = 2; // For microaggregation_column
-
-        switch (strategy.toLowerCase()) {
-            case "full_masking": 
-                AnonymizationTechniques.full_masking_cell(df, columnName);
-                break;
-            case "partial_masking": 
-                AnonymizationTechniques.partial_masking_cell(df, columnName);
-                break;
-            case "noise_injection": 
-                AnonymizationTechniques.noise_injection(df, columnName, defaultEpsilon);
-                break;
-            case "cell_suppression":
-                AnonymizationTechniques.cell_suppression(df, columnName, 2); // Default threshold 2
-                break;
-            case "differential_privacy_column":
-                AnonymizationTechniques.differential_privacy_column(df, columnName, defaultEpsilon);
-                break;
-            case "top_bottom_coding":
-                AnonymizationTechniques.top_bottom_coding(df, columnName, 10.0, 90.0); // Default 10th and 90th percentiles
-                break;
-            case "microaggregation": 
-                AnonymizationTechniques.microaggregation_column(df, columnName, defaultK); // defaultK is 2
-                break;
-            case "generalization":
-                AnonymizationTechniques.generalization_column(df, columnName, 3); // Default 3 bins
-                break;
-            case "binning":
-                AnonymizationTechniques.binning(df, columnName, defaultBinSize); // defaultBinSize is 10
-                break;
-            case "no_transformation":
-                // Do nothing
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown strategy for column/cell granularity: " + strategy);
+    /* ---- Streaming path for strategies that look at one row at a time ---- */
+
+    // Strategies whose output for a row depends only on that row (DP noise uses the fixed 1/epsilon scale),
+    // so applying them batch by batch gives the same result as applying them to the whole frame
+    private static final Set<String> ROW_LOCAL_COLUMN_STRATEGIES = Set.of(
+            "full_masking", "partial_masking", "binning", "differential_privacy_column", "no_transformation");
+    private static final Set<String> ROW_LOCAL_ROW_STRATEGIES = Set.of(
+            "full_masking", "partial_masking", "no_transformation");
+    private static final Set<String> ROW_LOCAL_TABLE_STRATEGIES = Set.of(
+            "full_masking", "partial_masking", "differential_privacy", "no_transformation");
+
+    // Strategies that depend on the whole column (percentile cutoffs, value counts): anonymizeStreaming
+    // gathers those in a first pass over the query and applies them in a second one
+    private static final Set<String> TWO_PASS_COLUMN_STRATEGIES = Set.of("top_bottom_coding", "cell_suppression");
+
+    private static boolean isTwoPass(StrategyStep step) {
+        Granularity g = step.granularity();
+        return (g == Granularity.CELL || g == Granularity.COLUMN)
+                && TWO_PASS_COLUMN_STRATEGIES.contains(step.name().toLowerCase(Locale.ROOT));
+    }
+
+    /** Whether {@code strategy} at {@code granularity} gives the same result batch by batch as on the whole result. */
+    public static boolean isStreamable(String strategy, String granularity) {
+        Granularity g = Granularity.parse(granularity);
+        return strategy != null && g != null && isRowLocal(strategy, g);
+    }
+
+    static boolean isStreamable(StrategyStep step) {
+        return isRowLocal(step.name(), step.granularity());
+    }
+
+    private static boolean isRowLocal(String strategy, Granularity granularity) {
+        String s = strategy.toLowerCase(Locale.ROOT);
+        return switch (granularity) {
+            case CELL, COLUMN -> ROW_LOCAL_COLUMN_STRATEGIES.contains(s);
+            case ROW -> ROW_LOCAL_ROW_STRATEGIES.contains(s);
+            case TABLE -> ROW_LOCAL_TABLE_STRATEGIES.contains(s);
+        };
+    }
+
+    /**
+     * {@code strategy} bound with the parameters the strategy policy gives it at {@code granularity} for
+     * a user with {@code kyuScore} (the most sensitive level that lists it wins), or with its defaults
+     * when the policy does not list it there.
+     */
+    private static StrategyStep resolve(String strategy, String granularity, String kyuScore) {
+        Granularity g = Granularity.parse(granularity);
+        if (strategy == null || g == null) {
+            throw new IllegalArgumentException("Strategy '" + strategy + "' at " + granularity + " granularity cannot be streamed.");
+        }
+        SensitivityLevel trust = SensitivityLevel.parse(kyuScore);
+        SensitivityLevel[] levels = SensitivityLevel.values();
+        for (int i = levels.length - 1; i >= 0 && trust != null; i--) {
+            for (StrategyStep step : StrategySelector.plan(g, levels[i], trust).steps()) {
+                if (step.name().equalsIgnoreCase(strategy)) return step;
+            }
         }
+        return StrategyStep.bind(g, strategy, Map.of());
     }
 
-    private static void applyStrategyToRow(SimpleDataFrame df, String strategy, String kyuScore) {
-        int defaultK = 2; // For microaggregation
-
-        switch (strategy.toLowerCase()) {
-            case "full_masking": 
-                AnonymizationTechniques.full_masking_row(df);
-                break;
-            case "partial_masking": 
-                AnonymizationTechniques.partial_masking_row(df);
-                break;
-            case "microaggregation": 
-                SimpleDataFrame aggregated = AnonymizationTechniques.microaggregation_row(df, defaultK);
-                // Replace df's content with aggregated's content
-                // Basic check: if aggregated is null (e.g. due to error in microaggregation_row), don't proceed
-                if (aggregated != null && aggregated.getColumnHeaders() != null && df.getColumnHeaders().equals(aggregated.getColumnHeaders())) { 
-                    df.getRows().clear();
-                    df.getRows().addAll(aggregated.getRows());
-                } else if (aggregated != null && aggregated.getRowCount() == 0 && df.getRowCount() > 0) {
-                    // If microaggregation results in an empty dataframe (e.g. k > number of rows)
-                    // Clear original rows as well to reflect the aggregation.
-                    df.getRows().clear();
-                } else if (aggregated == null) {
-                    System.err.println("Warning: microaggregation_row returned null. Original DataFrame unchanged.");
-                } else {
-                    System.err.println("Warning: Header mismatch or other issue after microaggregation_row. Original DataFrame unchanged.");
-                }
-                break;
-            case "no_transformation":
-                // Do nothing
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown strategy for row granularity: " + strategy);
+    /**
+     * Lazily anonymizes each batch with {@code strategy} at {@code granularity}, with the parameters the
+     * strategy policy gives it for {@code kyuScore}. Only row-local strategies are accepted (see
+     * {@link #isStreamable}); the others need the whole result and go through anonymizeBySensitivity.
+     */
+    public static Iterator<SimpleDataFrame> anonymizeBatches(Iterator<SimpleDataFrame> batches, String strategy,
+                                                             String granularity, String kyuScore) {
+        return anonymizeBatches(batches, resolve(strategy, granularity, kyuScore));
+    }
+
+    /**
+     * Lazily anonymizes each batch with {@code step}, a step of a plan from {@link StrategySelector#plan}
+     * so the policy's parameters apply. Only row-local strategies are accepted (see {@link #isStreamable});
+     * the others need the whole result and go through {@link #anonymize}.
+     */
+    static Iterator<SimpleDataFrame> anonymizeBatches(Iterator<SimpleDataFrame> batches, StrategyStep step) {
+        if (!isStreamable(step)) {
+            throw new IllegalArgumentException("Strategy '" + step.name() + "' at " + step.granularity().label()
+                    + " granularity cannot be streamed.");
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return batches.hasNext();
+            }
+
+            @Override
+            public SimpleDataFrame next() {
+                SimpleDataFrame batch = batches.next();
+                step.applyTo(batch);
+                return batch;
+            }
+        };
+    }
+
+    /**
+     * Runs {@code query}, anonymizes the result with {@code strategy} (bound as for {@link #anonymizeBatches})
+     * in batches of {@code batchSize} rows and hands every batch to {@code sink}, holding at most one batch
+     * in memory. Returns the number of rows streamed.
+     *
+     * top_bottom_coding and cell_suppression at cell/column granularity are also accepted: the query is
+     * then run twice, once to sketch every column's percentile cutoffs (see {@link QuantileSketch}) or
+     * count its values (see {@link SuppressionCounter}), and once to apply them. Both take the step's
+     * percentiles, threshold and prefilter, as on the whole result.
+     */
+    public static long anonymizeStreaming(Connection conn, String query, String strategy, String granularity,
+                                          String kyuScore, int batchSize, Consumer<SimpleDataFrame> sink) throws SQLException {
+        return anonymizeStreaming(conn, query, resolve(strategy, granularity, kyuScore), batchSize, sink);
+    }
+
+    /** As above, with a step already bound, e.g. from {@link StrategySelector#plan}. */
+    static long anonymizeStreaming(Connection conn, String query, StrategyStep step, int batchSize,
+                                   Consumer<SimpleDataFrame> sink) throws SQLException {
+        if (isTwoPass(step)) {
+            StrategyStep.Params p = step.params();
+            return "cell_suppression".equalsIgnoreCase(step.name())
+                    ? cellSuppressionStreaming(conn, query, p.integer("threshold", StrategyStep.DEFAULT_THRESHOLD),
+                            p.flag("prefilter", false), batchSize, sink)
+                    : topBottomCodingStreaming(conn, query, p.number("lower_percentile", StrategyStep.DEFAULT_LOWER_PERCENTILE),
+                            p.number("upper_percentile", StrategyStep.DEFAULT_UPPER_PERCENTILE), batchSize, sink);
+        }
+        long rows = 0;
+        try (RowBatchIterator batches = new RowBatchIterator(conn, query, batchSize)) {
+            Iterator<SimpleDataFrame> anonymized = anonymizeBatches(batches, step);
+            while (anonymized.hasNext()) {
+                SimpleDataFrame batch = anonymized.next();
+                rows += batch.getRowCount();
+                sink.accept(batch);
+            }
+        }
+        return rows;
+    }
+
+    private static long topBottomCodingStreaming(Connection conn, String query, double lowerPercentile, double upperPercentile,
+                                                 int batchSize, Consumer<SimpleDataFrame> sink) throws SQLException {
+        Map<String, QuantileSketch> sketches = new LinkedHashMap<>();
+        forEachBatch(conn, query, batchSize, batch -> {
+            for (String columnName : batch.getColumnHeaders()) {
+                sketches.computeIfAbsent(columnName, c -> new QuantileSketch()).update(batch.column(columnName));
+            }
+        });
+        Map<String, double[]> cutoffs = new LinkedHashMap<>();
+        for (Map.Entry<String, QuantileSketch> e : sketches.entrySet()) {
+            QuantileSketch sketch = e.getValue();
+            if (sketch.count() == 0) continue; // No numbers: left as is, like top_bottom_coding
+            cutoffs.put(e.getKey(), new double[]{sketch.quantile(lowerPercentile / 100), sketch.quantile(upperPercentile / 100)});
         }
+
+        return forEachBatch(conn, query, batchSize, batch -> {
+            for (Map.Entry<String, double[]> e : cutoffs.entrySet()) {
+                AnonymizationTechniques.clip(batch, e.getKey(), e.getValue()[0], e.getValue()[1]);
+            }
+            sink.accept(batch);
+        });
     }
 
-    private static void applyStrategyToTable(SimpleDataFrame df, String strategy, String kyuScore) {
-        double defaultEpsilon = 0.1; 
-        int defaultK = 2; 
-        int defaultThreshold = 2; 
-        int defaultBins = 3;      
-
-        switch (strategy.toLowerCase()) {
-            case "full_masking":
-                AnonymizationTechniques.full_masking_table(df);
-                break;
-            case "partial_masking":
-                AnonymizationTechniques.partial_masking_table(df); 
-                break;
-            case "microaggregation":
-                AnonymizationTechniques.microaggregation_table(df, defaultK);
-                break;
-            case "differential_privacy":
-                AnonymizationTechniques.differential_privacy_table(df, defaultEpsilon);
-                break;
-            case "cell_suppression": 
-                AnonymizationTechniques.cell_suppression_table(df, defaultThreshold);
-                break;
-            case "generalization": 
-                AnonymizationTechniques.generalization_table(df, defaultBins);
-                break;
-            case "no_transformation":
-                // Do nothing
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown strategy for table granularity: " + strategy);
+    private static long cellSuppressionStreaming(Connection conn, String query, int threshold, boolean prefilter,
+                                                 int batchSize, Consumer<SimpleDataFrame> sink) throws SQLException {
+        if (threshold <= 0) return forEachBatch(conn, query, batchSize, sink); // Suppresses nothing, like cell_suppression
+        Map<String, SuppressionCounter> counters = new LinkedHashMap<>();
+        boolean counted;
+        do {
+            forEachBatch(conn, query, batchSize, batch -> {
+                for (String columnName : batch.getColumnHeaders()) {
+                    counters.computeIfAbsent(columnName, c -> new SuppressionCounter(threshold, prefilter, batchSize))
+                            .count(batch.column(columnName));
+                }
+            });
+            counted = true;
+            for (SuppressionCounter counter : counters.values()) counted &= counter.endPass();
+        } while (!counted);
+
+        return forEachBatch(conn, query, batchSize, batch -> {
+            for (Map.Entry<String, SuppressionCounter> e : counters.entrySet()) e.getValue().suppress(batch, e.getKey());
+            sink.accept(batch);
+        });
+    }
+
+    /** Runs {@code query} and hands each batch to {@code action}; returns the number of rows. */
+    private static long forEachBatch(Connection conn, String query, int batchSize,
+                                     Consumer<SimpleDataFrame> action) throws SQLException {
+        long rows = 0;
+        try (RowBatchIterator batches = new RowBatchIterator(conn, query, batchSize)) {
+            while (batches.hasNext()) {
+                SimpleDataFrame batch = batches.next();
+                rows += batch.getRowCount();
+                action.accept(batch);
+            }
         }
+        return rows;
     }
 }
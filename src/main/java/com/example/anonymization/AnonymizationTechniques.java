@@ -1,11 +1,8 @@
 package com.example.anonymization;
 
-import org.apache.commons.math3.distribution.LaplaceDistribution;
 import org.apache.commons.math3.stat.descriptive.rank.Percentile;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -13,77 +10,134 @@ import java.util.stream.Collectors;
 public class AnonymizationTechniques {
 
     private static boolean isColumnNumeric(SimpleDataFrame df, String columnName) {
-        if (df == null || df.getRowCount() == 0 || !df.getColumnHeaders().contains(columnName)) return false;
-        for (Map<String, Object> row : df.getRows()) {
-            Object value = row.get(columnName);
-            if (value != null) {
-                if (value instanceof Number) return true;
-                try { Double.parseDouble(String.valueOf(value)); return true; } catch (NumberFormatException e) { return false; }
-            }
+        if (df == null || df.getRowCount() == 0 || df.columnIndex(columnName) < 0) return false;
+        Column col = df.column(columnName);
+        if (col.type().isNumeric()) return true;
+        for (int i = 0; i < col.size(); i++) {
+            if (!col.isNull(i)) return col.isNumber(i);
         }
         return false; 
     }
 
-    public static void full_masking_cell(SimpleDataFrame df, String columnName) {
-        if (df == null || !df.getColumnHeaders().contains(columnName)) return;
-        for (int i = 0; i < df.getRowCount(); i++) {
-            Map<String, Object> actualRow = df.getRow(i);
-            Object value = actualRow.get(columnName);
-            if (value != null) actualRow.put(columnName, String.join("", Collections.nCopies(String.valueOf(value).length(), "*")));
+    // The table techniques below only change numeric columns; which ones is decided before any is changed
+    private static List<String> numericColumns(SimpleDataFrame df) {
+        List<String> numeric = new ArrayList<>();
+        for (String colName : df.getColumnHeaders()) if (isColumnNumeric(df, colName)) numeric.add(colName);
+        return numeric;
+    }
+
+    /** Fills {min, max, count} over the numeric cells of a column without boxing. */
+    private static double[] numericRange(Column col) {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY; int count = 0;
+        for (int i = 0; i < col.size(); i++) {
+            if (col.isNull(i) || !col.isNumber(i)) continue;
+            double v = col.getDouble(i);
+            if (v < min) min = v;
+            if (v > max) max = v;
+            count++;
         }
+        return new double[] {min, max, count};
+    }
+
+    /** Adds noise[0], noise[1], ... to the numeric cells of the column in row order. */
+    private static void addNoise(SimpleDataFrame df, String columnName, Column col, double[] noise) {
+        int[] next = {0};
+        df.replaceColumn(columnName, col.mapNumeric(v -> v + noise[next[0]++]));
+    }
+
+    private static String maskFully(Object value) {
+        return "*".repeat(String.valueOf(value).length());
+    }
+
+    private static String maskHalf(Object value) {
+        String valStr = String.valueOf(value);
+        int half = valStr.length() / 2;
+        return "*".repeat(half) + valStr.substring(half);
+    }
+
+    public static void full_masking_cell(SimpleDataFrame df, String columnName) {
+        if (df == null || df.columnIndex(columnName) < 0) return;
+        df.replaceColumn(columnName, df.column(columnName).mapValues(AnonymizationTechniques::maskFully));
     }
 
     public static void partial_masking_cell(SimpleDataFrame df, String columnName) {
-        // System.out.println("[DEBUG partial_masking_cell] Called for column: " + columnName); // Optional
-        if (df == null || !df.getColumnHeaders().contains(columnName)) return;
-        int rowCount = df.getRowCount();
-        for (int i = 0; i < rowCount; i++) {
-            Map<String, Object> actualRow = df.getRow(i);
-            Object value = actualRow.get(columnName);
-            if (value != null) {
-                String valStr = String.valueOf(value);
-                int half = valStr.length() / 2;
-                String maskedValue = String.join("", Collections.nCopies(half, "*")) + valStr.substring(half);
-                actualRow.put(columnName, maskedValue);
-                // if (i < 1 && (columnName.equals("1455") || columnName.equals("924"))) System.out.println("[DEBUG partial_masking_cell] Col: " + columnName + ", Orig: " + valStr + ", Masked: " + maskedValue);
-            }
-        }
+        if (df == null || df.columnIndex(columnName) < 0) return;
+        df.replaceColumn(columnName, df.column(columnName).mapValues(AnonymizationTechniques::maskHalf));
     }
     
     public static void noise_injection(SimpleDataFrame df, String columnName, double epsilon) {
-        if (df == null || !df.getColumnHeaders().contains(columnName) || df.getRowCount() == 0) return;
+        if (df == null || df.columnIndex(columnName) < 0 || df.getRowCount() == 0) return;
         if (epsilon <= 0) { System.err.println("Warning: Epsilon must be positive for noise injection."); return; }
-        List<Double> numericalValuesForStats = new ArrayList<>();
-        for (int i = 0; i < df.getRowCount(); i++) { Object value = df.getRow(i).get(columnName); if (value != null) try { numericalValuesForStats.add(Double.parseDouble(String.valueOf(value))); } catch (NumberFormatException e) {}}
-        if (numericalValuesForStats.isEmpty()) return;
-        if (df.getRowCount() == 1 && df.getColumnCount() == 1 && numericalValuesForStats.size() == 1) {
-            df.getRow(0).put(columnName, numericalValuesForStats.get(0) * (1 + 0.85)); return;
+        Column col = df.column(columnName);
+        double[] range = numericRange(col);
+        if (range[2] == 0) return;
+        if (df.getRowCount() == 1 && df.getColumnCount() == 1) {
+            df.setValue(0, df.columnIndex(columnName), col.getDouble(0) * (1 + 0.85)); return;
         }
-        double min = Collections.min(numericalValuesForStats); double max = Collections.max(numericalValuesForStats);
+        double min = range[0]; double max = range[1];
         double sensitivity = Math.max(max - min, 1e-6); double scale = sensitivity / epsilon;
         if (Double.isInfinite(scale) || Double.isNaN(scale) || scale == 0) { System.err.println("Warning: Invalid scale for Laplace: " + scale); return; }
-        LaplaceDistribution laplace = new LaplaceDistribution(0, scale);
-        for (int i = 0; i < df.getRowCount(); i++) {
-            Map<String, Object> actualRow = df.getRow(i); Object value = actualRow.get(columnName);
-            if (value != null) try { actualRow.put(columnName, Double.parseDouble(String.valueOf(value)) + laplace.sample()); } catch (NumberFormatException e) { System.err.println("Warning: Non-numeric in noise_injection: " + value); }
-        }
+        int skipped = col.nonNumericCount();
+        if (skipped > 0) System.err.println("Warning: " + skipped + " non-numeric value(s) left unchanged in noise_injection for column " + columnName);
+        addNoise(df, columnName, col, LaplaceNoise.sample((int) range[2], scale, columnName));
     }
     
     public static void microaggregation_row(SimpleDataFrame df, int k, List<String> numericColumnHeadersToAggregate) {
         if (df == null || df.getRowCount() == 0 || k <= 0 || df.getColumnCount() == 0) return;
-        String sortColumn = df.getColumnHeaders().get(0); List<Map<String, Object>> rows = new ArrayList<>(); 
-        for(int i=0; i<df.getRowCount(); i++) rows.add(df.getRow(i));
-        rows.sort(Comparator.comparing(rowMap -> { Object val = rowMap.get(sortColumn); if (val instanceof Number) return ((Number) val).doubleValue(); try { return Double.parseDouble(String.valueOf(val)); } catch (NumberFormatException e) { return String.valueOf(val); }}, Comparator.nullsLast((o1, o2) -> { if (o1 == null && o2 == null) return 0; if (o1 == null) return 1; if (o2 == null) return -1; if (o1 instanceof Double && o2 instanceof Double) return ((Double)o1).compareTo((Double)o2); if (o1 instanceof String && o2 instanceof String) return ((String)o1).compareTo((String)o2); if (o1 instanceof Double) return -1; if (o2 instanceof Double) return 1; return String.valueOf(o1).compareTo(String.valueOf(o2));})));
-        for (int i = 0; i < rows.size(); i += k) {
-            List<Map<String, Object>> group = rows.subList(i, Math.min(i + k, rows.size())); if (group.isEmpty()) continue;
-            for (String numCol : numericColumnHeadersToAggregate) {
-                if (!df.getColumnHeaders().contains(numCol) /*|| !isColumnNumeric(df, numCol)*/) continue; 
-                double sum = 0; int count = 0;
-                for (Map<String, Object> groupRow : group) { Object val = groupRow.get(numCol); try { sum += Double.parseDouble(String.valueOf(val)); count++; } catch (Exception e) {}}
-                if (count > 0) { double meanVal = sum / count; for (Map<String, Object> groupRow : group) groupRow.put(numCol, meanVal); }
+        List<String> columns = new ArrayList<>();
+        for (String numCol : numericColumnHeadersToAggregate) if (df.columnIndex(numCol) >= 0 && !columns.contains(numCol)) columns.add(numCol);
+        if (!columns.isEmpty()) microaggregate(df, columns, k);
+    }
+
+    /**
+     * Replaces the cells of {@code columns} with the means of their MDAV groups (see {@link Mdav}), formed
+     * on the columns' z-scores. Cells without a number count as the column mean when grouping; like the
+     * numeric ones they take the group mean, unless no row of the group has a number in that column.
+     */
+    private static void microaggregate(SimpleDataFrame df, List<String> columns, int k) {
+        int n = df.getRowCount(), d = columns.size();
+        Column[] cols = new Column[d];
+        double[][] z = new double[d][n];
+        for (int c = 0; c < d; c++) {
+            cols[c] = df.column(columns.get(c));
+            double sum = 0, sumSq = 0; int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (!hasNumber(cols[c], i)) continue;
+                double v = cols[c].getDouble(i);
+                sum += v; sumSq += v * v; count++;
+            }
+            if (count == 0) continue;
+            double mean = sum / count;
+            double sd = Math.sqrt(Math.max(sumSq / count - mean * mean, 0));
+            if (!(sd > 0) || Double.isInfinite(sd)) continue; // Constant column: does not separate rows
+            for (int i = 0; i < n; i++) if (hasNumber(cols[c], i)) z[c][i] = (cols[c].getDouble(i) - mean) / sd;
+        }
+        int[] group = Mdav.groups(z, n, k);
+        int groups = 0;
+        for (int g : group) groups = Math.max(groups, g + 1);
+        for (int c = 0; c < d; c++) {
+            double[] sums = new double[groups]; int[] counts = new int[groups];
+            for (int i = 0; i < n; i++) {
+                if (hasNumber(cols[c], i)) { sums[group[i]] += cols[c].getDouble(i); counts[group[i]]++; }
+            }
+            double[] means = new double[n]; boolean all = true;
+            for (int i = 0; i < n; i++) {
+                if (counts[group[i]] > 0) means[i] = sums[group[i]] / counts[group[i]];
+                else all = false;
+            }
+            if (all) {
+                df.replaceColumn(columns.get(c), new DoubleColumn(means, new NullMask(n), n));
+            } else {
+                int index = df.columnIndex(columns.get(c));
+                for (int i = 0; i < n; i++) if (counts[group[i]] > 0) df.setValue(i, index, means[i]);
             }
         }
     }
+
+    private static boolean hasNumber(Column col, int row) {
+        return !col.isNull(row) && col.isNumber(row) && Double.isFinite(col.getDouble(row));
+    }
+
     public static SimpleDataFrame microaggregation_row(SimpleDataFrame df, int k) {
         if (df == null) return null; SimpleDataFrame dfCopy = df.copy(); 
         if (dfCopy.getRowCount() == 0 || k <= 0) return dfCopy;
@@ -93,77 +147,127 @@ public class AnonymizationTechniques {
     }
 
     public static void cell_suppression(SimpleDataFrame df, String columnName, int threshold) {
-        if (df == null || !df.getColumnHeaders().contains(columnName) || threshold <= 0 || df.getRowCount() == 0) return;
-        Map<Object, Integer> valueCounts = new HashMap<>();
-        for (Map<String, Object> row : df.getRows()){ Object value = row.get(columnName); valueCounts.put(value, valueCounts.getOrDefault(value, 0) + 1); }
-        for (int i = 0; i < df.getRowCount(); i++) {
-            Map<String, Object> actualRow = df.getRow(i); Object value = actualRow.get(columnName);
-            if (valueCounts.getOrDefault(value, 0) < threshold) actualRow.put(columnName, null);
+        cell_suppression(df, columnName, threshold, false);
+    }
+
+    /** Nulls the cells whose value occurs fewer than {@code threshold} times; see SuppressionCounter for the prefilter. */
+    public static void cell_suppression(SimpleDataFrame df, String columnName, int threshold, boolean prefilter) {
+        if (df == null || df.columnIndex(columnName) < 0 || threshold <= 0 || df.getRowCount() == 0) return;
+        Column col = df.column(columnName);
+        if (col instanceof StringColumn) {
+            // Dictionary codes are dense: count in an int[]
+            StringColumn strings = (StringColumn) col;
+            int[] counts = new int[strings.dictionarySize()];
+            for (int i = 0; i < strings.size(); i++) if (!strings.isNull(i)) counts[strings.code(i)]++;
+            int c = df.columnIndex(columnName);
+            for (int i = 0; i < strings.size(); i++) {
+                if (!strings.isNull(i) && counts[strings.code(i)] < threshold) df.setValue(i, c, null);
+            }
+            return;
         }
+        SuppressionCounter counter = new SuppressionCounter(threshold, prefilter, col.size());
+        do counter.count(col); while (!counter.endPass());
+        counter.suppress(df, columnName);
     }
 
     public static void differential_privacy_column(SimpleDataFrame df, String columnName, double epsilon) {
-        if (df == null || !df.getColumnHeaders().contains(columnName) || df.getRowCount() == 0) return;
+        if (df == null || df.columnIndex(columnName) < 0 || df.getRowCount() == 0) return;
         if (epsilon <= 0) { System.err.println("Warning: Epsilon must be positive for differential privacy."); return; }
-        LaplaceDistribution laplace = new LaplaceDistribution(0, 1.0 / epsilon);
-        for (int i = 0; i < df.getRowCount(); i++) {
-            Map<String, Object> actualRow = df.getRow(i); Object value = actualRow.get(columnName);
-            if (value != null) try { actualRow.put(columnName, Double.parseDouble(String.valueOf(value)) + laplace.sample()); } catch (NumberFormatException e) { System.err.println("Warning: Non-numeric in diff_priv_col: " + value); }
-        }
+        Column col = df.column(columnName);
+        int skipped = col.nonNumericCount();
+        if (skipped > 0) System.err.println("Warning: " + skipped + " non-numeric value(s) left unchanged in diff_priv_col for column " + columnName);
+        addNoise(df, columnName, col, LaplaceNoise.sample(col.size(), 1.0 / epsilon, columnName));
     }
 
+    /** Above this many cells top_bottom_coding takes its cutoffs from a QuantileSketch (see QuantileBenchmark). */
+    static final int TOP_BOTTOM_EXACT_MAX_VALUES = 1_000_000;
+
     public static void top_bottom_coding(SimpleDataFrame df, String columnName, double bottomPercentile, double topPercentile) {
-        if (df == null || !df.getColumnHeaders().contains(columnName) || df.getRowCount() == 0) return;
+        if (df == null || df.columnIndex(columnName) < 0 || df.getRowCount() == 0) return;
         if (bottomPercentile < 0 || bottomPercentile > 100 || topPercentile < 0 || topPercentile > 100 || bottomPercentile >= topPercentile) { System.err.println("Warning: Invalid percentile cutoffs."); return; }
-        List<Double> numericalValues = new ArrayList<>();
-        for (Map<String, Object> row : df.getRows()) { Object value = row.get(columnName); if (value != null) try { numericalValues.add(Double.parseDouble(String.valueOf(value))); } catch (NumberFormatException e) {}}
-        if (numericalValues.isEmpty()) return;
-        Percentile perc = new Percentile(); perc.setData(numericalValues.stream().mapToDouble(d->d).toArray());
-        double bottomValue = perc.evaluate(bottomPercentile); double topValue = perc.evaluate(topPercentile);
-        for (int i = 0; i < df.getRowCount(); i++) {
-            Map<String, Object> actualRow = df.getRow(i); Object value = actualRow.get(columnName);
-            if (value != null) try {
-                double numValue = Double.parseDouble(String.valueOf(value));
-                if (numValue < bottomValue) actualRow.put(columnName, bottomValue); else if (numValue > topValue) actualRow.put(columnName, topValue);
-            } catch (NumberFormatException e) {}
+        Column col = df.column(columnName);
+        if (col.size() > TOP_BOTTOM_EXACT_MAX_VALUES) {
+            QuantileSketch sketch = QuantileSketch.of(col);
+            if (sketch.count() == 0) return;
+            clip(df, columnName, sketch.quantile(bottomPercentile / 100), sketch.quantile(topPercentile / 100));
+            return;
+        }
+        double[] numericalValues = new double[col.size()]; int count = 0;
+        for (int i = 0; i < col.size(); i++) if (!col.isNull(i) && col.isNumber(i)) numericalValues[count++] = col.getDouble(i);
+        if (count == 0) return;
+        Percentile perc = new Percentile(); perc.setData(numericalValues, 0, count);
+        clip(df, columnName, perc.evaluate(bottomPercentile), perc.evaluate(topPercentile));
+    }
+
+    /** Clips the numeric cells of a column to [bottomValue, topValue]. */
+    static void clip(SimpleDataFrame df, String columnName, double bottomValue, double topValue) {
+        Column col = df.column(columnName);
+        if (col.type() == ColumnType.DOUBLE) {
+            df.replaceColumn(columnName, col.mapNumeric(v -> v < bottomValue ? bottomValue : (v > topValue ? topValue : v)));
+            return;
+        }
+        // Other representations only rewrite the clipped cells so untouched values keep their form
+        int c = df.columnIndex(columnName);
+        for (int i = 0; i < col.size(); i++) {
+            if (col.isNull(i) || !col.isNumber(i)) continue;
+            double numValue = col.getDouble(i);
+            if (numValue < bottomValue) df.setValue(i, c, bottomValue); else if (numValue > topValue) df.setValue(i, c, topValue);
         }
     }
 
     public static void microaggregation_column(SimpleDataFrame df, String columnName, int k) {
-        if (df == null || !df.getColumnHeaders().contains(columnName) || k <= 0) return;
-        SimpleDataFrame tempColDf = new SimpleDataFrame(Collections.singletonList(columnName));
-        for (Map<String, Object> originalRow : df.getRows()) { Map<String, Object> tempRow = new HashMap<>(); tempRow.put(columnName, originalRow.get(columnName)); tempColDf.addRow(tempRow); }
-        SimpleDataFrame aggregatedColDf = microaggregation_row(tempColDf, k);
-        List<Map<String, Object>> aggregatedDataRows = aggregatedColDf.getRows();
-        for (int i = 0; i < Math.min(df.getRowCount(), aggregatedDataRows.size()); i++) df.getRow(i).put(columnName, aggregatedDataRows.get(i).get(columnName));
+        if (df == null || df.columnIndex(columnName) < 0 || k <= 0 || !isColumnNumeric(df, columnName)) return;
+        microaggregate(df, List.of(columnName), k);
     }
 
     public static void generalization_column(SimpleDataFrame df, String columnName, int bins) {
-        if (df == null || !df.getColumnHeaders().contains(columnName) || bins <= 0) return;
-        List<Double> numericalValues = new ArrayList<>();
-        for (Map<String, Object> row : df.getRows()) { Object value = row.get(columnName); if (value != null) try { numericalValues.add(Double.parseDouble(String.valueOf(value))); } catch (NumberFormatException e) {}}
-        if (numericalValues.isEmpty()) return;
-        double minVal = Collections.min(numericalValues); double maxVal = Collections.max(numericalValues);
-        if (minVal == maxVal) {
-            for (int i = 0; i < df.getRowCount(); i++) { Map<String, Object> r = df.getRow(i); if (r.get(columnName) != null) try { if (Double.parseDouble(String.valueOf(r.get(columnName))) == minVal) r.put(columnName, "Group 1"); } catch (NumberFormatException e) {} } return;
+        generalization_column(df, columnName, bins, 1);
+    }
+
+    /**
+     * Replaces each value with its ancestor {@code level} levels up the column's hierarchy (see
+     * {@link GeneralizationHierarchies}); a column without one gets {@code bins} equal-width bins.
+     */
+    public static void generalization_column(SimpleDataFrame df, String columnName, int bins, int level) {
+        if (df == null || df.columnIndex(columnName) < 0 || bins <= 0) return;
+        Column col = df.column(columnName);
+        GeneralizationHierarchy hierarchy = GeneralizationHierarchies.forColumn(columnName);
+        if (hierarchy != null) {
+            if (df.getRowCount() > 0) df.replaceColumn(columnName, hierarchy.generalize(col, level));
+            return;
         }
+        double[] range = numericRange(col);
+        if (range[2] == 0) return;
+        double minVal = range[0]; double maxVal = range[1];
+        List<String> labels = new ArrayList<>(bins);
+        for (int b = 0; b < bins; b++) labels.add("Group " + (b + 1));
         double binWidth = (maxVal - minVal) / bins; if (binWidth == 0 && bins > 1) binWidth = Math.nextUp(0.0);
-        for (int i = 0; i < df.getRowCount(); i++) {
-            Map<String, Object> actualRow = df.getRow(i); Object value = actualRow.get(columnName);
-            if (value != null) try {
-                double numValue = Double.parseDouble(String.valueOf(value));
+        if ((col instanceof LongColumn || col instanceof DoubleColumn) && minVal < maxVal) {
+            // Only numbers and nulls: write the bin codes straight into a string column
+            int[] codes = new int[col.size()];
+            for (int i = 0; i < col.size(); i++) {
+                if (col.isNull(i)) { codes[i] = -1; continue; }
+                double numValue = col.getDouble(i);
                 int binIndex = (numValue == maxVal) ? (bins - 1) : (int) Math.floor((numValue - minVal) / binWidth);
-                actualRow.put(columnName, "Group " + (Math.max(0, Math.min(bins - 1, binIndex)) + 1));
-            } catch (NumberFormatException e) {}
+                codes[i] = Math.max(0, Math.min(bins - 1, binIndex));
+            }
+            df.replaceColumn(columnName, StringColumn.of(codes, codes.length, labels));
+            return;
         }
+        Column out = Column.empty();
+        for (int i = 0; i < col.size(); i++) {
+            if (col.isNull(i) || !col.isNumber(i)) { out = out.append(col.get(i)); continue; }
+            double numValue = col.getDouble(i);
+            if (minVal == maxVal) { out = out.append(numValue == minVal ? labels.get(0) : col.get(i)); continue; }
+            int binIndex = (numValue == maxVal) ? (bins - 1) : (int) Math.floor((numValue - minVal) / binWidth);
+            out = out.append(labels.get(Math.max(0, Math.min(bins - 1, binIndex))));
+        }
+        df.replaceColumn(columnName, out);
     }
 
     public static void binning(SimpleDataFrame df, String columnName, int binSize) {
-        if (df == null || !df.getColumnHeaders().contains(columnName) || binSize <= 0) return;
-        for (int i = 0; i < df.getRowCount(); i++) {
-            Map<String, Object> actualRow = df.getRow(i); Object value = actualRow.get(columnName);
-            if (value != null) try { actualRow.put(columnName, Math.floor(Double.parseDouble(String.valueOf(value)) / binSize) * binSize); } catch (NumberFormatException e) {}
-        }
+        if (df == null || df.columnIndex(columnName) < 0 || binSize <= 0) return;
+        df.replaceColumn(columnName, df.column(columnName).mapNumeric(v -> Math.floor(v / binSize) * binSize));
     }
 
     public static void full_masking_row(SimpleDataFrame df) {
@@ -214,21 +318,55 @@ public class AnonymizationTechniques {
 
     public static void microaggregation_table(SimpleDataFrame df, int k) {
         if (df == null || k <= 0) return;
-        for (String colName : df.getColumnHeaders()) if (isColumnNumeric(df, colName)) microaggregation_column(df, colName, k);
+        // Records are grouped on all numeric columns at once, as at row level
+        List<String> numericCols = numericColumns(df);
+        if (df.getRowCount() > 0 && !numericCols.isEmpty()) microaggregate(df, numericCols, k);
+    }
+
+    /**
+     * Mondrian k-anonymity (see {@link Mondrian#anonymize}) over every column with more than one distinct
+     * value. Unlike {@link DataProcessor#identifyQuasiIdentifiers}, columns whose values are all distinct
+     * count too: left as they are they would single out every row.
+     */
+    public static void mondrian_table(SimpleDataFrame df, int k) {
+        if (df == null || k <= 0) return;
+        List<String> quasiIdentifiers = new ArrayList<>();
+        for (String colName : df.getColumnHeaders()) {
+            if (DataProcessor.distinctCount(df.column(colName)) > 1) quasiIdentifiers.add(colName);
+        }
+        Mondrian.anonymize(df, quasiIdentifiers, k);
+    }
+
+    /** A single row is never k-anonymous for k > 1: fails so the plan's next strategy is tried. */
+    public static void mondrian_row(SimpleDataFrame df, int k) {
+        mondrian_table(df, k);
     }
 
     public static void differential_privacy_table(SimpleDataFrame df, double epsilon) {
         if (df == null || epsilon <= 0) return;
-        for (String colName : df.getColumnHeaders()) if (isColumnNumeric(df, colName)) differential_privacy_column(df, colName, epsilon);
+        ColumnExecutor.forEachColumn(df, numericColumns(df), (part, colName) -> differential_privacy_column(part, colName, epsilon));
     }
     
     public static void cell_suppression_table(SimpleDataFrame df, int threshold) {
+        cell_suppression_table(df, threshold, false);
+    }
+
+    public static void cell_suppression_table(SimpleDataFrame df, int threshold, boolean prefilter) {
         if (df == null || threshold <= 0) return;
-        for (String colName : df.getColumnHeaders()) cell_suppression(df, colName, threshold);
+        ColumnExecutor.forEachColumn(df, df.getColumnHeaders(), (part, colName) -> cell_suppression(part, colName, threshold, prefilter));
     }
 
-    public static void generalization_table(SimpleDataFrame df, int binsOrHierarchyRef) {
-        if (df == null || binsOrHierarchyRef <= 0) return;
-        for (String colName : df.getColumnHeaders()) if (isColumnNumeric(df, colName)) generalization_column(df, colName, binsOrHierarchyRef);
+    public static void generalization_table(SimpleDataFrame df, int bins) {
+        generalization_table(df, bins, 1);
+    }
+
+    /** generalization_column over the columns with a hierarchy and the numeric ones. */
+    public static void generalization_table(SimpleDataFrame df, int bins, int level) {
+        if (df == null || bins <= 0) return;
+        List<String> columns = new ArrayList<>();
+        for (String colName : df.getColumnHeaders()) {
+            if (GeneralizationHierarchies.forColumn(colName) != null || isColumnNumeric(df, colName)) columns.add(colName);
+        }
+        ColumnExecutor.forEachColumn(df, columns, (part, colName) -> generalization_column(part, colName, bins, level));
     }
 }
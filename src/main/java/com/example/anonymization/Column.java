@@ -0,0 +1,142 @@
+package com.example.anonymization;
+
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Storage for a single SimpleDataFrame column.
+ *
+ * Implementations keep their cells in primitive or dictionary-encoded arrays. A write that does not
+ * fit the current representation (e.g. a masked string into a numeric column) returns a promoted
+ * column, so callers must always keep the returned instance: {@code col = col.set(i, v)}.
+ */
+abstract class Column {
+
+    abstract ColumnType type();
+
+    abstract int size();
+
+    abstract boolean isNull(int row);
+
+    abstract Object get(int row);
+
+    abstract Column set(int row, Object value);
+
+    abstract Column append(Object value);
+
+    abstract Column copy();
+
+    /** True when the cell holds a number or a string that parses as one. */
+    boolean isNumber(int row) {
+        Object value = get(row);
+        if (value == null) return false;
+        if (value instanceof Number) return true;
+        try { Double.parseDouble(String.valueOf(value)); return true; } catch (NumberFormatException e) { return false; }
+    }
+
+    /** Numeric value of the cell; only meaningful when {@link #isNumber(int)} is true. */
+    double getDouble(int row) {
+        Object value = get(row);
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        try { return Double.parseDouble(String.valueOf(value)); } catch (NumberFormatException e) { return Double.NaN; }
+    }
+
+    Column setDouble(int row, double value) {
+        return set(row, value);
+    }
+
+    Column appendAll(Column other) {
+        Column result = this;
+        for (int i = 0; i < other.size(); i++) result = result.append(other.get(i));
+        return result;
+    }
+
+    /** {@link ValueKeys} key of every cell. The key of a null cell is meaningless: check {@link #isNull} first. */
+    long[] valueKeys() {
+        long[] keys = new long[size()];
+        for (int i = 0; i < keys.length; i++) if (!isNull(i)) keys[i] = ValueKeys.of(get(i));
+        return keys;
+    }
+
+    /** Number of non-null cells that do not hold a number. */
+    int nonNumericCount() {
+        int count = 0;
+        for (int i = 0; i < size(); i++) if (!isNull(i) && !isNumber(i)) count++;
+        return count;
+    }
+
+    /**
+     * Applies {@code op} to every numeric cell, in row order. Nulls are kept, as are non-numeric cells, which
+     * forces the result into an OBJECT column; an all-numeric column maps straight into a DOUBLE column.
+     */
+    Column mapNumeric(DoubleUnaryOperator op) {
+        int n = size();
+        double[] out = new double[n];
+        NullMask nulls = new NullMask(n);
+        int i = 0;
+        for (; i < n; i++) {
+            if (isNull(i)) nulls.set(i);
+            else if (isNumber(i)) out[i] = op.applyAsDouble(getDouble(i));
+            else break;
+        }
+        if (i == n) return new DoubleColumn(out, nulls, n);
+
+        Column result = new ObjectColumn(n);
+        for (int j = 0; j < n; j++) {
+            if (isNull(j)) result = result.append(null);
+            else if (j < i || !isNumber(j)) result = result.append(j < i ? out[j] : get(j));
+            else result = result.append(op.applyAsDouble(getDouble(j)));
+        }
+        return result;
+    }
+
+    /** Applies {@code fn} to every non-null cell; nulls are kept. */
+    Column mapValues(UnaryOperator<Object> fn) {
+        Column result = Column.empty();
+        for (int i = 0; i < size(); i++) {
+            Object value = get(i);
+            result = result.append(value == null ? null : fn.apply(value));
+        }
+        return result;
+    }
+
+    /**
+     * The same cells in LONG or DOUBLE storage when that is lossless (see {@link StringColumn#inferNumeric}),
+     * otherwise this column.
+     */
+    Column inferNumeric() {
+        return this;
+    }
+
+    ObjectColumn toObjectColumn() {
+        ObjectColumn result = new ObjectColumn(size());
+        for (int i = 0; i < size(); i++) result.append(get(i));
+        return result;
+    }
+
+    static Column empty() {
+        return new NullColumn(0);
+    }
+
+    /** The storage type a value would naturally be kept in. */
+    static ColumnType typeOf(Object value) {
+        if (value == null) return ColumnType.EMPTY;
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) return ColumnType.LONG;
+        if (value instanceof Double) return ColumnType.DOUBLE;
+        if (value instanceof String) return ColumnType.STRING;
+        return ColumnType.OBJECT;
+    }
+
+    /** Creates an all-null column of {@code size} cells that is able to hold {@code value}. */
+    static Column forValue(Object value, int size) {
+        Column column = switch (typeOf(value)) {
+            case EMPTY -> new NullColumn(0);
+            case LONG -> new LongColumn(size);
+            case DOUBLE -> new DoubleColumn(size);
+            case STRING -> new StringColumn(size);
+            case OBJECT -> new ObjectColumn(size);
+        };
+        for (int i = 0; i < size; i++) column = column.append(null);
+        return column;
+    }
+}
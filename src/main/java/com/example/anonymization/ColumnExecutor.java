@@ -0,0 +1,105 @@
+package com.example.anonymization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Runs a column-independent technique on several columns of a frame at once.
+ *
+ * Each column gets its own single-column frame (sharing the column storage until written), the
+ * technique runs on those frames in a fork-join pool, and the results are put back in column order.
+ * So the output is the same as running the columns one after another, and the pool threads never
+ * touch the caller's frame. When several columns fail, the first one's exception is rethrown, as the
+ * serial loop would have stopped there.
+ *
+ * Parallelism defaults to the number of cores and can be set with
+ * {@code -Dguardrail.column.parallelism=N} or {@link #setParallelism}; 1 runs everything serially.
+ */
+final class ColumnExecutor {
+
+    /** Below this many cells a frame is processed serially; the fork-join hand-off costs more. */
+    static final int MIN_PARALLEL_CELLS = 8 * 1024;
+
+    @FunctionalInterface
+    interface ColumnTask {
+        void apply(SimpleDataFrame df, String columnName);
+    }
+
+    private static volatile ForkJoinPool pool = newPool(Integer.getInteger("guardrail.column.parallelism",
+            Runtime.getRuntime().availableProcessors()));
+
+    private ColumnExecutor() {
+    }
+
+    private static ForkJoinPool newPool(int parallelism) {
+        return parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    static int parallelism() {
+        ForkJoinPool p = pool;
+        return p == null ? 1 : p.getParallelism();
+    }
+
+    static synchronized void setParallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        if (parallelism == parallelism()) return;
+        ForkJoinPool old = pool;
+        pool = newPool(parallelism);
+        if (old != null) old.shutdown(); // Running tasks finish on the old pool
+    }
+
+    /** Runs {@code task} for 0 .. n-1 on the pool (serially at parallelism 1); tasks must write disjoint state. */
+    static void forEachIndex(int n, IntConsumer task) {
+        ForkJoinPool p = pool;
+        if (p == null || n < 2) {
+            for (int i = 0; i < n; i++) task.accept(i);
+            return;
+        }
+        p.submit(() -> IntStream.range(0, n).parallel().forEach(task)).join();
+    }
+
+    /** Runs a fork-join {@code task} on the pool, or on the calling thread at parallelism 1. */
+    static void invoke(ForkJoinTask<?> task) {
+        ForkJoinPool p = pool;
+        if (p == null) task.invoke();
+        else p.invoke(task);
+    }
+
+    /** Applies {@code task} to every column in {@code columnNames} (all of which must exist in {@code df}). */
+    static void forEachColumn(SimpleDataFrame df, List<String> columnNames, ColumnTask task) {
+        ForkJoinPool p = pool;
+        int n = columnNames.size();
+        // Single-row frames stay serial too: noise_injection treats a 1x1 frame specially
+        if (p == null || n < 2 || df.getRowCount() < 2 || (long) n * df.getRowCount() < MIN_PARALLEL_CELLS) {
+            for (String columnName : columnNames) task.apply(df, columnName);
+            return;
+        }
+
+        SimpleDataFrame[] parts = new SimpleDataFrame[n];
+        for (int i = 0; i < n; i++) parts[i] = df.subset(List.of(columnNames.get(i)));
+        List<ForkJoinTask<RuntimeException>> running = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            SimpleDataFrame part = parts[i];
+            String columnName = columnNames.get(i);
+            running.add(p.submit(() -> {
+                try {
+                    task.apply(part, columnName);
+                    return null;
+                } catch (RuntimeException e) {
+                    return e; // Rethrown below as is; join() would wrap it
+                }
+            }));
+        }
+        RuntimeException first = null;
+        for (ForkJoinTask<RuntimeException> t : running) {
+            RuntimeException e = t.join();
+            if (first == null) first = e;
+        }
+        if (first != null) throw first;
+        for (int i = 0; i < n; i++) df.replaceColumn(columnNames.get(i), parts[i].column(0));
+    }
+}
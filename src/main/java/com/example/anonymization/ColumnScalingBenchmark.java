@@ -0,0 +1,77 @@
+package com.example.anonymization;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Scaling of the column-parallel techniques (see {@link ColumnExecutor}) from 1 to {@code maxThreads}
+ * threads. The extract repeats the rows of the data file up to {@code rows}. Every strategy is timed
+ * at each parallelism (best of {@code runs}), and the output of the deterministic ones is checked
+ * cell by cell against the single-threaded output.
+ *
+ * Speedups are bounded by the cores of the machine; on one core all parallelisms should time the same.
+ *
+ * Usage: ColumnScalingBenchmark [dataFile] [rows] [maxThreads] [runs]
+ */
+public class ColumnScalingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String dataFile = args.length > 0 ? args[0] : "Data_2019-20.csv";
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 3_000;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        DataLoader.setSnapshotsEnabled(false);
+        SimpleDataFrame source = DataLoader.loadDataDf(dataFile, ';');
+        SimpleDataFrame extract = source.copy();
+        while (extract.getRowCount() < rows) extract.appendAll(source);
+        System.out.printf("Extract of %s: %d rows x %d columns, %d core(s)%n", dataFile, extract.getRowCount(),
+                extract.getColumnCount(), Runtime.getRuntime().availableProcessors());
+
+        Map<String, Consumer<SimpleDataFrame>> strategies = new LinkedHashMap<>();
+        strategies.put("table microaggregation", df -> AnonymizationTechniques.microaggregation_table(df, StrategyStep.DEFAULT_K));
+        strategies.put("table generalization", df -> AnonymizationTechniques.generalization_table(df, StrategyStep.DEFAULT_BINS));
+        strategies.put("table cell_suppression", df -> AnonymizationTechniques.cell_suppression_table(df, StrategyStep.DEFAULT_THRESHOLD));
+        strategies.put("table differential_privacy", df -> AnonymizationTechniques.differential_privacy_table(df, StrategyStep.DEFAULT_EPSILON));
+        strategies.put("column top_bottom_coding", StrategyStep.bind(Granularity.COLUMN, "top_bottom_coding", Map.of())::applyTo);
+        strategies.put("column partial_masking", StrategyStep.bind(Granularity.COLUMN, "partial_masking", Map.of())::applyTo);
+
+        int defaultParallelism = ColumnExecutor.parallelism();
+        System.out.printf("%-28s %8s %10s %8s %6s%n", "strategy", "threads", "ms", "speedup", "equal");
+        for (Map.Entry<String, Consumer<SimpleDataFrame>> strategy : strategies.entrySet()) {
+            boolean deterministic = !strategy.getKey().contains("differential_privacy");
+            SimpleDataFrame serial = null;
+            double serialMs = 0;
+            for (int threads = 1; threads <= maxThreads; threads++) {
+                ColumnExecutor.setParallelism(threads);
+                SimpleDataFrame out = null;
+                double bestMs = Double.MAX_VALUE;
+                for (int i = 0; i < runs; i++) {
+                    out = extract.copy();
+                    long t0 = System.nanoTime();
+                    strategy.getValue().accept(out);
+                    bestMs = Math.min(bestMs, (System.nanoTime() - t0) / 1e6);
+                }
+                if (threads == 1) {
+                    serial = out;
+                    serialMs = bestMs;
+                }
+                System.out.printf("%-28s %8d %10.1f %7.2fx %6s%n", strategy.getKey(), threads, bestMs, serialMs / bestMs,
+                        deterministic ? String.valueOf(sameContents(serial, out)) : "-");
+            }
+        }
+        ColumnExecutor.setParallelism(defaultParallelism);
+    }
+
+    private static boolean sameContents(SimpleDataFrame a, SimpleDataFrame b) {
+        if (!a.getColumnHeaders().equals(b.getColumnHeaders()) || a.getRowCount() != b.getRowCount()) return false;
+        for (int c = 0; c < a.getColumnCount(); c++) {
+            for (int r = 0; r < a.getRowCount(); r++) {
+                if (!Objects.equals(a.getValue(r, c), b.getValue(r, c))) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.anonymization;
+
+/**
+ * Physical representation of a SimpleDataFrame column.
+ */
+public enum ColumnType {
+    /** No non-null value has been stored yet. */
+    EMPTY,
+    /** Integral numbers held in a {@code long[]}. */
+    LONG,
+    /** Floating point numbers held in a {@code double[]}. */
+    DOUBLE,
+    /** Dictionary-encoded strings. */
+    STRING,
+    /** Mixed or otherwise unsupported values held as plain objects. */
+    OBJECT;
+
+    public boolean isNumeric() {
+        return this == LONG || this == DOUBLE;
+    }
+}
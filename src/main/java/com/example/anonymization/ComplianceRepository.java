@@ -0,0 +1,161 @@
+package com.example.anonymization;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compliance_repository.xlsx indexed on (Owner, Domain), the Java side of
+ * {@code compliance_lookup.get_sensitivity_for_owner_domain}.
+ *
+ * Keys are lower-cased and stripped once at load time, so a lookup is one hash probe instead of a scan
+ * of the sheet. When the sheet lists a pair more than once the first row wins, as with
+ * {@code match.iloc[0]}. {@link #refreshIfChanged} rebuilds the index from a changed file and swaps it
+ * in with a single volatile write, so concurrent lookups see either the old copy or the new one. With
+ * {@link #startWatching} that happens on a background thread and lookups never touch the file.
+ */
+public final class ComplianceRepository implements AutoCloseable {
+
+    /** Returned for pairs the repository does not list, as in the Python helper. */
+    public static final String UNKNOWN = "Unknown";
+
+    public record Entry(String sensitivityLevel, String explainability, String sharingEntity) {
+    }
+
+    private record Key(String owner, String domain) {
+    }
+
+    private record Snapshot(Map<Key, Entry> entries, long size, long modifiedMillis) {
+    }
+
+    private final Path path;
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService watcher;
+
+    private ComplianceRepository(Path path, Snapshot snapshot) {
+        this.path = path;
+        this.snapshot = snapshot;
+    }
+
+    public static ComplianceRepository load(Path path) throws IOException {
+        return new ComplianceRepository(path, read(path));
+    }
+
+    private static Snapshot read(Path path) throws IOException {
+        // Attributes first: if the file changes while it is read, the next refresh still sees a difference
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        SimpleDataFrame df = DataLoader.loadComplianceRepository(path.toString(), null);
+        int owner = requireColumn(df, "Owner", path);
+        int domain = requireColumn(df, "Domain", path);
+        int level = requireColumn(df, "Sensitivity Level", path);
+        int explainability = df.columnIndex("Explainability");
+        int sharing = df.columnIndex("Sharing Entity");
+
+        Map<Key, Entry> entries = new HashMap<>(df.getRowCount() * 2);
+        for (int r = 0; r < df.getRowCount(); r++) {
+            Object o = df.getValue(r, owner), d = df.getValue(r, domain);
+            if (o == null || d == null) continue;
+            entries.putIfAbsent(new Key(normalize(o.toString()), normalize(d.toString())), new Entry(
+                    text(df.getValue(r, level)),
+                    explainability < 0 ? null : text(df.getValue(r, explainability)),
+                    sharing < 0 ? null : text(df.getValue(r, sharing))));
+        }
+        return new Snapshot(Map.copyOf(entries), attrs.size(), attrs.lastModifiedTime().toMillis());
+    }
+
+    private static int requireColumn(SimpleDataFrame df, String name, Path path) throws IOException {
+        int index = df.columnIndex(name);
+        if (index < 0) throw new IOException("Column '" + name + "' not found in " + path);
+        return index;
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    static String normalize(String key) {
+        return key.toLowerCase(Locale.ROOT).strip();
+    }
+
+    /**
+     * Reloads the sheet when its size or modification time changed since the last load.
+     * Returns true if a new copy was swapped in. A failed reload keeps serving the previous copy.
+     */
+    public synchronized boolean refreshIfChanged() {
+        Snapshot current = snapshot;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attrs.size() == current.size() && attrs.lastModifiedTime().toMillis() == current.modifiedMillis()) return false;
+            Snapshot fresh = read(path);
+            snapshot = fresh;
+            System.out.println("Compliance repository reloaded from " + path + " (" + fresh.entries().size() + " owner/domain pairs).");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: could not reload compliance repository " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Checks the file every {@code intervalSeconds} on a background daemon thread. */
+    public synchronized void startWatching(long intervalSeconds) {
+        if (watcher != null || intervalSeconds <= 0) return;
+        watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "compliance-repository-reload");
+            t.setDaemon(true);
+            return t;
+        });
+        watcher.scheduleWithFixedDelay(this::refreshIfChanged, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+            watcher = null;
+        }
+    }
+
+    /** The row for (owner, domain), or null. */
+    public Entry lookup(String owner, String domain) {
+        if (owner == null || domain == null) return null;
+        return snapshot.entries().get(new Key(normalize(owner), normalize(domain)));
+    }
+
+    /** Sensitivity level for (owner, domain), or {@link #UNKNOWN}. */
+    public String sensitivityFor(String owner, String domain) {
+        Entry entry = lookup(owner, domain);
+        return entry == null || entry.sensitivityLevel() == null ? UNKNOWN : entry.sensitivityLevel();
+    }
+
+    /**
+     * Sensitivity levels for one owner and many domains (one per attribute value in app.py), all read
+     * from the same copy of the repository. The owner and each distinct domain are normalized once.
+     */
+    public List<String> sensitivitiesFor(String owner, List<String> domains) {
+        Map<Key, Entry> entries = snapshot.entries();
+        String normalizedOwner = owner == null ? null : normalize(owner);
+        Map<String, String> byDomain = new HashMap<>();
+        List<String> levels = new ArrayList<>(domains.size());
+        for (String domain : domains) {
+            levels.add(byDomain.computeIfAbsent(domain == null ? "" : domain, dm -> {
+                if (normalizedOwner == null || domain == null) return UNKNOWN;
+                Entry entry = entries.get(new Key(normalizedOwner, normalize(dm)));
+                return entry == null || entry.sensitivityLevel() == null ? UNKNOWN : entry.sensitivityLevel();
+            }));
+        }
+        return levels;
+    }
+
+    public int size() {
+        return snapshot.entries().size();
+    }
+}
@@ -13,8 +13,13 @@ import java.util.*;
 
 /**
  * Utility class that loads the various input files used by the anonymization pipeline.
- *  • CSV files are read with Apache Commons CSV
- *  • XLS/XLSX files are read with Apache POI
+ *  • CSV data files are memory-mapped and parsed in parallel by ParallelCsvLoader
+ *    (Apache Commons CSV is still used for the small Attributes file)
+ *  • XLS/XLSX files are read with Apache POI; large XLSX files are streamed with the
+ *    SAX event API (StreamingXlsxLoader) instead of building an XSSFWorkbook
+ *  • Columns whose every value is a canonical integer or decimal are stored as numbers
+ *  • The data, sensitivity and KYU frames are cached as binary snapshots next to their
+ *    source (DatasetSnapshot) and re-parsed only when the source fingerprint changes
  *
  * The loader decides which parser to use by the file-extension.
  */
@@ -30,24 +35,8 @@ public class DataLoader {
     /* ──────────────────────────────  CSV → SimpleDataFrame  ────────────────────── */
 
     private static SimpleDataFrame loadCsvToSimpleDataFrame(String filePath, char delimiter) throws IOException {
-        try (Reader reader = Files.newBufferedReader(Paths.get(filePath));
-             CSVParser parser = CSVFormat.Builder.create()
-                                                .setDelimiter(delimiter)
-                                                .setHeader()
-                                                .setSkipHeaderRecord(true)
-                                                .build()
-                                                .parse(reader)) {
-
-            List<String> headers = parser.getHeaderNames();
-            SimpleDataFrame sdf = new SimpleDataFrame(headers);
-
-            for (CSVRecord rec : parser) {
-                Map<String, Object> row = new HashMap<>();
-                for (String h : headers) row.put(h, rec.get(h));
-                sdf.addRow(row);
-            }
-            return sdf;
-        }
+        // Memory-mapped, chunked and parsed in parallel; see ParallelCsvLoader for the record alignment
+        return ParallelCsvLoader.load(Paths.get(filePath), delimiter);
     }
 
     /* ──────────────────────────────  XLSX → SimpleDataFrame  ───────────────────── */
@@ -83,15 +72,54 @@ public class DataLoader {
         return sdf;
     }
 
+    /**
+     * XLSX files above this size are read with the SAX event API instead of a full XSSFWorkbook,
+     * which needs many times the file size in heap.
+     */
+    static final long XLSX_STREAMING_THRESHOLD_BYTES = 8L * 1024 * 1024;
+
+    /** Picks the streaming reader for large .xlsx files and the object model otherwise. */
+    private static SimpleDataFrame loadExcel(String filePath, String sheetName) throws IOException {
+        if ("xlsx".equals(ext(filePath)) && Files.size(Paths.get(filePath)) > XLSX_STREAMING_THRESHOLD_BYTES) {
+            return StreamingXlsxLoader.load(filePath, sheetName);
+        }
+        return loadExcelToSimpleDataFrame(filePath, sheetName);
+    }
+
+    /* ──────────────────────────────  Snapshot cache  ───────────────────────────── */
+
+    // -Dguardrail.snapshots=false turns the cache off, e.g. when the source directory is shared
+    private static volatile boolean snapshotsEnabled =
+            !"false".equalsIgnoreCase(System.getProperty("guardrail.snapshots"));
+
+    public static void setSnapshotsEnabled(boolean enabled) {
+        snapshotsEnabled = enabled;
+    }
+
+    /** Parses {@code filePath} as CSV or workbook, going through its snapshot when enabled. */
+    private static SimpleDataFrame loadTable(String filePath, char delimiter, String sheetName, String kind) throws IOException {
+        DatasetSnapshot.Loader parser = switch (ext(filePath)) {
+            case "csv"         -> () -> loadCsvToSimpleDataFrame(filePath, delimiter);
+            case "xls", "xlsx" -> () -> loadExcel(filePath, sheetName);
+            default            -> throw new IOException("Unsupported file type for " + kind + ": " + filePath);
+        };
+        // Column types are inferred once here (and kept in the snapshot), so numeric cells are
+        // not parsed again by every technique that reads them
+        DatasetSnapshot.Loader loader = () -> {
+            SimpleDataFrame df = parser.load();
+            df.inferColumnTypes();
+            return df;
+        };
+        if (!snapshotsEnabled) return loader.load();
+        String variant = "csv".equals(ext(filePath)) ? "csv:" + delimiter : "sheet:" + (sheetName == null ? "" : sheetName);
+        return DatasetSnapshot.load(Paths.get(filePath), variant, loader);
+    }
+
     /* ──────────────────────────────  Public loaders  ───────────────────────────── */
 
     /** Loads the main data-frame (Data_2019-20.*). */
     public static SimpleDataFrame loadDataDf(String filePath, char delimiter) throws IOException {
-        return switch (ext(filePath)) {
-            case "csv"  -> loadCsvToSimpleDataFrame(filePath, delimiter);
-            case "xls", "xlsx" -> loadExcelToSimpleDataFrame(filePath, null);
-            default -> throw new IOException("Unsupported file type for data_df: " + filePath);
-        };
+        return loadTable(filePath, delimiter, null, "data_df");
     }
 
     /** Loads Attributes.* and returns a list of Attribute POJOs. */
@@ -109,7 +137,7 @@ public class DataLoader {
                     attrs.add(new Attribute(rec.get(idH), rec.get(dsH)));
             }
         } else if ("xls".equals(ext(filePath)) || "xlsx".equals(ext(filePath))) {
-            SimpleDataFrame sdf = loadExcelToSimpleDataFrame(filePath, null);
+            SimpleDataFrame sdf = loadExcel(filePath, null);
             String idH = sdf.getColumnHeaders().stream()
                             .filter(h -> h.equalsIgnoreCase("Attr_id")).findFirst()
                             .orElse(sdf.getColumnHeaders().get(0));
@@ -129,11 +157,7 @@ public class DataLoader {
     public static List<SensitivityResult> loadSensitivityResults(String filePath, String sheetName) throws IOException {
         List<SensitivityResult> res = new ArrayList<>();
 
-        SimpleDataFrame sdf = switch (ext(filePath)) {
-            case "csv"        -> loadCsvToSimpleDataFrame(filePath, ',');
-            case "xls", "xlsx"-> loadExcelToSimpleDataFrame(filePath, sheetName);
-            default           -> throw new IOException("Unsupported file for sensitivity results: " + filePath);
-        };
+        SimpleDataFrame sdf = loadTable(filePath, ',', sheetName, "sensitivity results");
 
         for (Map<String,Object> row : sdf.getRows()) {
             String attr = Optional.ofNullable(row.get("Attr_id"))
@@ -147,15 +171,21 @@ public class DataLoader {
         return res;
     }
 
+    /** Loads compliance_repository.* (Owner, Domain, Sensitivity Level, ...; see ComplianceRepository). */
+    public static SimpleDataFrame loadComplianceRepository(String filePath, String sheetName) throws IOException {
+        return loadTable(filePath, ',', sheetName, "compliance repository");
+    }
+
+    /** Loads the user table the KYU model scores (Email, Domain, Purpose columns; see KyuModel). */
+    public static SimpleDataFrame loadKyuUsers(String filePath, String sheetName) throws IOException {
+        return loadTable(filePath, ',', sheetName, "KYU users");
+    }
+
     /** Loads KYU Score.* → list of POJOs */
     public static List<KyuScore> loadKyuScores(String filePath, String sheetName) throws IOException {
         List<KyuScore> res = new ArrayList<>();
 
-        SimpleDataFrame sdf = switch (ext(filePath)) {
-            case "csv"        -> loadCsvToSimpleDataFrame(filePath, ',');
-            case "xls", "xlsx"-> loadExcelToSimpleDataFrame(filePath, sheetName);
-            default           -> throw new IOException("Unsupported file for KYU scores: " + filePath);
-        };
+        SimpleDataFrame sdf = loadTable(filePath, ',', sheetName, "KYU scores");
 
         for (Map<String,Object> row : sdf.getRows()) {
             String id  = Optional.ofNullable(row.get("ID"))
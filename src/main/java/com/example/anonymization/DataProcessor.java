@@ -1,12 +1,7 @@
 package com.example.anonymization;
 
 import java.util.ArrayList;
-import java.util.ArrayList;
-import java.util.HashMap; // Added for sensitivityRank
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 public class DataProcessor {
@@ -51,15 +46,7 @@ public class DataProcessor {
         int n = dataFrame.getRowCount();
 
         for (String colName : columnHeaders) {
-            List<Object> columnData = dataFrame.getColumnData(colName);
-            
-            Set<Object> uniqueValues = new HashSet<>();
-            for (Object value : columnData) {
-                if (value != null) { // Simulating dropna=True by only adding non-nulls
-                    uniqueValues.add(value);
-                }
-            }
-            int nunique = uniqueValues.size();
+            int nunique = distinctCount(dataFrame.column(colName)); // Non-null values only, like dropna=True
             
             double ratio = (n > 0) ? (double) nunique / n : 0.0;
 
@@ -73,6 +60,24 @@ public class DataProcessor {
         return qids;
     }
 
+    /** Distinct non-null values, counted on dictionary codes or {@link ValueKeys} rather than boxed values. */
+    static int distinctCount(Column col) {
+        if (col instanceof StringColumn) {
+            StringColumn strings = (StringColumn) col;
+            boolean[] seen = new boolean[strings.dictionarySize()];
+            int count = 0;
+            for (int i = 0; i < strings.size(); i++) {
+                int code = strings.code(i);
+                if (code >= 0 && !seen[code]) { seen[code] = true; count++; }
+            }
+            return count;
+        }
+        LongCountMap counts = new LongCountMap(Math.min(col.size(), 1 << 20));
+        long[] keys = col.valueKeys();
+        for (int i = 0; i < keys.length; i++) if (!col.isNull(i)) counts.increment(keys[i]);
+        return counts.size();
+    }
+
     /**
      * Determines the type of a query result based on the dimensions of the SimpleDataFrame.
      *
@@ -103,17 +108,14 @@ public class DataProcessor {
         }
     }
 
-    private static final Map<String, Integer> sensitivityRank = new HashMap<>();
-    private static final Map<Integer, String> reverseSensitivityRank = new HashMap<>();
-
-    static {
-        sensitivityRank.put("Low", 1);
-        sensitivityRank.put("Moderate", 2);
-        sensitivityRank.put("High", 3);
+    /** The higher of two levels; unrecognized levels (e.g. "Unknown") rank below "Low". */
+    public static String higherSensitivityLevel(String a, String b) {
+        return rank(b) > rank(a) ? b : a;
+    }
 
-        for (Map.Entry<String, Integer> entry : sensitivityRank.entrySet()) {
-            reverseSensitivityRank.put(entry.getValue(), entry.getKey());
-        }
+    private static int rank(String level) {
+        SensitivityLevel parsed = SensitivityLevel.parse(level);
+        return parsed == null ? 0 : parsed.rank();
     }
 
     /**
@@ -133,49 +135,7 @@ public class DataProcessor {
             throw new IllegalArgumentException("Sensitivity mapping list cannot be null.");
         }
 
-        Set<String> dfColumnNames = resultDf.getColumnHeaders().stream()
-                                        .map(String::valueOf) // Ensure they are strings
-                                        .collect(Collectors.toSet());
-
-        List<SensitivityResult> matchedSensitivities = allSensitivities.stream()
-                .filter(sr -> dfColumnNames.contains(String.valueOf(sr.getAttributeId())))
-                .collect(Collectors.toList());
-
-        if (matchedSensitivities.isEmpty()) {
-            // Python code raises ValueError: "No matching columns found between DataFrame and sensitivity mapping."
-            // The warning in python: "A value is trying to be set on a copy of a slice from a DataFrame" is for pandas, not relevant here.
-            throw new IllegalArgumentException("No matching columns found between DataFrame and sensitivity mapping for columns: " + dfColumnNames);
-        }
-
-        int maxRank = 0;
-        for (SensitivityResult sr : matchedSensitivities) {
-            // Use toLowerCase for sensitivity level matching to be robust, though ranks are defined with specific casing
-            String level = sr.getSensitivityLevel();
-            // Find the rank, being case-insensitive for the key lookup in sensitivityRank if needed,
-            // or ensure data consistency. For now, assume exact match or pre-cleaned data.
-            // A more robust way:
-            int currentRank = sensitivityRank.entrySet().stream()
-                                .filter(entry -> entry.getKey().equalsIgnoreCase(level))
-                                .map(Map.Entry::getValue)
-                                .findFirst()
-                                .orElse(0); // Default to 0 if level string is not recognized
-
-            if (currentRank > maxRank) {
-                maxRank = currentRank;
-            }
-        }
-        
-        if (maxRank == 0) {
-            // This implies that columns were matched, but their sensitivity levels were not "Low", "Moderate", or "High"
-            // or were not found in the sensitivityRank map.
-            // Python code would raise KeyError from reverse_rank[0].
-            // Let's return "Low" as a default as per earlier reasoning for safety, or throw an error.
-            // Given the Python behavior, an error or specific handling for "unknown" might be better.
-            // For now, let's align with a safer default if ranks are all zero for matched columns.
-             System.err.println("Warning: Matched columns found, but no recognized sensitivity levels ('Low', 'Moderate', 'High'). Defaulting to Low.");
-            return "Low";
-        }
-
-        return reverseSensitivityRank.get(maxRank);
+        // Callers with a long-lived list should keep their own SensitivityCatalog, which also caches
+        return SensitivityCatalog.of(allSensitivities).maxLevel(resultDf.getColumnHeaders());
     }
 }
@@ -0,0 +1,209 @@
+package com.example.anonymization;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary columnar snapshot of a loaded SimpleDataFrame, written next to its source as
+ * {@code <source>.gsnap}.
+ *
+ * The snapshot header records the {@link SourceFingerprint} of the source and a variant string (CSV
+ * delimiter or sheet name). When both still match, the snapshot is memory-mapped and its column arrays
+ * are bulk-copied into the frame instead of re-parsing the source; otherwise the source is parsed
+ * and the snapshot rewritten.
+ *
+ * Layout (big-endian): magic, version, fingerprint, variant, row count, column count, then per
+ * column its header, {@link ColumnType} ordinal and data:
+ *  • LONG / DOUBLE: null bitmap words followed by the values
+ *  • STRING: dictionary entries followed by one int code per row (-1 for null)
+ *  • EMPTY: nothing
+ * Frames holding OBJECT columns are not snapshotted.
+ */
+final class DatasetSnapshot {
+
+    static final String SUFFIX = ".gsnap";
+    private static final int MAGIC = 0x47534E50; // "GSNP"
+    private static final int VERSION = 2; // 2: numeric columns stored as LONG / DOUBLE
+
+    @FunctionalInterface
+    interface Loader {
+        SimpleDataFrame load() throws IOException;
+    }
+
+    private DatasetSnapshot() {
+    }
+
+    static Path pathFor(Path source) {
+        return source.resolveSibling(source.getFileName() + SUFFIX);
+    }
+
+    /** Reads the snapshot of {@code source} when it is current, else runs {@code loader} and writes one. */
+    static SimpleDataFrame load(Path source, String variant, Loader loader) throws IOException {
+        Path snapshot = pathFor(source);
+        SimpleDataFrame cached = read(snapshot, source, variant);
+        if (cached != null) return cached;
+
+        SourceFingerprint fingerprint = SourceFingerprint.of(source);
+        SimpleDataFrame df = loader.load();
+        try {
+            write(snapshot, fingerprint, variant, df);
+        } catch (IOException e) {
+            // The snapshot is only a cache; a read-only directory must not fail the load
+            System.err.println("Warning: could not write snapshot " + snapshot + ": " + e.getMessage());
+        }
+        return df;
+    }
+
+    /** The snapshot contents, or null when it is missing, stale or unreadable. */
+    static SimpleDataFrame read(Path snapshot, Path source, String variant) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) return null;
+            if (!SourceFingerprint.read(in).matches(source)) return null;
+            if (!variant.equals(readString(in))) return null;
+
+            int rows = in.getInt();
+            int cols = in.getInt();
+            List<String> headers = new ArrayList<>(cols);
+            Column[] columns = new Column[cols];
+            for (int c = 0; c < cols; c++) {
+                headers.add(readString(in));
+                columns[c] = readColumn(in, ColumnType.values()[in.get()], rows);
+            }
+            return SimpleDataFrame.ofColumns(headers, columns, rows);
+        } catch (RuntimeException e) {
+            // Underflow, a bad type byte, or a corrupt (e.g. negative) length: re-parse the source instead
+            System.err.println("Warning: ignoring corrupt snapshot " + snapshot);
+            return null;
+        }
+    }
+
+    private static Column readColumn(ByteBuffer in, ColumnType type, int rows) {
+        return switch (type) {
+            case EMPTY -> new NullColumn(rows);
+            case LONG -> {
+                NullMask nulls = readNulls(in);
+                long[] values = new long[rows];
+                in.asLongBuffer().get(values);
+                in.position(in.position() + rows * Long.BYTES);
+                yield new LongColumn(values, nulls, rows);
+            }
+            case DOUBLE -> {
+                NullMask nulls = readNulls(in);
+                double[] values = new double[rows];
+                in.asDoubleBuffer().get(values);
+                in.position(in.position() + rows * Double.BYTES);
+                yield new DoubleColumn(values, nulls, rows);
+            }
+            case STRING -> {
+                int entries = in.getInt();
+                List<String> dictionary = new ArrayList<>(entries);
+                for (int i = 0; i < entries; i++) dictionary.add(readString(in));
+                int[] codes = new int[rows];
+                in.asIntBuffer().get(codes);
+                in.position(in.position() + rows * Integer.BYTES);
+                yield StringColumn.of(codes, rows, dictionary);
+            }
+            case OBJECT -> throw new IndexOutOfBoundsException("OBJECT columns are never snapshotted");
+        };
+    }
+
+    private static NullMask readNulls(ByteBuffer in) {
+        long[] words = new long[in.getInt()];
+        in.asLongBuffer().get(words);
+        in.position(in.position() + words.length * Long.BYTES);
+        return NullMask.fromWords(words);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Writes to a temporary file first and moves it into place, so readers never see a partial snapshot. */
+    static void write(Path snapshot, SourceFingerprint fingerprint, String variant, SimpleDataFrame df) throws IOException {
+        int cols = df.getColumnCount();
+        for (int c = 0; c < cols; c++) {
+            if (df.column(c).type() == ColumnType.OBJECT) return;
+        }
+
+        // A unique name per writer: concurrent writers (threads or processes) must not share one temporary file
+        Path tmp = Files.createTempFile(snapshot.toAbsolutePath().getParent(), snapshot.getFileName() + ".", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                fingerprint.write(out);
+                writeString(out, variant);
+                int rows = df.getRowCount();
+                out.writeInt(rows);
+                out.writeInt(cols);
+                List<String> headers = df.getColumnHeaders();
+                for (int c = 0; c < cols; c++) {
+                    Column column = df.column(c);
+                    writeString(out, headers.get(c));
+                    out.writeByte(column.type().ordinal());
+                    writeColumn(out, column, rows);
+                }
+            }
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    private static void writeColumn(DataOutputStream out, Column column, int rows) throws IOException {
+        switch (column.type()) {
+            case LONG -> {
+                writeNulls(out, column, rows);
+                LongColumn longs = (LongColumn) column;
+                for (int i = 0; i < rows; i++) out.writeLong(longs.getLong(i));
+            }
+            case DOUBLE -> {
+                writeNulls(out, column, rows);
+                for (int i = 0; i < rows; i++) out.writeDouble(column.getDouble(i));
+            }
+            case STRING -> {
+                StringColumn strings = (StringColumn) column;
+                out.writeInt(strings.dictionarySize());
+                for (int i = 0; i < strings.dictionarySize(); i++) writeString(out, strings.dictionaryValue(i));
+                for (int i = 0; i < rows; i++) out.writeInt(strings.code(i));
+            }
+            default -> {
+                // EMPTY: the row count is enough
+            }
+        }
+    }
+
+    private static void writeNulls(DataOutputStream out, Column column, int rows) throws IOException {
+        NullMask nulls = new NullMask(rows);
+        for (int i = 0; i < rows; i++) if (column.isNull(i)) nulls.set(i);
+        long[] words = nulls.words();
+        out.writeInt(words.length);
+        for (long w : words) out.writeLong(w);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.anonymization;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Domain matching throughput on domain_index.faiss without the embedding model: query embeddings are
+ * stored vectors plus Gaussian noise. Compares one exact search per value (what the Flask loop does),
+ * the batched flat search and HNSW, and checks the batched domains against the per-value ones.
+ *
+ * Usage: DomainMatchBenchmark [indexDir] [queries] [noise]
+ */
+public class DomainMatchBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Path.of(args.length > 0 ? args[0] : "src/main/resources/scripts/GUARDRAIL-3");
+        int nq = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        float noise = args.length > 2 ? Float.parseFloat(args[2]) : 0.03f;
+        int k = DomainMatcher.DEFAULT_K;
+
+        FlatVectorIndex flat = FlatVectorIndex.load(dir.resolve("domain_index.faiss"));
+        DomainMatcher exact = DomainMatcher.load(dir.resolve("domain_index.faiss"), dir.resolve("id_to_domain.tsv"), false);
+        long t0 = System.nanoTime();
+        DomainMatcher approximate = DomainMatcher.load(dir.resolve("domain_index.faiss"), dir.resolve("id_to_domain.tsv"), true);
+        System.out.printf("Index: %d x %d (%s); HNSW load + build %.0f ms%n", flat.size(), flat.dimension(), flat.metric(),
+                (System.nanoTime() - t0) / 1e6);
+
+        int d = flat.dimension();
+        Random random = new Random(42);
+        float[] queries = new float[nq * d];
+        for (int q = 0; q < nq; q++) {
+            float[] v = flat.vector(random.nextInt(flat.size()));
+            for (int j = 0; j < d; j++) queries[q * d + j] = v[j] + (float) random.nextGaussian() * noise;
+        }
+
+        for (int round = 0; round < 3; round++) {
+            t0 = System.nanoTime();
+            String[] perValue = new String[nq];
+            float[] one = new float[d];
+            for (int q = 0; q < nq; q++) {
+                System.arraycopy(queries, q * d, one, 0, d);
+                perValue[q] = exact.match(one, k).domain();
+            }
+            double perValueMs = (System.nanoTime() - t0) / 1e6;
+
+            t0 = System.nanoTime();
+            List<DomainMatcher.Match> batched = exact.matchAll(queries, k);
+            double batchedMs = (System.nanoTime() - t0) / 1e6;
+
+            t0 = System.nanoTime();
+            List<DomainMatcher.Match> hnsw = approximate.matchAll(queries, k);
+            double hnswMs = (System.nanoTime() - t0) / 1e6;
+
+            int batchedSame = 0, hnswSame = 0;
+            for (int q = 0; q < nq; q++) {
+                if (perValue[q].equals(batched.get(q).domain())) batchedSame++;
+                if (perValue[q].equals(hnsw.get(q).domain())) hnswSame++;
+            }
+            System.out.printf("round %d: per-value %.1f us/value, batched %.1f us/value (%.1fx, %d/%d same domain),"
+                            + " HNSW %.1f us/value (%.1fx, %d/%d same domain)%n", round,
+                    perValueMs * 1e3 / nq, batchedMs * 1e3 / nq, perValueMs / batchedMs, batchedSame, nq,
+                    hnswMs * 1e3 / nq, perValueMs / hnswMs, hnswSame, nq);
+        }
+
+        // Neighbour recall of HNSW against the exact search
+        HnswIndex graph = HnswIndex.build(flat);
+        VectorIndex.Neighbors truth = flat.search(queries, k);
+        for (int ef : new int[]{16, 32, 64, 128}) {
+            graph.setEfSearch(ef);
+            VectorIndex.Neighbors found = graph.search(queries, k);
+            long hits = 0;
+            for (int q = 0; q < nq; q++) {
+                for (int r = 0; r < k; r++) {
+                    for (int s = 0; s < k; s++) {
+                        if (found.id(q, r) == truth.id(q, s)) {
+                            hits++;
+                            break;
+                        }
+                    }
+                }
+            }
+            System.out.printf("HNSW efSearch=%d: recall@%d %.4f%n", ef, k, hits / (double) (nq * k));
+        }
+    }
+}
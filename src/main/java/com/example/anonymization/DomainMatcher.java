@@ -0,0 +1,101 @@
+package com.example.anonymization;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Java counterpart of {@code faiss_domain_helper.predict_domain_for_value}: labels attribute values
+ * with a domain by majority vote over their nearest neighbours in {@code domain_index.faiss}.
+ *
+ * Values come in as sentence embeddings (all-MiniLM-L6-v2, computed outside the JVM), and a whole
+ * column's values are matched with one batched search instead of one search per value. Ids are mapped
+ * to domains with {@code id_to_domain.tsv} (see export_domain_labels.py).
+ */
+public final class DomainMatcher {
+
+    public static final int DEFAULT_K = 5;
+
+    private final VectorIndex index;
+    private final String[] domains;
+
+    /** Top domain of one value and the domains of its neighbours, best first. */
+    public record Match(String domain, List<String> topDomains) {
+    }
+
+    DomainMatcher(VectorIndex index, String[] domains) {
+        this.index = index;
+        this.domains = domains;
+    }
+
+    /** @param hnsw search an HNSW graph built at load time instead of scanning every vector */
+    public static DomainMatcher load(Path faissIndex, Path idToDomain, boolean hnsw) throws IOException {
+        FlatVectorIndex flat = FlatVectorIndex.load(faissIndex);
+        String[] domains = new String[flat.size()];
+        for (String line : Files.readAllLines(idToDomain, StandardCharsets.UTF_8)) {
+            if (line.isEmpty()) continue;
+            int tab = line.indexOf('\t');
+            int id = Integer.parseInt(line.substring(0, tab));
+            if (id < 0 || id >= domains.length) throw new IOException("Id " + id + " is not in " + faissIndex + ": " + idToDomain);
+            domains[id] = line.substring(tab + 1);
+        }
+        return new DomainMatcher(hnsw ? HnswIndex.build(flat) : flat, domains);
+    }
+
+    public int dimension() {
+        return index.dimension();
+    }
+
+    public Match match(float[] embedding, int k) {
+        return matchAll(embedding, k).get(0);
+    }
+
+    /**
+     * Matches {@code embeddings.length / dimension()} values at once. Embeddings are L2-normalised
+     * (on a copy) before the search, as the Python helper does.
+     */
+    public List<Match> matchAll(float[] embeddings, int k) {
+        int d = index.dimension();
+        if (embeddings.length % d != 0) throw new IllegalArgumentException("Embedding data is not a multiple of d=" + d);
+        float[] queries = embeddings.clone();
+        for (int o = 0; o < queries.length; o += d) {
+            double norm = 0;
+            for (int j = 0; j < d; j++) norm += (double) queries[o + j] * queries[o + j];
+            if (norm == 0) continue;
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int j = 0; j < d; j++) queries[o + j] *= scale;
+        }
+
+        VectorIndex.Neighbors neighbors = index.search(queries, k);
+        List<Match> matches = new ArrayList<>(neighbors.queryCount());
+        for (int q = 0; q < neighbors.queryCount(); q++) {
+            List<String> top = new ArrayList<>(k);
+            for (int r = 0; r < k; r++) {
+                int id = neighbors.id(q, r);
+                if (id >= 0) top.add(domains[id]);
+            }
+            matches.add(new Match(majority(top), top));
+        }
+        return matches;
+    }
+
+    /** Most frequent domain; ties go to the one seen first, like Counter.most_common(1). */
+    static String majority(List<String> topDomains) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String domain : topDomains) counts.merge(domain, 1, Integer::sum);
+        String best = null;
+        int bestCount = 0;
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            if (e.getValue() > bestCount) {
+                best = e.getKey();
+                bestCount = e.getValue();
+            }
+        }
+        return best;
+    }
+}
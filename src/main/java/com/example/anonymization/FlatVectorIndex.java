@@ -0,0 +1,229 @@
+package com.example.anonymization;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Exact (brute force) vector search, loaded from a FAISS IndexFlatIP / IndexFlatL2 file.
+ *
+ * The stored vectors are also kept transposed in chunks of {@link #BASE_BLOCK} rows, so scoring a
+ * query against a chunk is a run of multiply-adds over consecutive floats (vectorised by the JIT)
+ * rather than one dot-product reduction per row. A batch of queries is cut into blocks of
+ * {@link #QUERY_BLOCK} queries searched in parallel; each block sweeps the chunks in order, so a chunk
+ * is read from memory once per block and from cache for the rest of its queries.
+ */
+final class FlatVectorIndex implements VectorIndex {
+
+    static final int QUERY_BLOCK = 64;
+    static final int BASE_BLOCK = 256; // 256 x 384 floats = 384 KiB
+
+    private final int d;
+    private final int n;
+    private final Metric metric;
+    private final float[] vectors; // n x d, row-major
+    private final float[] norms; // Squared norms, for L2
+    private final float[][] transposed; // Per block of BASE_BLOCK rows: d x BASE_BLOCK, zero-padded
+
+    FlatVectorIndex(int d, Metric metric, float[] vectors) {
+        if (d <= 0 || vectors.length % d != 0) throw new IllegalArgumentException("Vector data is not a multiple of d=" + d);
+        this.d = d;
+        this.n = vectors.length / d;
+        this.metric = metric;
+        this.vectors = vectors;
+        this.norms = new float[n];
+        if (metric == Metric.L2) {
+            for (int i = 0; i < n; i++) norms[i] = dot(vectors, i * d, vectors, i * d, d);
+        }
+        this.transposed = new float[(n + BASE_BLOCK - 1) / BASE_BLOCK][];
+        for (int b = 0; b < transposed.length; b++) {
+            float[] block = new float[d * BASE_BLOCK];
+            for (int i = b * BASE_BLOCK; i < Math.min(n, (b + 1) * BASE_BLOCK); i++) {
+                for (int j = 0; j < d; j++) block[j * BASE_BLOCK + i - b * BASE_BLOCK] = vectors[i * d + j];
+            }
+            transposed[b] = block;
+        }
+    }
+
+    /** Reads a FAISS flat index as written by {@code faiss.write_index} ("IxFI" or "IxF2"). */
+    static FlatVectorIndex load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            byte[] fourcc = new byte[4];
+            in.get(fourcc);
+            String h = new String(fourcc, StandardCharsets.US_ASCII);
+            if (!h.equals("IxFI") && !h.equals("IxF2")) {
+                throw new IOException("Not a flat IP/L2 FAISS index (" + h + "): " + file);
+            }
+            int d = in.getInt();
+            long ntotal = in.getLong();
+            in.getLong(); // dummy
+            in.getLong(); // dummy
+            in.get(); // is_trained
+            int metricType = in.getInt();
+            Metric metric = switch (metricType) {
+                case 0 -> Metric.INNER_PRODUCT;
+                case 1 -> Metric.L2;
+                default -> throw new IOException("Unsupported FAISS metric type " + metricType + ": " + file);
+            };
+            long floats = in.getLong();
+            if (floats != ntotal * d || floats > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected vector count " + floats + " for " + ntotal + " x " + d + ": " + file);
+            }
+            float[] vectors = new float[(int) floats];
+            FloatBuffer data = in.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            data.get(vectors);
+            return new FlatVectorIndex(d, metric, vectors);
+        }
+    }
+
+    @Override
+    public int dimension() {
+        return d;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public Metric metric() {
+        return metric;
+    }
+
+    /** Stored vector {@code i} (a copy). */
+    float[] vector(int i) {
+        return Arrays.copyOfRange(vectors, i * d, (i + 1) * d);
+    }
+
+    float[] vectors() {
+        return vectors;
+    }
+
+    @Override
+    public Neighbors search(float[] queries, int k) {
+        if (queries.length % d != 0) throw new IllegalArgumentException("Query data is not a multiple of d=" + d);
+        int nq = queries.length / d;
+        int[] ids = new int[nq * k];
+        float[] scores = new float[nq * k];
+        int blocks = (nq + QUERY_BLOCK - 1) / QUERY_BLOCK;
+        IntStream.range(0, blocks).parallel().forEach(b ->
+                searchBlock(queries, b * QUERY_BLOCK, Math.min(nq, (b + 1) * QUERY_BLOCK), k, ids, scores));
+        return new Neighbors(k, ids, scores);
+    }
+
+    private void searchBlock(float[] queries, int from, int to, int k, int[] ids, float[] scores) {
+        TopK[] top = new TopK[to - from];
+        for (int q = from; q < to; q++) top[q - from] = new TopK(k);
+        boolean l2 = metric == Metric.L2;
+        float[] acc0 = new float[BASE_BLOCK], acc1 = new float[BASE_BLOCK];
+        float[] acc2 = new float[BASE_BLOCK], acc3 = new float[BASE_BLOCK];
+        for (int b = 0; b < transposed.length; b++) {
+            float[] block = transposed[b];
+            int base = b * BASE_BLOCK;
+            int rows = Math.min(BASE_BLOCK, n - base);
+            // Four queries per sweep over the chunk; the inner loop is plain multiply-adds over
+            // consecutive floats, which the JIT turns into SIMD
+            for (int q = from; q < to; q += 4) {
+                int count = Math.min(4, to - q);
+                Arrays.fill(acc0, 0);
+                int q0 = q * d;
+                if (count == 1) {
+                    for (int j = 0; j < d; j++) {
+                        float x0 = queries[q0 + j];
+                        int o = j * BASE_BLOCK;
+                        for (int i = 0; i < BASE_BLOCK; i++) acc0[i] += x0 * block[o + i];
+                    }
+                    offerAll(top[q - from], acc0, base, rows, l2);
+                    continue;
+                }
+                Arrays.fill(acc1, 0);
+                Arrays.fill(acc2, 0);
+                Arrays.fill(acc3, 0);
+                // Missing queries of a short group repeat the first one and are not offered
+                int q1 = count > 1 ? q0 + d : q0, q2 = count > 2 ? q0 + 2 * d : q0, q3 = count > 3 ? q0 + 3 * d : q0;
+                for (int j = 0; j < d; j++) {
+                    float x0 = queries[q0 + j], x1 = queries[q1 + j], x2 = queries[q2 + j], x3 = queries[q3 + j];
+                    int o = j * BASE_BLOCK;
+                    for (int i = 0; i < BASE_BLOCK; i++) {
+                        float v = block[o + i];
+                        acc0[i] += x0 * v;
+                        acc1[i] += x1 * v;
+                        acc2[i] += x2 * v;
+                        acc3[i] += x3 * v;
+                    }
+                }
+                offerAll(top[q - from], acc0, base, rows, l2);
+                if (count > 1) offerAll(top[q + 1 - from], acc1, base, rows, l2);
+                if (count > 2) offerAll(top[q + 2 - from], acc2, base, rows, l2);
+                if (count > 3) offerAll(top[q + 3 - from], acc3, base, rows, l2);
+            }
+        }
+        for (int q = from; q < to; q++) {
+            // For L2 the key is 2q.x - |x|^2, so |q - x|^2 = |q|^2 - key
+            float qNorm = l2 ? dot(queries, q * d, queries, q * d, d) : 0;
+            top[q - from].drainTo(ids, scores, q * k, l2, qNorm);
+        }
+    }
+
+    private void offerAll(TopK top, float[] dots, int base, int rows, boolean l2) {
+        for (int i = 0; i < rows; i++) {
+            top.offer(base + i, l2 ? 2 * dots[i] - norms[base + i] : dots[i]);
+        }
+    }
+
+    static float dot(float[] a, int ao, float[] b, int bo, int d) {
+        // Four partial sums break the dependency chain of a single accumulator
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int j = 0;
+        for (; j + 4 <= d; j += 4) {
+            s0 += a[ao + j] * b[bo + j];
+            s1 += a[ao + j + 1] * b[bo + j + 1];
+            s2 += a[ao + j + 2] * b[bo + j + 2];
+            s3 += a[ao + j + 3] * b[bo + j + 3];
+        }
+        for (; j < d; j++) s0 += a[ao + j] * b[bo + j];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** The k highest keys seen, kept sorted; ties keep the lower id, as ids arrive in order. */
+    static final class TopK {
+        final int[] ids;
+        final float[] keys;
+        int size;
+
+        TopK(int k) {
+            ids = new int[k];
+            keys = new float[k];
+        }
+
+        void offer(int id, float key) {
+            int k = ids.length;
+            if (size == k && !(key > keys[k - 1])) return;
+            int pos = size < k ? size++ : k - 1;
+            while (pos > 0 && key > keys[pos - 1]) {
+                keys[pos] = keys[pos - 1];
+                ids[pos] = ids[pos - 1];
+                pos--;
+            }
+            keys[pos] = key;
+            ids[pos] = id;
+        }
+
+        void drainTo(int[] outIds, float[] outScores, int offset, boolean l2, float qNorm) {
+            for (int r = 0; r < ids.length; r++) {
+                outIds[offset + r] = r < size ? ids[r] : -1;
+                outScores[offset + r] = r < size ? (l2 ? qNorm - keys[r] : keys[r]) : Float.NaN;
+            }
+        }
+    }
+}
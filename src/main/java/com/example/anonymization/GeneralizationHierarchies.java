@@ -0,0 +1,159 @@
+package com.example.anonymization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The value hierarchies generalization uses, by data_df column, compiled when they are loaded (see
+ * {@link GeneralizationHierarchy}). The hierarchies bundled as {@value #DEFAULT_RESOURCE} are used
+ * until {@link #useFile} points at a file on disk. The file is a properties file:
+ * <pre>
+ * # Categorical: level names, lowest first, then per level "group: member, ...; group: member, ..."
+ * district.columns = 2
+ * district.levels = division, state
+ * district.division = Mysuru Division: Mysuru, Mandya, ...; Belagavi Division: Belagavi, ...
+ * district.state = Karnataka: Mysuru Division, Belagavi Division, ...
+ * # Numeric: a range width per level, finest first
+ * amount.columns = 17
+ * amount.ranges = 10, 100, 1000
+ * </pre>
+ */
+final class GeneralizationHierarchies {
+
+    static final String DEFAULT_RESOURCE = "/generalization-hierarchies.properties";
+
+    private static volatile GeneralizationHierarchies current;
+
+    private final Map<String, GeneralizationHierarchy> byColumn;
+
+    private GeneralizationHierarchies(Map<String, GeneralizationHierarchy> byColumn) {
+        this.byColumn = byColumn;
+    }
+
+    /** The hierarchy for {@code columnName}, or null when it has none. */
+    static GeneralizationHierarchy forColumn(String columnName) {
+        return get().byColumn.get(columnName);
+    }
+
+    private static GeneralizationHierarchies get() {
+        GeneralizationHierarchies loaded = current;
+        if (loaded != null) return loaded;
+        synchronized (GeneralizationHierarchies.class) {
+            if (current == null) {
+                try (InputStream in = GeneralizationHierarchies.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+                    if (in == null) throw new IOException("Generalization hierarchies " + DEFAULT_RESOURCE + " not found on the classpath");
+                    Properties props = new Properties();
+                    props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+                    current = compile(props, DEFAULT_RESOURCE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Uses the hierarchies in {@code file} instead of the bundled ones.
+     *
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if it does not compile
+     */
+    static synchronized void useFile(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Properties props = new Properties();
+            props.load(in);
+            current = compile(props, file.toString());
+        }
+        System.out.println("Generalization hierarchies loaded from " + file);
+    }
+
+    /** @throws IllegalArgumentException naming {@code source} and the hierarchy, for any malformed entry */
+    static GeneralizationHierarchies compile(Properties props, String source) {
+        Set<String> names = new TreeSet<>();
+        for (String key : props.stringPropertyNames()) {
+            int dot = key.indexOf('.');
+            if (dot <= 0) throw new IllegalArgumentException(source + ": '" + key + "' is not hierarchy.property");
+            names.add(key.substring(0, dot));
+        }
+        Map<String, GeneralizationHierarchy> byColumn = new HashMap<>();
+        for (String name : names) {
+            try {
+                GeneralizationHierarchy hierarchy = compileOne(props, name);
+                for (String column : list(props.getProperty(name + ".columns", ""), ",")) {
+                    GeneralizationHierarchy previous = byColumn.putIfAbsent(column, hierarchy);
+                    if (previous != null) throw new IllegalArgumentException("column " + column + " also has hierarchy " + previous.name());
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(source + ": " + e.getMessage(), e);
+            }
+        }
+        return new GeneralizationHierarchies(Collections.unmodifiableMap(byColumn));
+    }
+
+    private static GeneralizationHierarchy compileOne(Properties props, String name) {
+        if (props.getProperty(name + ".columns") == null) throw new IllegalArgumentException(name + " has no columns");
+        String ranges = props.getProperty(name + ".ranges");
+        String levelNames = props.getProperty(name + ".levels");
+        if ((ranges == null) == (levelNames == null)) throw new IllegalArgumentException(name + " needs either levels or ranges");
+        Set<String> known = new TreeSet<>(List.of(name + ".columns", name + (ranges != null ? ".ranges" : ".levels")));
+        if (ranges != null) {
+            List<BigDecimal> widths = new ArrayList<>();
+            for (String width : list(ranges, ",")) {
+                try {
+                    widths.add(new BigDecimal(width));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(name + ": range width '" + width + "' is not a number");
+                }
+            }
+            checkNoOthers(props, name, known);
+            return GeneralizationHierarchy.numeric(name, widths);
+        }
+        List<Map<String, List<String>>> levels = new ArrayList<>();
+        for (String level : list(levelNames, ",")) {
+            String groups = props.getProperty(name + "." + level);
+            if (groups == null) throw new IllegalArgumentException(name + ": level " + level + " has no groups");
+            known.add(name + "." + level);
+            Map<String, List<String>> members = new LinkedHashMap<>();
+            for (String group : list(groups, ";")) {
+                int colon = group.indexOf(':');
+                if (colon < 0) throw new IllegalArgumentException(name + "." + level + ": '" + group + "' is not group: member, ...");
+                String label = group.substring(0, colon).strip();
+                if (members.put(label, list(group.substring(colon + 1), ",")) != null) {
+                    throw new IllegalArgumentException(name + "." + level + ": group " + label + " is listed twice");
+                }
+            }
+            levels.add(members);
+        }
+        checkNoOthers(props, name, known);
+        return GeneralizationHierarchy.categorical(name, levels);
+    }
+
+    private static void checkNoOthers(Properties props, String name, Set<String> known) {
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith(name + ".") && !known.contains(key)) throw new IllegalArgumentException("unknown property " + key);
+        }
+    }
+
+    private static List<String> list(String value, String separator) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(separator)) if (!item.isBlank()) items.add(item.strip());
+        return items;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.anonymization;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One value hierarchy for generalization, compiled into lookup arrays (see {@link GeneralizationHierarchies}
+ * for the file format). Level 0 is the value itself; level 1 the first grouping, and so on up to
+ * {@link #depth}. Levels past the top are generalized to the top.
+ *
+ * A categorical hierarchy (district -> division -> state) numbers its leaves once, and keeps for each
+ * level the label of every leaf's ancestor as an {@code int[]} into that level's labels. Generalizing a
+ * dictionary-encoded column looks up each distinct string once and then costs one array index per cell.
+ * A numeric hierarchy has a range width per level; a value v becomes the range
+ * {@code [floor(v / width) * width, +width)}, labelled "lo-hi" like the ranges ScoreCalculator recognizes.
+ */
+final class GeneralizationHierarchy {
+
+    private final String name;
+    // Categorical: leaf value -> leaf id, and per level the ancestor label of every leaf
+    private final Map<String, Integer> leafIds;
+    private final int[][] ancestors;
+    private final String[][] labels;
+    // Numeric: range width per level, finest first
+    private final BigDecimal[] widths;
+
+    private GeneralizationHierarchy(String name, Map<String, Integer> leafIds, int[][] ancestors, String[][] labels, BigDecimal[] widths) {
+        this.name = name;
+        this.leafIds = leafIds;
+        this.ancestors = ancestors;
+        this.labels = labels;
+        this.widths = widths;
+    }
+
+    /**
+     * Compiles a categorical hierarchy. {@code levels.get(l)} maps each group of level l + 1 to its
+     * members, which are the leaf values for l = 0 and groups of level l otherwise.
+     *
+     * @throws IllegalArgumentException if a member is listed twice on a level, or a group of a level
+     *         below the top is missing from the level above
+     */
+    static GeneralizationHierarchy categorical(String name, List<Map<String, List<String>>> levels) {
+        if (levels.isEmpty()) throw new IllegalArgumentException(name + " has no levels");
+        Map<String, Integer> leafIds = new HashMap<>();
+        List<Integer> leafParents = new ArrayList<>();
+        String[][] labels = new String[levels.size()][];
+        int[][] parents = new int[levels.size()][]; // Group of level l -> its group on level l + 1
+        for (int l = 0; l < levels.size(); l++) {
+            Map<String, List<String>> groups = levels.get(l);
+            labels[l] = groups.keySet().toArray(new String[0]);
+            Map<String, Integer> below = l == 0 ? null : index(labels[l - 1]);
+            int[] parentOfBelow = l == 0 ? null : new int[labels[l - 1].length];
+            if (parentOfBelow != null) Arrays.fill(parentOfBelow, -1);
+            int g = 0;
+            for (List<String> members : groups.values()) {
+                for (String member : members) {
+                    if (l == 0) {
+                        if (leafIds.putIfAbsent(member, leafIds.size()) != null) {
+                            throw new IllegalArgumentException(name + ": '" + member + "' is listed twice");
+                        }
+                        leafParents.add(g);
+                        continue;
+                    }
+                    Integer child = below.get(member);
+                    if (child == null) throw new IllegalArgumentException(name + ": level " + (l + 1) + " groups unknown '" + member + "'");
+                    if (parentOfBelow[child] >= 0) throw new IllegalArgumentException(name + ": '" + member + "' is listed twice");
+                    parentOfBelow[child] = g;
+                }
+                g++;
+            }
+            if (parentOfBelow != null) {
+                for (int c = 0; c < parentOfBelow.length; c++) {
+                    if (parentOfBelow[c] < 0) throw new IllegalArgumentException(name + ": level " + (l + 1) + " leaves out '" + labels[l - 1][c] + "'");
+                }
+                parents[l - 1] = parentOfBelow;
+            }
+        }
+        // Flatten the chain of parents into one ancestor array per level
+        int[][] ancestors = new int[levels.size()][leafIds.size()];
+        for (int leaf = 0; leaf < leafIds.size(); leaf++) {
+            int group = leafParents.get(leaf);
+            ancestors[0][leaf] = group;
+            for (int l = 1; l < levels.size(); l++) ancestors[l][leaf] = group = parents[l - 1][group];
+        }
+        return new GeneralizationHierarchy(name, leafIds, ancestors, labels, null);
+    }
+
+    /** @throws IllegalArgumentException unless the widths are positive and increasing */
+    static GeneralizationHierarchy numeric(String name, List<BigDecimal> widths) {
+        if (widths.isEmpty()) throw new IllegalArgumentException(name + " has no levels");
+        for (int l = 0; l < widths.size(); l++) {
+            if (widths.get(l).signum() <= 0 || (l > 0 && widths.get(l).compareTo(widths.get(l - 1)) <= 0)) {
+                throw new IllegalArgumentException(name + ": range widths must be positive and increasing, got " + widths);
+            }
+        }
+        return new GeneralizationHierarchy(name, null, null, null, widths.toArray(new BigDecimal[0]));
+    }
+
+    String name() {
+        return name;
+    }
+
+    int depth() {
+        return widths != null ? widths.length : labels.length;
+    }
+
+    boolean isCategorical() {
+        return widths == null;
+    }
+
+    /** Id of a categorical hierarchy's leaf {@code value}, or -1 if it is not one. */
+    int leafId(String value) {
+        Integer leaf = leafIds.get(value);
+        return leaf == null ? -1 : leaf;
+    }
+
+    /** Id of the leaf's ancestor at {@code level} (1 .. depth), among that level's labels. */
+    int ancestor(int leaf, int level) {
+        return ancestors[level - 1][leaf];
+    }
+
+    String label(int level, int id) {
+        return labels[level - 1][id];
+    }
+
+    /** The column with every value replaced by its ancestor at {@code level}; values the hierarchy does not know are left as they are. */
+    Column generalize(Column col, int level) {
+        if (level <= 0) return col;
+        int l = Math.min(level, depth()) - 1;
+        return widths != null ? generalizeNumeric(col, widths[l]) : generalizeCategorical(col, l);
+    }
+
+    private Column generalizeCategorical(Column col, int l) {
+        int[] ancestor = ancestors[l];
+        String[] levelLabels = labels[l];
+        int unknown = 0;
+        Column out;
+        if (col instanceof StringColumn) {
+            StringColumn strings = (StringColumn) col;
+            // Translate the dictionary once; the new dictionary is this level's labels, then the unknown values
+            LinkedHashMap<String, Integer> dictionary = new LinkedHashMap<>(index(levelLabels));
+            int[] codeMap = new int[strings.dictionarySize()];
+            for (int d = 0; d < codeMap.length; d++) {
+                String value = strings.dictionaryValue(d);
+                Integer leaf = leafIds.get(value);
+                codeMap[d] = leaf != null ? ancestor[leaf] : dictionary.computeIfAbsent(value, v -> dictionary.size());
+            }
+            int n = strings.size();
+            int[] codes = new int[n];
+            for (int i = 0; i < n; i++) {
+                int code = strings.code(i);
+                codes[i] = code < 0 ? code : codeMap[code];
+                if (code >= 0 && codes[i] >= levelLabels.length) unknown++;
+            }
+            out = StringColumn.of(codes, n, new ArrayList<>(dictionary.keySet()));
+        } else {
+            out = Column.empty();
+            for (int i = 0; i < col.size(); i++) {
+                Object value = col.get(i);
+                Integer leaf = value == null ? null : leafIds.get(String.valueOf(value));
+                if (value != null && leaf == null) unknown++;
+                out = out.append(leaf != null ? levelLabels[ancestor[leaf]] : value);
+            }
+        }
+        if (unknown > 0) System.err.println("Warning: " + unknown + " value(s) not in hierarchy " + name + " left unchanged by generalization");
+        return out;
+    }
+
+    private Column generalizeNumeric(Column col, BigDecimal width) {
+        double w = width.doubleValue();
+        Map<Long, String> rangeLabels = new HashMap<>();
+        if (col instanceof LongColumn || col instanceof DoubleColumn) {
+            // Every non-null cell is a number: number the ranges between the lowest and highest one densely
+            int n = col.size();
+            long[] ranges = new long[n];
+            long lowest = Long.MAX_VALUE, highest = Long.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                if (col.isNull(i)) continue;
+                ranges[i] = (long) Math.floor(col.getDouble(i) / w);
+                lowest = Math.min(lowest, ranges[i]);
+                highest = Math.max(highest, ranges[i]);
+            }
+            if (lowest <= highest && highest - lowest < (long) n + 1024) {
+                int[] rangeCodes = new int[(int) (highest - lowest + 1)];
+                Arrays.fill(rangeCodes, -1);
+                List<String> dictionary = new ArrayList<>();
+                int[] codes = new int[n];
+                for (int i = 0; i < n; i++) {
+                    if (col.isNull(i)) { codes[i] = -1; continue; }
+                    int r = (int) (ranges[i] - lowest);
+                    if (rangeCodes[r] < 0) {
+                        rangeCodes[r] = dictionary.size();
+                        dictionary.add(rangeLabel(ranges[i], width));
+                    }
+                    codes[i] = rangeCodes[r];
+                }
+                return StringColumn.of(codes, n, dictionary);
+            }
+        }
+        Column out = Column.empty();
+        for (int i = 0; i < col.size(); i++) {
+            if (col.isNull(i) || !col.isNumber(i)) { out = out.append(col.get(i)); continue; }
+            long range = (long) Math.floor(col.getDouble(i) / w);
+            out = out.append(rangeLabels.computeIfAbsent(range, r -> rangeLabel(r, width)));
+        }
+        return out;
+    }
+
+    private static String rangeLabel(long range, BigDecimal width) {
+        BigDecimal lo = width.multiply(BigDecimal.valueOf(range));
+        return lo.stripTrailingZeros().toPlainString() + "-" + lo.add(width).stripTrailingZeros().toPlainString();
+    }
+
+    private static Map<String, Integer> index(String[] values) {
+        Map<String, Integer> index = new LinkedHashMap<>();
+        for (String v : values) index.put(v, index.size());
+        return index;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.anonymization;
+
+import java.util.Locale;
+
+/** Shape of a query result, as named by {@link DataProcessor#determineQueryResultType}. */
+enum Granularity {
+    CELL("cell"), COLUMN("column"), ROW("row"), TABLE("table");
+
+    private final String label;
+
+    Granularity(String label) {
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+
+    /** Case-insensitive; null for anything else. */
+    static Granularity parse(String granularity) {
+        if (granularity == null) return null;
+        return switch (granularity.strip().toLowerCase(Locale.ROOT)) {
+            case "cell" -> CELL;
+            case "column" -> COLUMN;
+            case "row" -> ROW;
+            case "table" -> TABLE;
+            default -> null;
+        };
+    }
+}
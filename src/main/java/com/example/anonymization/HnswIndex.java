@@ -0,0 +1,348 @@
+package com.example.anonymization;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Approximate search with a hierarchical navigable small world graph (Malkov and Yashunin), built over
+ * the vectors of a {@link FlatVectorIndex}. Meant for domain catalogues large enough that the exact
+ * sweep dominates; for the current 1000-vector index the flat search is already cheap.
+ *
+ * Each node links to at most {@code m} neighbours per upper layer and {@code 2m} on layer 0, picked
+ * with the paper's diversity heuristic. Search greedily descends the upper layers and then explores
+ * layer 0 with a beam of {@code efSearch} candidates; queries of a batch run in parallel.
+ */
+final class HnswIndex implements VectorIndex {
+
+    static final int DEFAULT_M = 16;
+    static final int DEFAULT_EF_CONSTRUCTION = 200;
+    static final int DEFAULT_EF_SEARCH = 64;
+
+    private final int d;
+    private final int n;
+    private final Metric metric;
+    private final float[] vectors;
+    private final int m;
+    private final int[][][] links; // [node][layer] = {count, neighbour ids...}
+    private int entryPoint = -1;
+    private int maxLayer = -1;
+    private volatile int efSearch = DEFAULT_EF_SEARCH;
+    private final ThreadLocal<Visited> visited;
+
+    HnswIndex(FlatVectorIndex base, int m, int efConstruction, long seed) {
+        this.d = base.dimension();
+        this.n = base.size();
+        this.metric = base.metric();
+        this.vectors = base.vectors();
+        this.m = m;
+        this.links = new int[n][][];
+        this.visited = ThreadLocal.withInitial(() -> new Visited(n));
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double levelMult = 1 / Math.log(m);
+        for (int i = 0; i < n; i++) {
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMult);
+            insert(i, level, efConstruction);
+        }
+    }
+
+    static HnswIndex build(FlatVectorIndex base) {
+        return new HnswIndex(base, DEFAULT_M, DEFAULT_EF_CONSTRUCTION, 42);
+    }
+
+    /** Beam width at query time: higher finds more true neighbours and costs more. */
+    void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    @Override
+    public int dimension() {
+        return d;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public Metric metric() {
+        return metric;
+    }
+
+    @Override
+    public Neighbors search(float[] queries, int k) {
+        if (queries.length % d != 0) throw new IllegalArgumentException("Query data is not a multiple of d=" + d);
+        int nq = queries.length / d;
+        int[] ids = new int[nq * k];
+        float[] scores = new float[nq * k];
+        int ef = Math.max(efSearch, k);
+        IntStream.range(0, nq).parallel().forEach(q -> {
+            long[] found = searchOne(queries, q * d, k, ef);
+            for (int r = 0; r < k; r++) {
+                if (r < found.length) {
+                    float sim = keyToSim(found[r]);
+                    ids[q * k + r] = keyToId(found[r]);
+                    scores[q * k + r] = metric == Metric.L2 ? -sim : sim;
+                } else {
+                    ids[q * k + r] = -1;
+                    scores[q * k + r] = Float.NaN;
+                }
+            }
+        });
+        return new Neighbors(k, ids, scores);
+    }
+
+    private long[] searchOne(float[] query, int offset, int k, int ef) {
+        if (entryPoint < 0) return new long[0];
+        int current = entryPoint;
+        float currentSim = similarity(query, offset, current);
+        for (int layer = maxLayer; layer > 0; layer--) {
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                int[] list = links[current][layer];
+                for (int j = 1; j <= list[0]; j++) {
+                    float s = similarity(query, offset, list[j]);
+                    if (s > currentSim) {
+                        currentSim = s;
+                        current = list[j];
+                        moved = true;
+                    }
+                }
+            }
+        }
+        long[] best = searchLayer(query, offset, current, ef, 0);
+        return Arrays.copyOf(best, Math.min(k, best.length));
+    }
+
+    private void insert(int node, int level, int efConstruction) {
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) links[node][l] = new int[capacity(l) + 1];
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLayer = level;
+            return;
+        }
+        int offset = node * d;
+        int current = entryPoint;
+        float currentSim = similarity(vectors, offset, current);
+        for (int layer = maxLayer; layer > level; layer--) {
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                int[] list = links[current][layer];
+                for (int j = 1; j <= list[0]; j++) {
+                    float s = similarity(vectors, offset, list[j]);
+                    if (s > currentSim) {
+                        currentSim = s;
+                        current = list[j];
+                        moved = true;
+                    }
+                }
+            }
+        }
+        for (int layer = Math.min(level, maxLayer); layer >= 0; layer--) {
+            long[] candidates = searchLayer(vectors, offset, current, efConstruction, layer);
+            int[] chosen = selectNeighbours(candidates, m);
+            int[] own = links[node][layer];
+            for (int c : chosen) {
+                own[++own[0]] = c;
+                connect(c, node, layer);
+            }
+            current = keyToId(candidates[0]);
+        }
+        if (level > maxLayer) {
+            maxLayer = level;
+            entryPoint = node;
+        }
+    }
+
+    /** Adds {@code to} to the links of {@code from}, re-running the heuristic when the list is full. */
+    private void connect(int from, int to, int layer) {
+        int[] list = links[from][layer];
+        int cap = capacity(layer);
+        if (list[0] < cap) {
+            list[++list[0]] = to;
+            return;
+        }
+        long[] candidates = new long[list[0] + 1];
+        int offset = from * d;
+        for (int j = 1; j <= list[0]; j++) candidates[j - 1] = key(similarity(vectors, offset, list[j]), list[j]);
+        candidates[list[0]] = key(similarity(vectors, offset, to), to);
+        sortDescending(candidates);
+        int[] kept = selectNeighbours(candidates, cap);
+        list[0] = kept.length;
+        System.arraycopy(kept, 0, list, 1, kept.length);
+    }
+
+    /**
+     * Heuristic neighbour selection: walking candidates from the closest, keep one only if it is closer
+     * to the base point than to every neighbour kept so far. {@code candidates} must be sorted best first.
+     */
+    private int[] selectNeighbours(long[] candidates, int max) {
+        int[] kept = new int[Math.min(max, candidates.length)];
+        int count = 0;
+        for (int i = 0; i < candidates.length && count < max; i++) {
+            int c = keyToId(candidates[i]);
+            float simToBase = keyToSim(candidates[i]);
+            boolean diverse = true;
+            for (int j = 0; j < count && diverse; j++) {
+                if (similarity(vectors, c * d, kept[j]) > simToBase) diverse = false;
+            }
+            if (diverse) kept[count++] = c;
+        }
+        // Top up with the closest skipped candidates so sparse regions still get enough links
+        for (int i = 0; i < candidates.length && count < kept.length; i++) {
+            int c = keyToId(candidates[i]);
+            boolean present = false;
+            for (int j = 0; j < count && !present; j++) present = kept[j] == c;
+            if (!present) kept[count++] = c;
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    /** Beam search on one layer; returns the {@code ef} best (key-encoded) nodes, best first. */
+    private long[] searchLayer(float[] query, int offset, int start, int ef, int layer) {
+        Visited seen = visited.get();
+        seen.next();
+        LongHeap candidates = new LongHeap(ef * 2); // Negated keys: best candidate on top
+        LongHeap results = new LongHeap(ef + 1); // Worst result on top
+        long startKey = key(similarity(query, offset, start), start);
+        seen.mark(start);
+        candidates.push(-startKey);
+        results.push(startKey);
+        while (candidates.size() > 0) {
+            long candidate = -candidates.pop();
+            if (results.size() >= ef && keyToSim(candidate) < keyToSim(results.peek())) break;
+            int[] list = links[keyToId(candidate)][layer];
+            for (int j = 1; j <= list[0]; j++) {
+                int next = list[j];
+                if (!seen.mark(next)) continue;
+                float s = similarity(query, offset, next);
+                if (results.size() < ef || s > keyToSim(results.peek())) {
+                    long k = key(s, next);
+                    candidates.push(-k);
+                    results.push(k);
+                    if (results.size() > ef) results.pop();
+                }
+            }
+        }
+        long[] out = new long[results.size()];
+        for (int i = out.length - 1; i >= 0; i--) out[i] = results.pop();
+        return out;
+    }
+
+    private int capacity(int layer) {
+        return layer == 0 ? 2 * m : m;
+    }
+
+    private float similarity(float[] query, int offset, int node) {
+        if (metric == Metric.INNER_PRODUCT) return FlatVectorIndex.dot(query, offset, vectors, node * d, d);
+        float s = 0;
+        int o = node * d;
+        for (int j = 0; j < d; j++) {
+            float diff = query[offset + j] - vectors[o + j];
+            s += diff * diff;
+        }
+        return -s;
+    }
+
+    // A (similarity, id) pair packed into a long that orders by similarity: the float's bits are made
+    // to sort as a signed int and go in the high half
+    private static long key(float sim, int id) {
+        int bits = Float.floatToIntBits(sim);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return ((long) bits << 32) | (id & 0xffffffffL);
+    }
+
+    private static float keyToSim(long key) {
+        int bits = (int) (key >> 32);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return Float.intBitsToFloat(bits);
+    }
+
+    private static int keyToId(long key) {
+        return (int) key;
+    }
+
+    private static void sortDescending(long[] keys) {
+        Arrays.sort(keys);
+        for (int i = 0, j = keys.length - 1; i < j; i++, j--) {
+            long t = keys[i];
+            keys[i] = keys[j];
+            keys[j] = t;
+        }
+    }
+
+    /** Binary min-heap of longs. */
+    private static final class LongHeap {
+        private long[] heap;
+        private int size;
+
+        LongHeap(int capacity) {
+            heap = new long[Math.max(4, capacity)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        void push(long value) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= last) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+
+    /** Visited marks, reset in O(1) by bumping a generation counter. */
+    private static final class Visited {
+        private final int[] stamp;
+        private int generation;
+
+        Visited(int n) {
+            stamp = new int[n];
+        }
+
+        void next() {
+            if (++generation == 0) {
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+        }
+
+        /** True if {@code node} was not yet visited in this generation. */
+        boolean mark(int node) {
+            if (stamp[node] == generation) return false;
+            stamp[node] = generation;
+            return true;
+        }
+    }
+}
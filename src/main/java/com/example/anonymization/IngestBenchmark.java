@@ -0,0 +1,124 @@
+package com.example.anonymization;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Rows-per-second of SQLite table population on an on-disk database: the previous insert loop
+ * (autocommit, Map lookup and String.valueOf per cell, one executeBatch for the whole table) against
+ * createTableFromSimpleDataFrame with SqliteBulkLoader, and the same load as a SqliteStore rebuild (one
+ * WAL transaction, synchronous=OFF until it commits), which is how data_df actually gets built.
+ *
+ * The extract takes the first {@code columns} columns of the data file and repeats its rows up to
+ * {@code rows}. The old loop commits every row, so it only runs on the first {@code legacyRows} rows.
+ *
+ * Usage: IngestBenchmark [dataFile] [rows] [columns] [legacyRows]
+ */
+public class IngestBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String dataFile = args.length > 0 ? args[0] : "Data_2019-20.csv";
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int columns = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int legacyRows = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+
+        DataLoader.setSnapshotsEnabled(false);
+        SimpleDataFrame source = DataLoader.loadDataDf(dataFile, ';');
+        SimpleDataFrame base = source.subset(source.getColumnHeaders().subList(0, Math.min(columns, source.getColumnCount())));
+        SimpleDataFrame extract = repeat(base, rows);
+        SimpleDataFrame legacyExtract = repeat(base, Math.min(rows, legacyRows));
+        System.out.printf("Extract of %s: %d rows x %d columns%n", dataFile, rows, base.getColumnCount());
+
+        double legacyRate = time("old insert loop", legacyExtract, false, conn -> legacyInsert(conn, legacyExtract, "data_df"));
+        double bulkRate = time("bulk loader", extract, false, conn -> Main.createTableFromSimpleDataFrame(conn, extract, "data_df"));
+        System.out.printf("Speedup: %.1fx rows/s%n", bulkRate / legacyRate);
+        storeRebuild(Path.of(dataFile), extract);
+
+        // For reference: the same two paths on jdbc:sqlite::memory:, where no commit reaches a disk
+        double memLegacy = time("old loop, :memory:", extract, true, conn -> legacyInsert(conn, extract, "data_df"));
+        double memBulk = time("bulk, :memory:", extract, true, conn -> Main.createTableFromSimpleDataFrame(conn, extract, "data_df"));
+        System.out.printf("In-memory speedup: %.1fx rows/s%n", memBulk / memLegacy);
+    }
+
+    private interface Load {
+        void run(Connection conn) throws Exception;
+    }
+
+    private static double time(String label, SimpleDataFrame df, boolean inMemory, Load load) throws Exception {
+        Path db = Files.createTempFile("guardrail-ingest-bench", ".sqlite");
+        try (Connection conn = DriverManager.getConnection(inMemory ? "jdbc:sqlite::memory:" : "jdbc:sqlite:" + db)) {
+            long t0 = System.nanoTime();
+            load.run(conn);
+            double seconds = (System.nanoTime() - t0) / 1e9;
+            long stored;
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM data_df")) {
+                rs.next();
+                stored = rs.getLong(1);
+            }
+            double rate = df.getRowCount() / seconds;
+            System.out.printf("%-20s %9d rows %9.2f s %12.0f rows/s%s%n", label, df.getRowCount(), seconds, rate,
+                    stored == df.getRowCount() ? "" : "  (stored " + stored + "!)");
+            return rate;
+        } finally {
+            Files.deleteIfExists(db);
+        }
+    }
+
+    private static void storeRebuild(Path source, SimpleDataFrame df) throws Exception {
+        Path dir = Files.createTempDirectory("guardrail-store-bench");
+        Path db = dir.resolve("data.sqlite");
+        try {
+            long t0 = System.nanoTime();
+            SqliteStore.open(db, "data_df", source, "bench", () -> df, List.of()).close();
+            double seconds = (System.nanoTime() - t0) / 1e9;
+            System.out.printf("%-20s %9d rows %9.2f s %12.0f rows/s%n", "store rebuild", df.getRowCount(), seconds,
+                    df.getRowCount() / seconds);
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path f : (Iterable<Path>) files::iterator) Files.deleteIfExists(f);
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /** The insert loop createTableFromSimpleDataFrame used before SqliteBulkLoader, on an all-TEXT table. */
+    private static void legacyInsert(Connection conn, SimpleDataFrame sdf, String tableName) throws Exception {
+        List<String> headers = sdf.getColumnHeaders();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE \"" + tableName + "\" ("
+                    + headers.stream().map(h -> "\"" + h + "\" TEXT").collect(Collectors.joining(", ")) + ")");
+        }
+        String insertSQL = "INSERT INTO \"" + tableName + "\" ("
+                + headers.stream().map(h -> "\"" + h + "\"").collect(Collectors.joining(", "))
+                + ") VALUES (" + headers.stream().map(h -> "?").collect(Collectors.joining(", ")) + ")";
+        try (PreparedStatement pstmt = conn.prepareStatement(insertSQL)) {
+            for (Map<String, Object> row : sdf.getRows()) {
+                for (int i = 0; i < headers.size(); i++) {
+                    Object value = row.get(headers.get(i));
+                    pstmt.setString(i + 1, value != null ? String.valueOf(value) : null);
+                }
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static SimpleDataFrame repeat(SimpleDataFrame base, int rows) {
+        SimpleDataFrame out = new SimpleDataFrame(new ArrayList<>(base.getColumnHeaders()));
+        Object[] row = new Object[base.getColumnCount()];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < row.length; c++) row[c] = base.getValue(r % base.getRowCount(), c);
+            out.addRow(row);
+        }
+        return out;
+    }
+}
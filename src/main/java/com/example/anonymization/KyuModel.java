@@ -0,0 +1,252 @@
+package com.example.anonymization;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-process evaluator for the KYU score classifier (a decision tree or random forest over the label
+ * encoded Email_Type, Domain and Purpose), read from the file written by
+ * {@code scripts/GUARDRAIL-3/export_kyu_model.py}.
+ *
+ * All trees share flat arrays. A leaf is stored as a node that sends both branches back to itself, so
+ * every tree is walked for exactly its depth with one table lookup per level and no test for leaves.
+ * As in sklearn, the predicted class is the argmax of the trees' mean class probabilities.
+ */
+public final class KyuModel {
+
+    private static final int FORMAT = 1;
+    private static final List<String> PERSONAL_DOMAINS = List.of("gmail.com", "yahoo.com", "hotmail.com");
+
+    private final List<String> classes;
+    private final List<Map<String, Integer>> encoders;
+    private final int[] roots;
+    private final int[] depths;
+    private final int[] feature;
+    private final double[] threshold;
+    private final int[] children; // 2 per node: left, right
+    private final double[] leafProba; // classes.size() per node, zero on internal nodes
+
+    private KyuModel(List<String> classes, List<Map<String, Integer>> encoders, int[] roots, int[] depths,
+                     int[] feature, double[] threshold, int[] children, double[] leafProba) {
+        this.classes = classes;
+        this.encoders = encoders;
+        this.roots = roots;
+        this.depths = depths;
+        this.feature = feature;
+        this.threshold = threshold;
+        this.children = children;
+        this.leafProba = leafProba;
+    }
+
+    public static KyuModel load(Path file) throws IOException {
+        List<String> classes = null;
+        List<String> featureNames = null;
+        Map<String, Map<String, Integer>> encoderByName = new HashMap<>();
+        List<int[]> treeRanges = new ArrayList<>();
+        List<String[]> nodes = new ArrayList<>();
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = in.readLine();
+            if (line == null || !line.equals("kyu-model\t" + FORMAT)) {
+                throw new IOException("Not a KYU model file (format " + FORMAT + "): " + file);
+            }
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                String[] f = line.split("\t", -1);
+                switch (f[0]) {
+                    case "features" -> featureNames = List.of(Arrays.copyOfRange(f, 1, f.length));
+                    case "classes" -> classes = List.of(Arrays.copyOfRange(f, 1, f.length));
+                    case "encoder" -> {
+                        Map<String, Integer> codes = new HashMap<>();
+                        for (int i = 2; i < f.length; i++) codes.put(f[i], i - 2);
+                        encoderByName.put(f[1], codes);
+                    }
+                    case "tree" -> treeRanges.add(new int[]{nodes.size(), Integer.parseInt(f[1])});
+                    case "node" -> nodes.add(f);
+                    default -> throw new IOException("Unknown record '" + f[0] + "' in " + file);
+                }
+            }
+        }
+        if (classes == null || featureNames == null || treeRanges.isEmpty()) {
+            throw new IOException("Incomplete KYU model file: " + file);
+        }
+        if (featureNames.size() != 3) throw new IOException("Expected Email_Type, Domain and Purpose features in " + file);
+        List<Map<String, Integer>> encoders = new ArrayList<>();
+        for (String name : featureNames) {
+            Map<String, Integer> encoder = encoderByName.get(name);
+            if (encoder == null) throw new IOException("No encoder for feature " + name + " in " + file);
+            encoders.add(encoder);
+        }
+
+        int n = nodes.size();
+        int k = classes.size();
+        int[] feature = new int[n];
+        double[] threshold = new double[n];
+        int[] children = new int[2 * n];
+        double[] leafProba = new double[n * k];
+        int[] roots = new int[treeRanges.size()];
+        int[] depths = new int[treeRanges.size()];
+        for (int t = 0; t < treeRanges.size(); t++) {
+            int base = treeRanges.get(t)[0];
+            int count = treeRanges.get(t)[1];
+            if (base + count > n) throw new IOException("Tree " + t + " is truncated in " + file);
+            roots[t] = base;
+            for (int i = base; i < base + count; i++) {
+                String[] f = nodes.get(i);
+                int left = Integer.parseInt(f[1]);
+                if (left < 0) {
+                    // Leaf: both branches loop back, and +inf keeps every input on the left
+                    feature[i] = 0;
+                    threshold[i] = Double.POSITIVE_INFINITY;
+                    children[2 * i] = i;
+                    children[2 * i + 1] = i;
+                    for (int c = 0; c < k; c++) leafProba[i * k + c] = Double.parseDouble(f[5 + c]);
+                } else {
+                    feature[i] = Integer.parseInt(f[3]);
+                    if (feature[i] < 0 || feature[i] >= encoders.size()) throw new IOException("Bad feature index at node " + i + " in " + file);
+                    threshold[i] = Double.parseDouble(f[4]);
+                    children[2 * i] = base + left;
+                    children[2 * i + 1] = base + Integer.parseInt(f[2]);
+                }
+            }
+            depths[t] = depth(children, base);
+        }
+        return new KyuModel(classes, encoders, roots, depths, feature, threshold, children, leafProba);
+    }
+
+    private static int depth(int[] children, int node) {
+        int left = children[2 * node], right = children[2 * node + 1];
+        if (left == node) return 0;
+        return 1 + Math.max(depth(children, left), depth(children, right));
+    }
+
+    /** "Personal" for the webmail domains app.py checks, "Organisational" otherwise. */
+    public static String emailType(String email) {
+        String domainPart = email.substring(email.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+        for (String personal : PERSONAL_DOMAINS) {
+            if (domainPart.contains(personal)) return "Personal";
+        }
+        return "Organisational";
+    }
+
+    /** KYU score label (Low / Moderate / High) for one user. */
+    public String predict(String email, String domain, String purpose) {
+        int[] x = encode(email, domain, purpose);
+        if (x == null) {
+            throw new IllegalArgumentException("Unknown category for KYU model: " + domain + " / " + purpose);
+        }
+        double[] proba = new double[classes.size()];
+        accumulate(x, 0, proba, 0);
+        return classes.get(argmax(proba, 0, proba.length));
+    }
+
+    /**
+     * Scores {@code emails.size()} users at once; the three lists are parallel. Users with a domain or
+     * purpose the encoders do not know get null. Walks one tree at a time over all users, so the tree
+     * arrays stay in cache.
+     */
+    public String[] predictAll(List<String> emails, List<String> domains, List<String> purposes) {
+        int rows = emails.size();
+        int width = encoders.size();
+        int k = classes.size();
+        int[] x = new int[rows * width];
+        boolean[] known = new boolean[rows];
+        for (int r = 0; r < rows; r++) {
+            int[] row = encode(emails.get(r), domains.get(r), purposes.get(r));
+            if (row == null) continue;
+            known[r] = true;
+            System.arraycopy(row, 0, x, r * width, width);
+        }
+
+        double[] proba = new double[rows * k];
+        for (int t = 0; t < roots.length; t++) {
+            int root = roots[t], depth = depths[t];
+            for (int r = 0; r < rows; r++) {
+                int node = walk(x, r * width, root, depth);
+                for (int c = 0; c < k; c++) proba[r * k + c] += leafProba[node * k + c];
+            }
+        }
+        String[] labels = new String[rows];
+        for (int r = 0; r < rows; r++) {
+            if (known[r]) labels[r] = classes.get(argmax(proba, r * k, k));
+        }
+        return labels;
+    }
+
+    /**
+     * KYU scores for a user table with Email, Domain and Purpose columns (FILES/KYU_Score_Final.xlsx).
+     * As in "KYU Score.xlsx", a user's ID is their row number; unscorable users are left out.
+     */
+    public List<KyuScore> scoreUsers(SimpleDataFrame users) {
+        List<String> emails = new ArrayList<>(), domains = new ArrayList<>(), purposes = new ArrayList<>();
+        for (int r = 0; r < users.getRowCount(); r++) {
+            emails.add(text(users.getValue(r, users.columnIndex("Email"))));
+            domains.add(text(users.getValue(r, users.columnIndex("Domain"))));
+            purposes.add(text(users.getValue(r, users.columnIndex("Purpose"))));
+        }
+        String[] labels = predictAll(emails, domains, purposes);
+        List<KyuScore> scores = new ArrayList<>(labels.length);
+        for (int r = 0; r < labels.length; r++) {
+            if (labels[r] != null) scores.add(new KyuScore(String.valueOf(r), labels[r]));
+        }
+        return scores;
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : String.valueOf(value);
+    }
+
+    /** Label-encoded features in model order, or null when a category is unknown. */
+    private int[] encode(String email, String domain, String purpose) {
+        String[] values = {emailType(email), domain, purpose};
+        int[] x = new int[encoders.size()];
+        for (int i = 0; i < x.length; i++) {
+            Integer code = encoders.get(i).get(values[i]);
+            if (code == null) return null;
+            x[i] = code;
+        }
+        return x;
+    }
+
+    private void accumulate(int[] x, int offset, double[] proba, int probaOffset) {
+        int k = classes.size();
+        for (int t = 0; t < roots.length; t++) {
+            int node = walk(x, offset, roots[t], depths[t]);
+            for (int c = 0; c < k; c++) proba[probaOffset + c] += leafProba[node * k + c];
+        }
+    }
+
+    private int walk(int[] x, int offset, int node, int depth) {
+        for (int d = 0; d < depth; d++) {
+            // sklearn compares float32 inputs against its thresholds
+            int right = (float) x[offset + feature[node]] > threshold[node] ? 1 : 0;
+            node = children[2 * node + right];
+        }
+        return node;
+    }
+
+    private static int argmax(double[] values, int from, int k) {
+        int best = 0; // First maximum, like numpy's argmax
+        for (int c = 1; c < k; c++) {
+            if (values[from + c] > values[from + best]) best = c;
+        }
+        return best;
+    }
+
+    public List<String> getClasses() {
+        return classes;
+    }
+
+    public int getTreeCount() {
+        return roots.length;
+    }
+}
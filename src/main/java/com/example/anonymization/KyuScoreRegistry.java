@@ -0,0 +1,136 @@
+package com.example.anonymization;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KYU score per user id, with the level lower-cased once at load time, so a request's lookup is a single
+ * hash probe instead of a scan of the KYU list.
+ *
+ * A registry built with {@link #load} remembers the size and modification time of the files it was
+ * read from. {@link #startWatching} polls them on a daemon thread; when one changes the scores are read
+ * again on that thread and the new map replaces the old one with a single volatile write. Readers never
+ * wait on a reload: they see either the old map or the new one.
+ */
+public final class KyuScoreRegistry implements AutoCloseable {
+
+    /** Level of users the table does not list. */
+    public static final String DEFAULT_LEVEL = "low";
+
+    /** Reads the KYU scores, e.g. KYU Score.xlsx or the KYU model applied to the user table. */
+    @FunctionalInterface
+    public interface Source {
+        List<KyuScore> load() throws IOException;
+    }
+
+    private record Snapshot(Map<String, String> levels, long[] stamps) {
+    }
+
+    private final Source source;
+    private final List<Path> watched;
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService watcher;
+
+    private KyuScoreRegistry(Source source, List<Path> watched, Snapshot snapshot) {
+        this.source = source;
+        this.watched = watched;
+        this.snapshot = snapshot;
+    }
+
+    /** A fixed registry; {@link #refreshIfChanged} never reloads it. */
+    public static KyuScoreRegistry of(List<KyuScore> scores) {
+        return new KyuScoreRegistry(null, List.of(), new Snapshot(index(scores), new long[0]));
+    }
+
+    /** Loads the scores from {@code source}, which reloads them when any of {@code watched} changes. */
+    public static KyuScoreRegistry load(Source source, List<Path> watched) throws IOException {
+        List<Path> files = List.copyOf(watched);
+        // Stamps first: if a file changes while it is read, the next refresh still sees a difference
+        long[] stamps = stamps(files);
+        return new KyuScoreRegistry(source, files, new Snapshot(index(source.load()), stamps));
+    }
+
+    private static Map<String, String> index(List<KyuScore> scores) {
+        Map<String, String> levels = new ConcurrentHashMap<>(Math.max(16, scores.size() * 2));
+        for (KyuScore ks : scores) {
+            // First entry wins, as with the stream lookup this replaces
+            if (ks.getUserId() != null && ks.getKyuScore() != null) {
+                levels.putIfAbsent(ks.getUserId(), normalize(ks.getKyuScore()));
+            }
+        }
+        return levels;
+    }
+
+    static String normalize(String level) {
+        return level.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] stamps(List<Path> files) throws IOException {
+        long[] stamps = new long[files.size() * 2];
+        for (int i = 0; i < files.size(); i++) {
+            BasicFileAttributes attrs = Files.readAttributes(files.get(i), BasicFileAttributes.class);
+            stamps[2 * i] = attrs.size();
+            stamps[2 * i + 1] = attrs.lastModifiedTime().toMillis();
+        }
+        return stamps;
+    }
+
+    /** Lower-case KYU score of {@code userId}; {@link #DEFAULT_LEVEL} when the user is not listed. */
+    public String levelFor(String userId) {
+        if (userId == null) return DEFAULT_LEVEL;
+        return snapshot.levels().getOrDefault(userId, DEFAULT_LEVEL);
+    }
+
+    public int size() {
+        return snapshot.levels().size();
+    }
+
+    /**
+     * Reloads the scores when a watched file's size or modification time changed since the last load.
+     * Returns true if a new map was swapped in. A failed reload keeps serving the previous map.
+     */
+    public synchronized boolean refreshIfChanged() {
+        if (source == null) return false;
+        Snapshot current = snapshot;
+        try {
+            long[] stamps = stamps(watched);
+            if (Arrays.equals(stamps, current.stamps())) return false;
+            Snapshot fresh = new Snapshot(index(source.load()), stamps);
+            snapshot = fresh;
+            System.out.println("KYU scores reloaded (" + fresh.levels().size() + " users) from " + watched);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: could not reload KYU scores from " + watched + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Checks the watched files every {@code intervalSeconds} on a background daemon thread. */
+    public synchronized void startWatching(long intervalSeconds) {
+        if (source == null || watcher != null || intervalSeconds <= 0) return;
+        watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "kyu-score-reload");
+            t.setDaemon(true);
+            return t;
+        });
+        watcher.scheduleWithFixedDelay(this::refreshIfChanged, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+            watcher = null;
+        }
+    }
+}
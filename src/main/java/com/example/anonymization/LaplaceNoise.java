@@ -0,0 +1,68 @@
+package com.example.anonymization;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Laplace(0, scale) noise for the differential-privacy techniques, drawn in bulk by inverse CDF from a
+ * {@link SplittableRandom} owned by the call, so columns noised in parallel never share a generator.
+ *
+ * Unseeded, every call starts from a fresh random seed. With a seed ({@code -Dguardrail.noise.seed=N}
+ * or {@link #setSeed}) the n-th call for a column since the seed was set gets a stream derived from the
+ * seed, the full column name and n, so repeated calls and batches for one column get fresh noise.
+ * Replaying the same requests one at a time after the same seed reproduces an anonymized result for an
+ * audit, however the columns of each request are spread over threads. The call numbers are counted per
+ * process, though: requests that run concurrently (--serve) take them in arrival order, so seeded replay
+ * only holds for serial, single-request runs. Seeding is for audits only: anyone who knows the seed can
+ * subtract the noise, so production runs must stay unseeded.
+ */
+final class LaplaceNoise {
+
+    private static volatile Long seed = Long.getLong("guardrail.noise.seed");
+    // Seeded only: calls so far per column name, shared by every request in the process
+    private static final ConcurrentHashMap<String, AtomicLong> calls = new ConcurrentHashMap<>();
+
+    private LaplaceNoise() {
+    }
+
+    /** Fixes the noise to {@code newSeed}; null goes back to unseeded noise. */
+    static synchronized void setSeed(Long newSeed) {
+        seed = newSeed;
+        calls.clear();
+    }
+
+    static Long seed() {
+        return seed;
+    }
+
+    /** The generator for one call's (or one batch's) noise on a column. */
+    static SplittableRandom generatorFor(String columnName) {
+        Long s = seed;
+        if (s == null) return new SplittableRandom(ThreadLocalRandom.current().nextLong());
+        long call = calls.computeIfAbsent(columnName, c -> new AtomicLong()).getAndIncrement();
+        // A 64-bit hash of every character of the name, so names with equal hashCodes still differ;
+        // SplittableRandom mixes its seed, so consecutive calls still give unrelated streams
+        return new SplittableRandom(ValueKeys.mix(s ^ ValueKeys.ofString(columnName)) + call * 0x9E3779B97F4A7C15L);
+    }
+
+    /** {@code n} samples for {@code columnName}. */
+    static double[] sample(int n, double scale, String columnName) {
+        double[] out = new double[n];
+        fill(out, n, scale, generatorFor(columnName));
+        return out;
+    }
+
+    /** Fills {@code out[0..n)} with Laplace(0, scale) samples. */
+    static void fill(double[] out, int n, double scale, SplittableRandom random) {
+        if (!(scale > 0) || Double.isInfinite(scale)) throw new IllegalArgumentException("Laplace scale must be positive and finite: " + scale);
+        for (int i = 0; i < n; i++) {
+            // Inverse CDF, -scale * sgn(u) * ln(1 - 2|u|) for u uniform in (-1/2, 1/2), from one 64-bit draw:
+            // the low bit is the sign and the top 53 bits give 1 - 2|u| uniform in (0, 1]
+            long bits = random.nextLong();
+            double magnitude = -scale * Math.log(((bits >>> 11) + 1) * 0x1.0p-53);
+            out[i] = (bits & 1) == 0 ? magnitude : -magnitude;
+        }
+    }
+}
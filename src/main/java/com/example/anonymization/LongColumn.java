@@ -0,0 +1,115 @@
+package com.example.anonymization;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Integral column backed by a {@code long[]} and a null bitmap.
+ */
+final class LongColumn extends Column {
+    private long[] values;
+    private final NullMask nulls;
+    private int size;
+
+    LongColumn(int capacity) {
+        this.values = new long[Math.max(capacity, 8)];
+        this.nulls = new NullMask(capacity);
+    }
+
+    LongColumn(long[] values, NullMask nulls, int size) {
+        this.values = values;
+        this.nulls = nulls;
+        this.size = size;
+    }
+
+    @Override
+    ColumnType type() {
+        return ColumnType.LONG;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    @Override
+    Object get(int row) {
+        return nulls.get(row) ? null : values[row];
+    }
+
+    long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    long[] valueKeys() {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) keys[i] = ValueKeys.ofLong(values[i]);
+        return keys;
+    }
+
+    @Override
+    boolean isNumber(int row) {
+        return !nulls.get(row);
+    }
+
+    @Override
+    double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    Column set(int row, Object value) {
+        if (value == null) {
+            nulls.set(row);
+            return this;
+        }
+        if (Column.typeOf(value) != ColumnType.LONG) return toObjectColumn().set(row, value);
+        values[row] = ((Number) value).longValue();
+        nulls.clear(row);
+        return this;
+    }
+
+    @Override
+    Column append(Object value) {
+        if (value != null && Column.typeOf(value) != ColumnType.LONG) return toObjectColumn().append(value);
+        if (size == values.length) values = Arrays.copyOf(values, Math.max(8, size * 2));
+        if (value == null) nulls.set(size);
+        else values[size] = ((Number) value).longValue();
+        size++;
+        return this;
+    }
+
+    @Override
+    Column appendAll(Column other) {
+        if (!(other instanceof LongColumn)) return super.appendAll(other);
+        LongColumn o = (LongColumn) other;
+        if (size + o.size > values.length) values = Arrays.copyOf(values, Math.max(size + o.size, values.length * 2));
+        System.arraycopy(o.values, 0, values, size, o.size);
+        for (int i = 0; i < o.size; i++) if (o.nulls.get(i)) nulls.set(size + i);
+        size += o.size;
+        return this;
+    }
+
+    @Override
+    Column mapNumeric(DoubleUnaryOperator op) {
+        double[] out = new double[Math.max(size, 8)];
+        for (int i = 0; i < size; i++) if (!nulls.get(i)) out[i] = op.applyAsDouble(values[i]);
+        return new DoubleColumn(out, nulls.copy(), size);
+    }
+
+    @Override
+    int nonNumericCount() {
+        return 0;
+    }
+
+    @Override
+    Column copy() {
+        return new LongColumn(Arrays.copyOf(values, Math.max(size, 8)), nulls.copy(), size);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.anonymization;
+
+/**
+ * Counts per 64-bit key in open addressing with linear probing: two primitive arrays, no boxing and
+ * no entry objects. Keys are expected to be well mixed already (see {@link ValueKeys}).
+ */
+final class LongCountMap {
+
+    private long[] keys;
+    private int[] counts; // 0 marks a free slot
+    private int size;
+
+    LongCountMap(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedKeys) * 2 - 1) << 1; // Load factor <= 1/2
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    void increment(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) key & mask;
+        while (counts[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = 1;
+        if (++size * 2 > keys.length) grow();
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) key & mask;
+        while (counts[slot] != 0) {
+            if (keys[slot] == key) return counts[slot];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] == 0) continue;
+            int slot = (int) oldKeys[i] & mask;
+            while (counts[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            counts[slot] = oldCounts[i];
+        }
+    }
+}
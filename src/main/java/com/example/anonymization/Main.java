@@ -14,6 +14,7 @@ import java.util.*;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.EnumSet;
 import java.util.Set;
 
@@ -22,11 +23,26 @@ public class Main {
 
     private static final String LOADED_DATA_DF_PATH;
     private static final String LOADED_ATTRIBUTES_PATH;
+    private static final String LOADED_SQLITE_DB_PATH; // Optional; defaults to <data file>.sqlite
+    private static final List<String> LOADED_SQLITE_INDEX_COLUMNS; // Always indexed, on top of those learned from the query log
+    private static final List<Path> LOADED_SENSITIVITY_SCRIPT_INPUTS; // Files generate_sensitivity.py reads
+    private static final List<Path> LOADED_KYU_SCRIPT_INPUTS; // Files generate_kyu_scores.py reads
+    private static final String LOADED_KYU_MODEL_PATH; // Optional; exported KYU model, replaces generate_kyu_scores.py
+    private static final String LOADED_KYU_USERS_PATH; // User table the KYU model scores
+    private static final long LOADED_KYU_RELOAD_SECONDS; // --serve: how often to check the KYU files for changes; 0 = never
+    private static final String LOADED_STRATEGY_POLICY_PATH; // Optional; replaces the bundled strategy-policy.properties
+    private static final long LOADED_STRATEGY_POLICY_RELOAD_SECONDS; // --serve: how often to check the policy file; 0 = never
+    private static final String LOADED_GENERALIZATION_HIERARCHIES_PATH; // Optional; replaces the bundled generalization-hierarchies.properties
+    private static final String LOADED_COMPLIANCE_REPOSITORY_PATH; // Optional; sensitivity floor per (owner, domain)
+    private static final long LOADED_COMPLIANCE_RELOAD_SECONDS; // --serve: how often to check it for changes; 0 = never
+    private static final String LOADED_DATA_OWNER;
+    private static final String LOADED_DATA_DOMAIN;
     // private static final String LOADED_SENSITIVITY_RESULTS_PATH; // Removed
     // private static final String LOADED_KYU_SCORE_PATH; // Removed
 
     private static final String SENSITIVITY_RESULTS_FILE_PATH = "Sensitivity_Results.xlsx"; // Expected output from Python script
     private static final String KYU_SCORE_FILE_PATH = "KYU Score.xlsx"; // Expected output from Python script
+    private static final String SCRIPT_MANIFEST_PATH = ".script-dependencies.properties"; // See ScriptDependencies
 
     static {
         Properties props = new Properties();
@@ -39,6 +55,22 @@ public class Main {
 
             LOADED_DATA_DF_PATH = props.getProperty("data.df.path");
             LOADED_ATTRIBUTES_PATH = props.getProperty("attributes.path");
+            LOADED_SQLITE_DB_PATH = props.getProperty("sqlite.db.path");
+            LOADED_SQLITE_INDEX_COLUMNS = Arrays.stream(props.getProperty("sqlite.index.columns", "").split(","))
+                    .map(String::trim).filter(c -> !c.isEmpty()).collect(Collectors.toList());
+            LOADED_SENSITIVITY_SCRIPT_INPUTS = paths(props.getProperty("sensitivity.script.inputs",
+                    props.getProperty("attributes.path", "") + "," + props.getProperty("data.df.path", "")));
+            LOADED_KYU_SCRIPT_INPUTS = paths(props.getProperty("kyu.script.inputs", "FILES/KYU_Score_Final.xlsx"));
+            LOADED_KYU_MODEL_PATH = props.getProperty("kyu.model.path", "").trim();
+            LOADED_KYU_USERS_PATH = props.getProperty("kyu.users.path", "").trim();
+            LOADED_KYU_RELOAD_SECONDS = Long.parseLong(props.getProperty("kyu.reload.seconds", "30").trim());
+            LOADED_STRATEGY_POLICY_PATH = props.getProperty("strategy.policy.path", "").trim();
+            LOADED_STRATEGY_POLICY_RELOAD_SECONDS = Long.parseLong(props.getProperty("strategy.policy.reload.seconds", "5").trim());
+            LOADED_GENERALIZATION_HIERARCHIES_PATH = props.getProperty("generalization.hierarchies.path", "").trim();
+            LOADED_COMPLIANCE_REPOSITORY_PATH = props.getProperty("compliance.repository.path", "").trim();
+            LOADED_COMPLIANCE_RELOAD_SECONDS = Long.parseLong(props.getProperty("compliance.reload.seconds", "30").trim());
+            LOADED_DATA_OWNER = props.getProperty("data.owner", "").trim();
+            LOADED_DATA_DOMAIN = props.getProperty("data.domain", "").trim();
             // LOADED_SENSITIVITY_RESULTS_PATH = props.getProperty("sensitivity.results.path"); // Removed
             // LOADED_KYU_SCORE_PATH = props.getProperty("kyu.score.path"); // Removed
 
@@ -57,7 +89,21 @@ public class Main {
         }
     }
 
+    private static List<Path> paths(String commaSeparated) {
+        return Arrays.stream(commaSeparated.split(",")).map(String::trim)
+                .filter(p -> !p.isEmpty() && !p.equals("path-not-set")).map(Path::of).collect(Collectors.toList());
+    }
+
     public static void createTableFromSimpleDataFrame(Connection conn, SimpleDataFrame sdf, String tableName) throws SQLException {
+        createTableFromSimpleDataFrame(conn, sdf, tableName, List.of());
+    }
+
+    /**
+     * Creates {@code tableName} with INTEGER/REAL/TEXT affinity inferred per column (see TableSchema),
+     * bulk-loads the frame (see SqliteBulkLoader) and indexes {@code indexColumns}.
+     */
+    public static void createTableFromSimpleDataFrame(Connection conn, SimpleDataFrame sdf, String tableName,
+                                                      Collection<String> indexColumns) throws SQLException {
         if (sdf == null || sdf.getColumnCount() == 0) {
             System.err.println("Skipping table creation for empty SimpleDataFrame: " + tableName);
             return;
@@ -78,56 +124,30 @@ public class Main {
         // Update headers in SimpleDataFrame (optional, depends on how you're handling column lookups elsewhere)
         sdf.setColumnHeaders(sanitizedHeaders);
 
-        String columnsWithType = sanitizedHeaders.stream()
-                .map(header -> "\"" + header + "\" TEXT")
+        List<String> affinities = TableSchema.inferAffinities(sdf);
+        String columnsWithType = IntStream.range(0, sanitizedHeaders.size())
+                .mapToObj(i -> TableSchema.quote(sanitizedHeaders.get(i)) + " " + affinities.get(i))
                 .collect(Collectors.joining(", "));
 
         try (Statement stmt = conn.createStatement()) {
             stmt.execute("DROP TABLE IF EXISTS \"" + tableName + "\"");
             stmt.execute("CREATE TABLE \"" + tableName + "\" (" + columnsWithType + ")");
 
-            String insertSQL = "INSERT INTO \"" + tableName + "\" (" +
-                    sanitizedHeaders.stream().map(h -> "\"" + h + "\"").collect(Collectors.joining(", ")) +
-                    ") VALUES (" +
-                    sanitizedHeaders.stream().map(h -> "?").collect(Collectors.joining(", ")) + ")";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(insertSQL)) {
-                for (Map<String, Object> row : sdf.getRows()) {
-                    for (int i = 0; i < sanitizedHeaders.size(); i++) {
-                        Object value = row.get(originalHeaders.get(i)); // use original header for lookup
-                        pstmt.setString(i + 1, value != null ? String.valueOf(value) : null);
-                    }
-                    pstmt.addBatch();
-                }
-                pstmt.executeBatch();
-            }
+            // Typed binds, bounded batches and explicit transactions; see SqliteBulkLoader
+            SqliteBulkLoader.insert(conn, tableName, sanitizedHeaders, sdf, affinities);
+            TableSchema.createIndexes(conn, tableName, indexColumns);
         }
     }
 
     public static SimpleDataFrame executeSqlQueryToSimpleDataFrame(Connection conn, String query) throws SQLException {
-        List<String> headers = new ArrayList<>();
-        List<Map<String, Object>> rows = new ArrayList<>();
-
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            for (int i = 1; i <= columnCount; i++) {
-                headers.add(metaData.getColumnLabel(i));
-            }
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (String header : headers) {
-                    row.put(header, rs.getObject(header));
-                }
-                rows.add(row);
+        // Rows go straight into column storage, one batch at a time
+        try (RowBatchIterator batches = new RowBatchIterator(conn, query, RowBatchIterator.DEFAULT_BATCH_SIZE)) {
+            SimpleDataFrame sdf = new SimpleDataFrame(batches.getColumnHeaders());
+            while (batches.hasNext()) {
+                sdf.appendAll(batches.next());
             }
+            return sdf;
         }
-
-        SimpleDataFrame sdf = new SimpleDataFrame(headers);
-        for (Map<String, Object> row : rows) {
-            sdf.addRow(row);
-        }
-        return sdf;
     }
 
     public static void printSimpleDataFrame(SimpleDataFrame sdf, int maxRows) {
@@ -137,9 +157,9 @@ public class Main {
         }
         System.out.println("Columns: " + sdf.getColumnHeaders());
         System.out.println("Total Rows: " + sdf.getRowCount());
-        List<Map<String, Object>> rowsToPrint = sdf.getRows().subList(0, Math.min(maxRows, sdf.getRowCount()));
-        for (int i = 0; i < rowsToPrint.size(); i++) {
-            System.out.println("Row " + i + ": " + rowsToPrint.get(i));
+        int rowsToPrint = Math.min(maxRows, sdf.getRowCount());
+        for (int i = 0; i < rowsToPrint; i++) {
+            System.out.println("Row " + i + ": " + sdf.getRow(i));
         }
         if (sdf.getRowCount() > maxRows) {
             System.out.println("... and " + (sdf.getRowCount() - maxRows) + " more rows.");
@@ -233,11 +253,35 @@ public class Main {
         }
     }
 
+    /** Database holding data_df: {@code sqlite.db.path}, or {@code <data file>.sqlite} when unset. */
+    static Path dataStorePath() {
+        return LOADED_SQLITE_DB_PATH == null || LOADED_SQLITE_DB_PATH.isEmpty()
+                ? SqliteStore.pathFor(Path.of(LOADED_DATA_DF_PATH)) : Path.of(LOADED_SQLITE_DB_PATH);
+    }
+
+    /**
+     * Opens the data_df store, indexed on the configured columns plus those learned from the query log.
+     * The data file is only parsed when data_df is missing or its source fingerprint changed.
+     */
+    static Connection openDataStore(Path dbPath) throws IOException, SQLException {
+        Set<String> indexColumns = new LinkedHashSet<>(LOADED_SQLITE_INDEX_COLUMNS);
+        indexColumns.addAll(QueryLog.frequentWhereColumns(QueryLog.pathFor(dbPath)));
+        return SqliteStore.open(dbPath, "data_df", Path.of(LOADED_DATA_DF_PATH), ";",
+                () -> DataLoader.loadDataDf(LOADED_DATA_DF_PATH, ';'), indexColumns);
+    }
+
     public static void main(String[] args) {
         System.out.println("Attempting to execute Python scripts...");
         try {
-            executePythonScript("/scripts/generate_sensitivity.py");
-            executePythonScript("/scripts/generate_kyu_scores.py");
+            // Each script only runs when its inputs or outputs changed since its last successful run
+            List<ScriptDependencies.Script> scripts = new ArrayList<>();
+            scripts.add(new ScriptDependencies.Script("/scripts/generate_sensitivity.py", LOADED_SENSITIVITY_SCRIPT_INPUTS,
+                    List.of(Path.of(SENSITIVITY_RESULTS_FILE_PATH))));
+            if (!kyuModelConfigured()) { // Otherwise KYU scores are computed in-process
+                scripts.add(new ScriptDependencies.Script("/scripts/generate_kyu_scores.py", LOADED_KYU_SCRIPT_INPUTS,
+                        List.of(Path.of(KYU_SCORE_FILE_PATH))));
+            }
+            new ScriptDependencies(Path.of(SCRIPT_MANIFEST_PATH)).runStale(scripts, Main::executePythonScript);
             System.out.println("Python scripts execution phase completed.");
         } catch (RuntimeException e) {
             System.err.println("Failed to execute Python scripts: " + e.getMessage());
@@ -248,9 +292,15 @@ public class Main {
         }
         System.out.println("--------------------------------------------------");
 
+        if (args.length >= 1 && "--serve".equals(args[0])) {
+            serve(args);
+            return;
+        }
+
         System.out.println("Starting Anonymization Process...");
         if (args.length != 2) { // Expect 2 arguments now
     System.err.println("Usage: java com.example.anonymization.Main <user_id> \"<sqlite_query>\"");
+    System.err.println("   or: java com.example.anonymization.Main --serve [port] [threads]");
     return;
 }
 
@@ -267,59 +317,30 @@ public class Main {
         System.out.println("--- End Configuration ---");
 
         try {
-            SimpleDataFrame dataDf = DataLoader.loadDataDf(LOADED_DATA_DF_PATH, ';');
-            List<SensitivityResult> sensitivityResultsList = DataLoader.loadSensitivityResults(SENSITIVITY_RESULTS_FILE_PATH, null);
-            List<KyuScore> kyuScoresList = DataLoader.loadKyuScores(KYU_SCORE_FILE_PATH, null);
-
-            System.out.println("Data initialized. dataDf rows: " + dataDf.getRowCount());
+            Path dbPath = dataStorePath();
+            QueryPipeline pipeline = loadPipeline(dbPath, false);
 
-            try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
-                System.out.println("In-memory SQLite DB connected.");
-                createTableFromSimpleDataFrame(conn, dataDf, "data_df");
-                System.out.println("'data_df' table created and populated in SQLite.");
+            try (Connection conn = openDataStore(dbPath)) {
+                System.out.println("SQLite DB connected: " + dbPath + " (read-only, data_df up to date)");
                 // String query = String.format("SELECT * FROM data_df WHERE \"%s\" = '%s'", columnId, filterValue); // Removed
                 System.out.println("Executing query (from arg): " + sqliteQuery);
-                SimpleDataFrame resultSDF = executeSqlQueryToSimpleDataFrame(conn, sqliteQuery);
+                QueryPipeline.Outcome outcome = pipeline.run(conn, userId, sqliteQuery);
 
-System.out.println("Query resultSDF rows: " + resultSDF.getRowCount());
+System.out.println("Query resultSDF rows: " + outcome.original().getRowCount());
 
-                if (resultSDF.getRowCount() == 0) {
+                if (outcome.isEmpty()) {
                     System.err.println("Query returned no results. Check query, data, and file contents.");
                     return;
                 }
 
-                String resultType = DataProcessor.determineQueryResultType(resultSDF);
-                System.out.println("Result Type ------ " + resultType);
-
-                String kyuScoreString = kyuScoresList.stream()
-                        .filter(ks -> userId.equals(ks.getUserId()))
-                        .map(ks -> ks.getKyuScore().toLowerCase())
-                        .findFirst()
-                        .orElse("low"); // Default if user_id not found or KYU Score file doesn't contain the user
-                System.out.println("KYU Score for User ID '" + userId + "' ------ " + kyuScoreString);
-
-                String sensitivityLevelString;
-                if (resultSDF.getColumnCount() == 0) {
-                    sensitivityLevelString = "Low";
-                    System.err.println("Query result has no columns. Defaulting sensitivity to Low.");
-                } else if ("cell".equals(resultType)) {
-                    String cellColumnName = resultSDF.getColumnHeaders().get(0);
-                    sensitivityLevelString = sensitivityResultsList.stream()
-                            .filter(sr -> cellColumnName.equals(String.valueOf(sr.getAttributeId())))
-                            .map(SensitivityResult::getSensitivityLevel)
-                            .findFirst().orElse("Low");
-                } else {
-                    sensitivityLevelString = DataProcessor.getMaxSensitivityLevel(resultSDF, sensitivityResultsList);
-                }
-                System.out.println("Sensitivity Level ------ " + sensitivityLevelString);
+                System.out.println("Result Type ------ " + outcome.resultType());
+                System.out.println("KYU Score for User ID '" + userId + "' ------ " + outcome.kyuScore());
+                System.out.println("Sensitivity Level ------ " + outcome.sensitivityLevel());
 
-                List<String> selectedStrategies = StrategySelector.getStrategies(resultType, sensitivityLevelString.toLowerCase(), kyuScoreString.toLowerCase());
+                List<String> selectedStrategies = outcome.strategies();
                 System.out.println("Selected Strategies ----- " + selectedStrategies);
 
-                SimpleDataFrame originalResultSdf = resultSDF.copy();
-                AnonymizationResult anonymizationOutput = AnonymizationService.anonymizeBySensitivity(resultSDF, selectedStrategies, resultType, kyuScoreString);
-                SimpleDataFrame anonymizedSdf = anonymizationOutput.getAnonymizedDataFrame();
-                String appliedStrategy = anonymizationOutput.getAppliedStrategy();
+                String appliedStrategy = outcome.appliedStrategy();
                 System.out.println("Applied Strategy --- " + appliedStrategy);
 
                 if (appliedStrategy == null && !selectedStrategies.isEmpty() &&
@@ -327,14 +348,14 @@ System.out.println("Query resultSDF rows: " + resultSDF.getRowCount());
                     System.err.println("Warning: Strategies were selected but none was applied.");
                 }
 
-                AnonymizationScore scores = ScoreCalculator.calculateScore(originalResultSdf, anonymizedSdf);
+                AnonymizationScore scores = outcome.score();
                 System.out.println("Anonymization Score (Composite) ------ " + scores.getScore());
                 System.out.println("Utility Retained ------ " + scores.getUtilityRetained());
 
                 System.out.println("\nOriginal Result DataFrame (first 5 rows):");
-                printSimpleDataFrame(originalResultSdf, 5);
+                printSimpleDataFrame(outcome.original(), 5);
                 System.out.println("\nAnonymized Result DataFrame (first 5 rows):");
-                printSimpleDataFrame(anonymizedSdf, 5);
+                printSimpleDataFrame(outcome.anonymized(), 5);
 
             }
         } catch (IOException | SQLException e) {
@@ -347,4 +368,61 @@ System.out.println("Query resultSDF rows: " + resultSDF.getRowCount());
 
         System.out.println("\nAnonymization Process Completed.");
     }
+
+    private static boolean kyuModelConfigured() {
+        return !LOADED_KYU_MODEL_PATH.isEmpty() && !LOADED_KYU_USERS_PATH.isEmpty();
+    }
+
+    /** @param watch reload the KYU scores and the strategy policy in the background when their files change */
+    private static QueryPipeline loadPipeline(Path dbPath, boolean watch) throws IOException {
+        List<SensitivityResult> sensitivityResultsList = DataLoader.loadSensitivityResults(SENSITIVITY_RESULTS_FILE_PATH, null);
+        KyuScoreRegistry kyuScores;
+        if (kyuModelConfigured()) {
+            kyuScores = KyuScoreRegistry.load(() -> {
+                KyuModel model = KyuModel.load(Path.of(LOADED_KYU_MODEL_PATH));
+                List<KyuScore> scores = model.scoreUsers(DataLoader.loadKyuUsers(LOADED_KYU_USERS_PATH, null));
+                System.out.println("KYU scores computed for " + scores.size() + " users with " + LOADED_KYU_MODEL_PATH
+                        + " (" + model.getTreeCount() + " trees).");
+                return scores;
+            }, List.of(Path.of(LOADED_KYU_MODEL_PATH), Path.of(LOADED_KYU_USERS_PATH)));
+        } else {
+            kyuScores = KyuScoreRegistry.load(() -> DataLoader.loadKyuScores(KYU_SCORE_FILE_PATH, null),
+                    List.of(Path.of(KYU_SCORE_FILE_PATH)));
+        }
+        if (watch) kyuScores.startWatching(LOADED_KYU_RELOAD_SECONDS);
+        if (!LOADED_STRATEGY_POLICY_PATH.isEmpty()) {
+            StrategySelector.usePolicyFile(Path.of(LOADED_STRATEGY_POLICY_PATH), watch ? LOADED_STRATEGY_POLICY_RELOAD_SECONDS : 0);
+        }
+        if (!LOADED_GENERALIZATION_HIERARCHIES_PATH.isEmpty()) {
+            GeneralizationHierarchies.useFile(Path.of(LOADED_GENERALIZATION_HIERARCHIES_PATH));
+        }
+        if (LOADED_COMPLIANCE_REPOSITORY_PATH.isEmpty() || LOADED_DATA_OWNER.isEmpty() || LOADED_DATA_DOMAIN.isEmpty()) {
+            return new QueryPipeline(sensitivityResultsList, kyuScores, QueryLog.pathFor(dbPath), null, null, null);
+        }
+        ComplianceRepository compliance = ComplianceRepository.load(Path.of(LOADED_COMPLIANCE_REPOSITORY_PATH));
+        if (watch) compliance.startWatching(LOADED_COMPLIANCE_RELOAD_SECONDS);
+        System.out.println("Compliance sensitivity for " + LOADED_DATA_OWNER + " / " + LOADED_DATA_DOMAIN + ": "
+                + compliance.sensitivityFor(LOADED_DATA_OWNER, LOADED_DATA_DOMAIN));
+        return new QueryPipeline(sensitivityResultsList, kyuScores, QueryLog.pathFor(dbPath),
+                compliance, LOADED_DATA_OWNER, LOADED_DATA_DOMAIN);
+    }
+
+    /** {@code --serve [port] [threads]}: loads everything once and answers requests until the JVM is stopped. */
+    private static void serve(String[] args) {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : AnonymizationServer.DEFAULT_PORT;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(2, Runtime.getRuntime().availableProcessors());
+        try {
+            Path dbPath = dataStorePath();
+            QueryPipeline pipeline = loadPipeline(dbPath, true);
+            // Brings data_df and its indexes up to date; workers then open their own read-only connections
+            openDataStore(dbPath).close();
+            System.out.println("SQLite DB ready: " + dbPath);
+            AnonymizationServer server = new AnonymizationServer(pipeline, dbPath, port, threads);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "anonymization-server-shutdown"));
+            server.start();
+        } catch (IOException | SQLException e) {
+            System.err.println("Could not start server: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
 }
@@ -0,0 +1,280 @@
+package com.example.anonymization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Multivariate microaggregation groups by MDAV (maximum distance to average vector).
+ *
+ * Rows are points given by their standardized values in the aggregated columns. While at least 3k
+ * rows remain, MDAV takes the row r farthest from the centroid of the remaining rows and groups it
+ * with its k-1 nearest neighbours, then does the same for the row s farthest from r. The last 2k-1
+ * or fewer rows become one group, or two when at least 2k remain. Every group has k to 2k-1 rows,
+ * unless there are fewer than k rows in total.
+ *
+ * MDAV is quadratic in the rows it sees, so larger inputs are first split kd-tree style: at the
+ * median of the column with the widest spread, until every block has at most
+ * {@link #BLOCK_GROUPS} * k rows (and at least k). The blocks are grouped in parallel on the {@link ColumnExecutor} pool.
+ * Distances to a point are computed column by column over the rows still ungrouped. Ties go to the
+ * lower row index, so the groups depend neither on the thread schedule nor on the order rows are kept in.
+ */
+final class Mdav {
+
+    static final int BLOCK_GROUPS = 128;
+
+    private Mdav() {
+    }
+
+    /**
+     * Group of every row, numbered 0, 1, ... in order of each group's first row.
+     *
+     * @param z column-major points: {@code z[c][row]}, each column standardized
+     */
+    static int[] groups(double[][] z, int n, int k) {
+        if (k <= 0) throw new IllegalArgumentException("k must be positive: " + k);
+        int[] group = new int[n];
+        if (k == 1) {
+            for (int i = 0; i < n; i++) group[i] = i;
+            return group;
+        }
+        if (n == 0) return group;
+        int blockRows = BLOCK_GROUPS * k;
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) rows[i] = i;
+        List<int[]> blocks = new ArrayList<>(); // {from, to} in rows
+        split(z, rows, 0, n, blockRows, blocks);
+
+        ColumnExecutor.forEachIndex(blocks.size(), b -> {
+            int[] block = blocks.get(b);
+            int[] local = new Block(z, Arrays.copyOfRange(rows, block[0], block[1]), k).groups();
+            // Blocks have at least k rows, so fewer than blockRows groups each: ids stay distinct
+            for (int i = block[0]; i < block[1]; i++) group[rows[i]] = b * blockRows + local[i - block[0]];
+        });
+        return renumber(group);
+    }
+
+    private static void split(double[][] z, int[] rows, int from, int to, int blockRows, List<int[]> blocks) {
+        if (to - from <= blockRows) {
+            blocks.add(new int[]{from, to});
+            return;
+        }
+        double[] key = z[widestColumn(z, rows, from, to)];
+        int mid = from + (to - from) / 2; // Both halves keep more than blockRows / 2 >= k rows
+        select(rows, from, to, mid, key);
+        split(z, rows, from, mid, blockRows, blocks);
+        split(z, rows, mid, to, blockRows, blocks);
+    }
+
+    private static int widestColumn(double[][] z, int[] rows, int from, int to) {
+        int widest = 0;
+        double widestRange = -1;
+        for (int c = 0; c < z.length; c++) {
+            double[] v = z[c];
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double x = v[rows[i]];
+                if (x < min) min = x;
+                if (x > max) max = x;
+            }
+            if (max - min > widestRange) {
+                widestRange = max - min;
+                widest = c;
+            }
+        }
+        return widest;
+    }
+
+    private static boolean before(int a, int b, double[] key) {
+        return key[a] < key[b] || (key[a] == key[b] && a < b);
+    }
+
+    /**
+     * Reorders {@code idx[from..to)} so that the entry at {@code nth} is the one a full sort by
+     * ({@code key}, index) would put there, with only smaller entries before it.
+     */
+    private static void select(int[] idx, int from, int to, int nth, double[] key) {
+        int lo = from, hi = to - 1;
+        while (lo < hi) {
+            int pivot = idx[lo + (hi - lo) / 2];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (before(idx[i], pivot, key)) i++;
+                while (before(pivot, idx[j], key)) j--;
+                if (i <= j) {
+                    int t = idx[i]; idx[i] = idx[j]; idx[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (nth <= j) hi = j;
+            else if (nth >= i) lo = i;
+            else return;
+        }
+    }
+
+    private static int[] renumber(int[] group) {
+        int max = 0;
+        for (int g : group) max = Math.max(max, g);
+        int[] ids = new int[max + 1];
+        Arrays.fill(ids, -1);
+        int next = 0;
+        for (int i = 0; i < group.length; i++) {
+            if (ids[group[i]] < 0) ids[group[i]] = next++;
+            group[i] = ids[group[i]];
+        }
+        return group;
+    }
+
+    /**
+     * MDAV over one block. The ungrouped rows are kept packed at the front of the coordinate arrays
+     * (grouped ones are swapped out to the end), so the centroid and distance loops run over
+     * contiguous memory. Slot i holds the block's row {@code local[i]}, i.e. row {@code rows[local[i]]}.
+     */
+    private static final class Block {
+        private static final int SCAN_K = 16; // Up to this k a sorted k-buffer beats quickselect
+        private final double[][] x; // x[c][slot]
+        private final int[] rows;
+        private final int[] local;
+        private final int k;
+        private final int[] group; // By block row
+        private final double[] dist;
+        private final int[] order;
+        private int liveCount;
+        private int groupCount;
+
+        Block(double[][] z, int[] rows, int k) {
+            int m = rows.length;
+            this.x = new double[z.length][m];
+            for (int c = 0; c < z.length; c++) {
+                for (int i = 0; i < m; i++) x[c][i] = z[c][rows[i]];
+            }
+            this.rows = rows;
+            this.local = new int[m];
+            for (int i = 0; i < m; i++) local[i] = i;
+            this.k = k;
+            this.group = new int[m];
+            this.dist = new double[m];
+            this.order = new int[m];
+            this.liveCount = m;
+        }
+
+        int[] groups() {
+            while (liveCount >= 3 * k) {
+                double[] r = point(farthestFrom(centroid()));
+                groupAround(r);
+                groupAround(point(farthestFrom(r)));
+            }
+            if (liveCount >= 2 * k) groupAround(point(farthestFrom(centroid())));
+            if (liveCount > 0) {
+                for (int i = 0; i < liveCount; i++) group[local[i]] = groupCount;
+                groupCount++;
+                liveCount = 0;
+            }
+            return group;
+        }
+
+        private double[] centroid() {
+            double[] centre = new double[x.length];
+            for (int c = 0; c < x.length; c++) {
+                double[] v = x[c];
+                double sum = 0;
+                for (int i = 0; i < liveCount; i++) sum += v[i];
+                centre[c] = sum / liveCount;
+            }
+            return centre;
+        }
+
+        private double[] point(int slot) {
+            double[] p = new double[x.length];
+            for (int c = 0; c < x.length; c++) p[c] = x[c][slot];
+            return p;
+        }
+
+        /** Squared distances from {@code p} to the live slots, into dist. */
+        private void distancesTo(double[] p) {
+            Arrays.fill(dist, 0, liveCount, 0);
+            for (int c = 0; c < x.length; c++) {
+                double[] v = x[c];
+                double pc = p[c];
+                for (int i = 0; i < liveCount; i++) {
+                    double diff = v[i] - pc;
+                    dist[i] += diff * diff;
+                }
+            }
+        }
+
+        private int farthestFrom(double[] p) {
+            distancesTo(p);
+            int best = 0;
+            for (int i = 1; i < liveCount; i++) {
+                if (dist[i] > dist[best] || (dist[i] == dist[best] && rows[local[i]] < rows[local[best]])) best = i;
+            }
+            return best;
+        }
+
+        /** Groups the k live rows nearest to {@code p}: p's own row and its k-1 nearest neighbours. */
+        private void groupAround(double[] p) {
+            distancesTo(p);
+            if (k <= SCAN_K) {
+                scanNearest();
+            } else {
+                for (int i = 0; i < liveCount; i++) order[i] = i;
+                selectNearest();
+            }
+            for (int j = 1; j < k; j++) { // Insertion sort: k is small
+                int slot = order[j], i = j;
+                for (; i > 0 && order[i - 1] > slot; i--) order[i] = order[i - 1];
+                order[i] = slot;
+            }
+            for (int j = k - 1; j >= 0; j--) { // Highest slot first, so the swaps never move a chosen slot
+                int slot = order[j];
+                group[local[slot]] = groupCount;
+                remove(slot);
+            }
+            groupCount++;
+        }
+
+        private void remove(int slot) {
+            int last = --liveCount;
+            for (double[] v : x) v[slot] = v[last];
+            local[slot] = local[last];
+        }
+
+        /** Puts the slots of the k live rows with the smallest (dist, row) in order[0..k), in one pass. */
+        private void scanNearest() {
+            int filled = 0;
+            for (int slot = 0; slot < liveCount; slot++) {
+                if (filled == k && !nearer(slot, order[k - 1])) continue;
+                int i = filled < k ? filled++ : k - 1;
+                for (; i > 0 && nearer(slot, order[i - 1]); i--) order[i] = order[i - 1];
+                order[i] = slot;
+            }
+        }
+
+        /** Moves the slots of the k live rows with the smallest (dist, row) to order[0..k), by quickselect. */
+        private void selectNearest() {
+            int lo = 0, hi = liveCount - 1, nth = k - 1;
+            while (lo < hi) {
+                int pivot = order[lo + (hi - lo) / 2];
+                int i = lo, j = hi;
+                while (i <= j) {
+                    while (nearer(order[i], pivot)) i++;
+                    while (nearer(pivot, order[j])) j--;
+                    if (i <= j) {
+                        int t = order[i]; order[i] = order[j]; order[j] = t;
+                        i++;
+                        j--;
+                    }
+                }
+                if (nth <= j) hi = j;
+                else if (nth >= i) lo = i;
+                else return;
+            }
+        }
+
+        private boolean nearer(int a, int b) {
+            return dist[a] < dist[b] || (dist[a] == dist[b] && rows[local[a]] < rows[local[b]]);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.example.anonymization;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -26,22 +26,21 @@ public class MockDataTestRunner {
         String kyuScorePath = args[2];
 
         try {
-            SimpleDataFrame dataDf = DataLoader.loadDataDf(dataDfPath, ';');
             List<SensitivityResult> sensitivityResultsList = DataLoader.loadSensitivityResults(sensitivityResultsPath, null);
-            List<KyuScore> kyuScoresList = DataLoader.loadKyuScores(kyuScorePath, null);
+            SensitivityCatalog sensitivities = SensitivityCatalog.of(sensitivityResultsList);
+            KyuScoreRegistry kyuScores = KyuScoreRegistry.of(DataLoader.loadKyuScores(kyuScorePath, null));
 
-            System.out.println("Data initialized. dataDf rows: " + dataDf.getRowCount());
-
-            try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
-                Class.forName("org.sqlite.JDBC");
-                System.out.println("In-memory SQLite DB connected.");
-
-                Main.createTableFromSimpleDataFrame(conn, dataDf, "data_df");
-                System.out.println("'data_df' table created and populated in SQLite.");
+            Path dataPath = Path.of(dataDfPath);
+            Path dbPath = SqliteStore.pathFor(dataPath);
+            Path queryLog = QueryLog.pathFor(dbPath);
+            try (Connection conn = SqliteStore.open(dbPath, "data_df", dataPath, ";",
+                    () -> DataLoader.loadDataDf(dataDfPath, ';'), QueryLog.frequentWhereColumns(queryLog))) {
+                System.out.println("SQLite DB connected: " + dbPath + " (read-only, data_df up to date)");
 
                 String query = "SELECT \"1455\", \"1198\", \"924\", \"21\", \"1524\", \"333\", \"351\" FROM data_df WHERE \"2\" = 'Gadag'";
                 System.out.println("Executing query: " + query);
                 SimpleDataFrame resultSDF = Main.executeSqlQueryToSimpleDataFrame(conn, query);
+                QueryLog.record(queryLog, query);
                 System.out.println("Query resultSDF rows: " + resultSDF.getRowCount());
 
                 if (resultSDF.getRowCount() == 0) {
@@ -52,20 +51,14 @@ public class MockDataTestRunner {
                 String resultType = DataProcessor.determineQueryResultType(resultSDF);
                 System.out.println("Result Type ------ " + resultType);
 
-                String kyuScoreString = kyuScoresList.stream()
-                        .filter(ks -> USER_ID_TO_QUERY.equals(ks.getUserId()))
-                        .map(ks -> ks.getKyuScore().toLowerCase())
-                        .findFirst().orElse("low");
+                String kyuScoreString = kyuScores.levelFor(USER_ID_TO_QUERY);
 
                 System.out.println("KYU Score ------ " + kyuScoreString);
 
                 String sensitivityLevelString = resultSDF.getColumnCount() == 0 ? "Low" :
                         ("cell".equals(resultType)
-                                ? sensitivityResultsList.stream()
-                                        .filter(sr -> sr.getAttributeId().equals(resultSDF.getColumnHeaders().get(0)))
-                                        .map(SensitivityResult::getSensitivityLevel)
-                                        .findFirst().orElse("Low")
-                                : DataProcessor.getMaxSensitivityLevel(resultSDF, sensitivityResultsList));
+                                ? sensitivities.cellLevel(resultSDF.getColumnHeaders().get(0))
+                                : sensitivities.maxLevel(resultSDF.getColumnHeaders()));
 
                 System.out.println("Sensitivity Level ------ " + sensitivityLevelString);
 
@@ -89,7 +82,7 @@ public class MockDataTestRunner {
                 System.out.println("\nAnonymized Result DataFrame (first 5 rows):");
                 Main.printSimpleDataFrame(anonymizedSdf, 5);
 
-            } catch (SQLException | ClassNotFoundException e) {
+            } catch (SQLException e) {
                 System.err.println("Database error: " + e.getMessage());
                 e.printStackTrace();
             }
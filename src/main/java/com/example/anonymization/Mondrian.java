@@ -0,0 +1,363 @@
+package com.example.anonymization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Mondrian multidimensional partitioning for k-anonymity (LeFevre, DeWitt, Ramakrishnan 2006).
+ *
+ * Rows are points given by their keys in the quasi-identifier columns. A partition of at least 2k
+ * rows is cut at the median of the column with the widest range, relative to that column's range
+ * over all rows; partitions that are smaller, or whose keys are all equal, are final. The cut is
+ * the relaxed one: rows tied with the median may end up on both sides, so every final partition has
+ * k to 2k-1 rows (or all rows, when there are fewer than 2k).
+ *
+ * The median comes from quickselect, O(n) per level instead of a sort. The keys are copied into
+ * arrays that are reordered along with the rows, so every level scans contiguous memory. Partitions
+ * of {@link #PARALLEL_ROWS} rows or more are cut as fork-join tasks on the {@link ColumnExecutor}
+ * pool. The cuts only depend on the rows in a partition, so the result does not depend on the
+ * thread schedule.
+ *
+ * {@link #anonymize} then generalizes every quasi-identifier to one value per partition: a range for
+ * numeric columns, otherwise the partition's common value or its lowest common ancestor in the
+ * column's {@link GeneralizationHierarchy}.
+ */
+final class Mondrian {
+
+    /** Partitions smaller than this are cut on the calling thread; forking costs more. */
+    static final int PARALLEL_ROWS = 16 * 1024;
+    private static final int INSERTION_SORT_ROWS = 16;
+
+    private final double[][] z; // z[c][slot], reordered in place
+    private final int[] rows; // Row held by each slot
+    private final double[] range; // Range of every column over all rows; 0 for a constant one
+    private final int k;
+    private final int[] partition; // By row: first slot of the row's final partition
+    private final boolean parallel;
+
+    private Mondrian(double[][] keys, int n, int k) {
+        this.z = new double[keys.length][];
+        this.range = new double[keys.length];
+        for (int c = 0; c < keys.length; c++) {
+            z[c] = Arrays.copyOf(keys[c], n);
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (z[c][i] < min) min = z[c][i];
+                if (z[c][i] > max) max = z[c][i];
+            }
+            range[c] = n == 0 ? 0 : max - min;
+        }
+        this.rows = new int[n];
+        for (int i = 0; i < n; i++) rows[i] = i;
+        this.k = k;
+        this.partition = new int[n];
+        this.parallel = ColumnExecutor.parallelism() > 1 && n >= 2 * PARALLEL_ROWS;
+    }
+
+    /**
+     * Generalizes the {@code quasiIdentifiers} of {@code df} so that every row shares its values in them
+     * with at least k - 1 other rows. Numeric columns get their partition's range, "lo-hi" (or the value
+     * when there is only one). Other columns keep the partition's value when it has a single one, and
+     * otherwise get the lowest common ancestor in the column's hierarchy, or "*" without one. Null
+     * cells stay null.
+     *
+     * @throws IllegalArgumentException if {@code df} has fewer than k rows, or there is no quasi-identifier
+     */
+    static void anonymize(SimpleDataFrame df, List<String> quasiIdentifiers, int k) {
+        int n = df.getRowCount(), d = quasiIdentifiers.size();
+        if (n < k) throw new IllegalArgumentException("k-anonymity needs at least k = " + k + " rows, got " + n);
+        if (d == 0) throw new IllegalArgumentException("k-anonymity needs at least one quasi-identifier column");
+        if (n == 0) return;
+        Column[] cols = new Column[d];
+        Categories[] categories = new Categories[d];
+        double[][] keys = new double[d][];
+        for (int c = 0; c < d; c++) {
+            String name = quasiIdentifiers.get(c);
+            cols[c] = df.column(name);
+            if (isNumeric(cols[c])) {
+                keys[c] = numericKeys(cols[c]);
+            } else {
+                categories[c] = new Categories(cols[c], GeneralizationHierarchies.forColumn(name));
+                keys[c] = categories[c].keys();
+            }
+        }
+        int[] partition = partitions(keys, n, k);
+        int partitions = 0;
+        for (int p : partition) partitions = Math.max(partitions, p + 1);
+        for (int c = 0; c < d; c++) {
+            String[] labels = categories[c] == null ? rangeLabels(cols[c], partition, partitions)
+                    : categories[c].labels(partition, partitions);
+            df.replaceColumn(quasiIdentifiers.get(c), labelled(cols[c], partition, labels));
+        }
+    }
+
+    private static boolean isNumeric(Column col) {
+        if (col.type().isNumeric()) return true;
+        boolean any = false;
+        for (int i = 0; i < col.size(); i++) {
+            if (col.isNull(i)) continue;
+            if (!col.isNumber(i)) return false;
+            any = true;
+        }
+        return any;
+    }
+
+    private static boolean hasNumber(Column col, int row) {
+        return !col.isNull(row) && Double.isFinite(col.getDouble(row));
+    }
+
+    /** The numbers; nulls (and NaNs) sort with the largest value. */
+    private static double[] numericKeys(Column col) {
+        int n = col.size();
+        double[] keys = new double[n];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            keys[i] = hasNumber(col, i) ? col.getDouble(i) : Double.NaN;
+            if (keys[i] > max) max = keys[i];
+        }
+        if (max == Double.NEGATIVE_INFINITY) max = 0;
+        for (int i = 0; i < n; i++) if (Double.isNaN(keys[i])) keys[i] = max;
+        return keys;
+    }
+
+    private static String[] rangeLabels(Column col, int[] partition, int partitions) {
+        double[] lo = new double[partitions], hi = new double[partitions];
+        Arrays.fill(lo, Double.POSITIVE_INFINITY);
+        Arrays.fill(hi, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < partition.length; i++) {
+            if (!hasNumber(col, i)) continue;
+            double v = col.getDouble(i);
+            int p = partition[i];
+            if (v < lo[p]) lo[p] = v;
+            if (v > hi[p]) hi[p] = v;
+        }
+        String[] labels = new String[partitions];
+        for (int p = 0; p < partitions; p++) {
+            if (lo[p] > hi[p]) labels[p] = "*";
+            else labels[p] = lo[p] == hi[p] ? format(lo[p]) : format(lo[p]) + "-" + format(hi[p]);
+        }
+        return labels;
+    }
+
+    private static String format(double v) {
+        return v == Math.rint(v) && Math.abs(v) < 1e15 ? Long.toString((long) v) : Double.toString(v);
+    }
+
+    /** String column with every non-null cell replaced by its partition's label. */
+    private static Column labelled(Column col, int[] partition, String[] labels) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] labelCodes = new int[labels.length];
+        for (int p = 0; p < labels.length; p++) {
+            if (labels[p] == null) continue; // A partition of nulls
+            labelCodes[p] = dictionary.computeIfAbsent(labels[p], label -> {
+                values.add(label);
+                return values.size() - 1;
+            });
+        }
+        int n = partition.length;
+        int[] codes = new int[n];
+        for (int i = 0; i < n; i++) codes[i] = col.isNull(i) ? -1 : labelCodes[partition[i]];
+        return StringColumn.of(codes, n, values);
+    }
+
+    /**
+     * The distinct values of a non-numeric column, coded and ranked: in hierarchy order when the column
+     * has a categorical hierarchy, so that values with a common ancestor tend to fall in one partition,
+     * and alphabetically otherwise.
+     */
+    private static final class Categories {
+        private final Column col;
+        private final GeneralizationHierarchy hierarchy;
+        private final int[] codes; // By row; -1 for null
+        private final List<String> values;
+        private final int[] leaves; // By code: leaf id in the hierarchy, or -1
+
+        Categories(Column col, GeneralizationHierarchy hierarchy) {
+            this.col = col;
+            this.hierarchy = hierarchy != null && hierarchy.isCategorical() ? hierarchy : null;
+            int n = col.size();
+            codes = new int[n];
+            if (col instanceof StringColumn) {
+                StringColumn strings = (StringColumn) col;
+                values = new ArrayList<>(strings.dictionarySize());
+                for (int v = 0; v < strings.dictionarySize(); v++) values.add(strings.dictionaryValue(v));
+                for (int i = 0; i < n; i++) codes[i] = strings.code(i);
+            } else {
+                values = new ArrayList<>();
+                Map<String, Integer> lookup = new HashMap<>();
+                for (int i = 0; i < n; i++) {
+                    codes[i] = col.isNull(i) ? -1 : lookup.computeIfAbsent(String.valueOf(col.get(i)), v -> {
+                        values.add(v);
+                        return values.size() - 1;
+                    });
+                }
+            }
+            leaves = new int[values.size()];
+            for (int v = 0; v < leaves.length; v++) leaves[v] = this.hierarchy == null ? -1 : this.hierarchy.leafId(values.get(v));
+        }
+
+        double[] keys() {
+            Integer[] order = new Integer[values.size()];
+            for (int v = 0; v < order.length; v++) order[v] = v;
+            // Hierarchy leaves first, in hierarchy order; then the other values alphabetically
+            Arrays.sort(order, Comparator.<Integer>comparingInt(v -> leaves[v] < 0 ? Integer.MAX_VALUE : leaves[v])
+                    .thenComparing(values::get));
+            double[] rank = new double[order.length];
+            for (int r = 0; r < order.length; r++) rank[order[r]] = r;
+            double[] keys = new double[codes.length];
+            for (int i = 0; i < codes.length; i++) keys[i] = codes[i] < 0 ? order.length : rank[codes[i]];
+            return keys;
+        }
+
+        String[] labels(int[] partition, int partitions) {
+            int[] first = new int[partitions];
+            boolean[] mixed = new boolean[partitions];
+            Arrays.fill(first, -1);
+            int depth = hierarchy == null ? 0 : hierarchy.depth();
+            int[][] common = new int[depth][partitions]; // Common ancestor per level; -1 unset, -2 none
+            for (int[] level : common) Arrays.fill(level, -1);
+            for (int i = 0; i < codes.length; i++) {
+                int code = codes[i], p = partition[i];
+                if (code < 0) continue;
+                if (first[p] < 0) first[p] = code;
+                else if (first[p] != code) mixed[p] = true;
+                int leaf = leaves[code];
+                for (int l = 0; l < depth; l++) {
+                    int ancestor = leaf < 0 ? -2 : hierarchy.ancestor(leaf, l + 1);
+                    if (common[l][p] == -1) common[l][p] = ancestor;
+                    else if (common[l][p] != ancestor) common[l][p] = -2;
+                }
+            }
+            String[] labels = new String[partitions];
+            for (int p = 0; p < partitions; p++) {
+                if (first[p] < 0) continue; // Only nulls: nothing is labelled
+                if (!mixed[p]) {
+                    labels[p] = values.get(first[p]);
+                    continue;
+                }
+                labels[p] = "*";
+                for (int l = 0; l < depth; l++) {
+                    if (common[l][p] >= 0) {
+                        labels[p] = hierarchy.label(l + 1, common[l][p]);
+                        break;
+                    }
+                }
+            }
+            return labels;
+        }
+    }
+
+    /**
+     * Partition of every row, numbered 0, 1, ... in order of each partition's first row.
+     *
+     * @param keys column-major points: {@code keys[c][row]}, no NaNs; left unchanged
+     */
+    static int[] partitions(double[][] keys, int n, int k) {
+        if (k <= 0) throw new IllegalArgumentException("k must be positive: " + k);
+        Mondrian m = new Mondrian(keys, n, k);
+        if (m.parallel) ColumnExecutor.invoke(m.new Cut(0, n));
+        else m.cut(0, n);
+        return renumber(m.partition);
+    }
+
+    private final class Cut extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from, to;
+
+        Cut(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            cut(from, to);
+        }
+    }
+
+    private void cut(int from, int to) {
+        int c = to - from >= 2 * k ? widestColumn(from, to) : -1;
+        if (c < 0) {
+            for (int i = from; i < to; i++) partition[rows[i]] = from;
+            return;
+        }
+        int mid = from + (to - from) / 2; // Both halves keep at least k rows
+        select(z[c], from, to - 1, mid);
+        if (parallel && to - from >= PARALLEL_ROWS) {
+            RecursiveAction.invokeAll(new Cut(from, mid), new Cut(mid, to));
+        } else {
+            cut(from, mid);
+            cut(mid, to);
+        }
+    }
+
+    /** Column with the widest range over slots [from, to) relative to its overall range; -1 if all are constant there. */
+    private int widestColumn(int from, int to) {
+        int widest = -1;
+        double widestRange = 0;
+        for (int c = 0; c < z.length; c++) {
+            if (range[c] == 0) continue;
+            double[] v = z[c];
+            double min = v[from], max = v[from];
+            for (int i = from + 1; i < to; i++) {
+                double x = v[i];
+                if (x < min) min = x;
+                else if (x > max) max = x;
+            }
+            double relative = (max - min) / range[c];
+            if (relative > widestRange) {
+                widestRange = relative;
+                widest = c;
+            }
+        }
+        return widest;
+    }
+
+    /** Reorders slots [lo, hi] so that slot nth holds the value a sort by {@code key} would put there, with none larger before it. */
+    private void select(double[] key, int lo, int hi, int nth) {
+        while (hi - lo >= INSERTION_SORT_ROWS) {
+            int m = (lo + hi) >>> 1;
+            double pivot = medianOf3(key[lo], key[m], key[hi]);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (key[i] < pivot) i++;
+                while (key[j] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (nth <= j) hi = j;
+            else if (nth >= i) lo = i;
+            else return;
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && key[j - 1] > key[j]; j--) swap(j - 1, j);
+        }
+    }
+
+    private static double medianOf3(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private void swap(int a, int b) {
+        for (double[] v : z) {
+            double t = v[a]; v[a] = v[b]; v[b] = t;
+        }
+        int t = rows[a]; rows[a] = rows[b]; rows[b] = t;
+    }
+
+    private static int[] renumber(int[] partition) {
+        int[] ids = new int[partition.length];
+        Arrays.fill(ids, -1);
+        int next = 0;
+        for (int i = 0; i < partition.length; i++) {
+            if (ids[partition[i]] < 0) ids[partition[i]] = next++;
+            partition[i] = ids[partition[i]];
+        }
+        return partition;
+    }
+}
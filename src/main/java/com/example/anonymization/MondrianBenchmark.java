@@ -0,0 +1,111 @@
+package com.example.anonymization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * Mondrian k-anonymity (see {@link Mondrian}) on a synthetic extract of {@code rows} rows: district
+ * (column 2, with its hierarchy), age, pincode, gender and a near-unique income, all quasi-identifiers.
+ * Times table-level mondrian, quasi-identifier detection included, at 1 to {@code maxThreads}
+ * threads (best of {@code runs}), checks that every combination of quasi-identifier values occurs at
+ * least k times, and that the output is the same at every parallelism.
+ *
+ * Ten million rows need about 3 GB of heap.
+ *
+ * Usage: MondrianBenchmark [rows] [k] [maxThreads] [runs]
+ */
+public class MondrianBenchmark {
+
+    private static final String[] DISTRICTS = {"Bagalkot", "Ballari", "Belagavi", "Bengaluru(R)", "Bengaluru(U)", "Bidar",
+            "Chamarajanagara", "Chikkaballapura", "Chikkamagaluru", "Chitradurga", "Dakshina Kannada", "Davanagere",
+            "Dharwad", "Gadag", "Hassan", "Haveri", "Kalburgi", "Kodagu", "Kolara", "Koppal", "Mandya", "Mysuru",
+            "Raichur", "Ramanagara", "Shivamogga", "Tumakuru", "Udupi", "Uttara Kannada", "Vijayapura", "Yadgir"};
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        SimpleDataFrame extract = extract(rows);
+        System.out.printf("Synthetic extract: %d rows x %d columns, k = %d, %d core(s)%n", rows, extract.getColumnCount(), k,
+                Runtime.getRuntime().availableProcessors());
+
+        int defaultParallelism = ColumnExecutor.parallelism();
+        System.out.printf("%8s %10s %8s %10s %10s %6s%n", "threads", "ms", "speedup", "classes", "smallest", "equal");
+        SimpleDataFrame serial = null;
+        double serialMs = 0;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            ColumnExecutor.setParallelism(threads);
+            SimpleDataFrame out = null;
+            double bestMs = Double.MAX_VALUE;
+            for (int i = 0; i < runs; i++) {
+                out = extract.copy();
+                long t0 = System.nanoTime();
+                AnonymizationTechniques.mondrian_table(out, k);
+                bestMs = Math.min(bestMs, (System.nanoTime() - t0) / 1e6);
+            }
+            if (threads == 1) {
+                serial = out;
+                serialMs = bestMs;
+            }
+            int[] classes = equivalenceClasses(out, List.of("2", "age", "pincode", "gender", "income"));
+            System.out.printf("%8d %10.1f %7.2fx %10d %10d %6s%n", threads, bestMs, serialMs / bestMs, classes[0], classes[1],
+                    threads == 1 ? "-" : String.valueOf(sameContents(serial, out)));
+        }
+        ColumnExecutor.setParallelism(defaultParallelism);
+    }
+
+    private static SimpleDataFrame extract(int rows) {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] district = new int[rows];
+        long[] age = new long[rows], pincode = new long[rows];
+        int[] gender = new int[rows];
+        double[] income = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            district[i] = random.nextInt(DISTRICTS.length);
+            age[i] = 18 + random.nextInt(70);
+            pincode[i] = 560_001 + district[i] * 1_000L + random.nextInt(200);
+            gender[i] = random.nextInt(2);
+            income[i] = Math.exp(random.nextDouble() * 3 + 10);
+        }
+        Column[] columns = {
+                StringColumn.of(district, rows, List.of(DISTRICTS)),
+                new LongColumn(age, new NullMask(rows), rows),
+                new LongColumn(pincode, new NullMask(rows), rows),
+                StringColumn.of(gender, rows, List.of("F", "M")),
+                new DoubleColumn(income, new NullMask(rows), rows)};
+        return SimpleDataFrame.ofColumns(List.of("2", "age", "pincode", "gender", "income"), columns, rows);
+    }
+
+    /** {number of distinct combinations of the columns' values, rows in the rarest one}. */
+    private static int[] equivalenceClasses(SimpleDataFrame df, List<String> columns) {
+        int n = df.getRowCount();
+        long[] keys = new long[n];
+        List<long[]> columnKeys = new ArrayList<>();
+        for (String c : columns) columnKeys.add(df.column(c).valueKeys());
+        for (int i = 0; i < n; i++) {
+            long h = 0;
+            for (long[] ck : columnKeys) h = ValueKeys.mix(h * 31 + ck[i]);
+            keys[i] = h;
+        }
+        LongCountMap counts = new LongCountMap(n);
+        for (long key : keys) counts.increment(key);
+        int smallest = Integer.MAX_VALUE;
+        for (long key : keys) smallest = Math.min(smallest, counts.get(key));
+        return new int[]{counts.size(), smallest};
+    }
+
+    private static boolean sameContents(SimpleDataFrame a, SimpleDataFrame b) {
+        if (!a.getColumnHeaders().equals(b.getColumnHeaders()) || a.getRowCount() != b.getRowCount()) return false;
+        for (int c = 0; c < a.getColumnCount(); c++) {
+            Column x = a.column(c), y = b.column(c);
+            for (int r = 0; r < a.getRowCount(); r++) {
+                if (!Objects.equals(x.get(r), y.get(r))) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.anonymization;
+
+/**
+ * Column that has only ever held nulls. The first non-null value turns it into a typed column.
+ */
+final class NullColumn extends Column {
+    private int size;
+
+    NullColumn(int size) {
+        this.size = size;
+    }
+
+    @Override
+    ColumnType type() {
+        return ColumnType.EMPTY;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    boolean isNull(int row) {
+        return true;
+    }
+
+    @Override
+    Object get(int row) {
+        return null;
+    }
+
+    @Override
+    boolean isNumber(int row) {
+        return false;
+    }
+
+    @Override
+    Column set(int row, Object value) {
+        if (value == null) return this;
+        return Column.forValue(value, size).set(row, value);
+    }
+
+    @Override
+    Column append(Object value) {
+        if (value == null) {
+            size++;
+            return this;
+        }
+        return Column.forValue(value, size).append(value);
+    }
+
+    @Override
+    Column copy() {
+        return new NullColumn(size);
+    }
+}
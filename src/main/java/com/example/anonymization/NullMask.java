@@ -0,0 +1,55 @@
+package com.example.anonymization;
+
+import java.util.Arrays;
+
+/**
+ * Growable bitmap marking the null cells of a primitive column.
+ */
+final class NullMask {
+    private long[] words;
+
+    NullMask(int capacity) {
+        this.words = new long[Math.max(1, (capacity + 63) >>> 6)];
+    }
+
+    private NullMask(long[] words) {
+        this.words = words;
+    }
+
+    boolean get(int index) {
+        int w = index >>> 6;
+        return w < words.length && (words[w] & (1L << index)) != 0;
+    }
+
+    void set(int index) {
+        ensureCapacity(index + 1);
+        words[index >>> 6] |= 1L << index;
+    }
+
+    void clear(int index) {
+        int w = index >>> 6;
+        if (w < words.length) words[w] &= ~(1L << index);
+    }
+
+    void set(int index, boolean isNull) {
+        if (isNull) set(index); else clear(index);
+    }
+
+    void ensureCapacity(int bits) {
+        int needed = (bits + 63) >>> 6;
+        if (needed > words.length) words = Arrays.copyOf(words, Math.max(needed, words.length * 2));
+    }
+
+    /** Backing words, e.g. for serialisation; bit {@code i} of word {@code i >>> 6} marks row {@code i}. */
+    long[] words() {
+        return words;
+    }
+
+    static NullMask fromWords(long[] words) {
+        return new NullMask(words.length == 0 ? new long[1] : words);
+    }
+
+    NullMask copy() {
+        return new NullMask(words.clone());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.anonymization;
+
+import java.util.Arrays;
+
+/**
+ * Fallback column for mixed or otherwise unsupported values.
+ */
+final class ObjectColumn extends Column {
+    private Object[] values;
+    private int size;
+
+    ObjectColumn(int capacity) {
+        this.values = new Object[Math.max(capacity, 8)];
+    }
+
+    private ObjectColumn(Object[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    ColumnType type() {
+        return ColumnType.OBJECT;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    boolean isNull(int row) {
+        return values[row] == null;
+    }
+
+    @Override
+    Object get(int row) {
+        return values[row];
+    }
+
+    @Override
+    Column set(int row, Object value) {
+        values[row] = value;
+        return this;
+    }
+
+    @Override
+    Column append(Object value) {
+        if (size == values.length) values = Arrays.copyOf(values, Math.max(8, size * 2));
+        values[size++] = value;
+        return this;
+    }
+
+    @Override
+    ObjectColumn toObjectColumn() {
+        return (ObjectColumn) copy();
+    }
+
+    @Override
+    Column copy() {
+        return new ObjectColumn(Arrays.copyOf(values, Math.max(size, 8)), size);
+    }
+}
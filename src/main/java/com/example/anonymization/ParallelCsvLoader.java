@@ -0,0 +1,266 @@
+package com.example.anonymization;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Memory-mapped CSV reader that parses record-aligned chunks of the file in parallel.
+ *
+ * The file is cut into raw byte ranges; a first parallel pass counts quote characters per range so the
+ * quote state at every cut is known, which lets each range move its start to the first line break that
+ * is outside a quoted field. Each chunk is then parsed on the fork-join pool straight into column
+ * buffers and the chunks are appended in file order.
+ *
+ * Parsing follows the Commons CSV default format used before: '"' quoting with "" as an escaped quote,
+ * no trimming, empty lines skipped and empty fields read as "". The chunk alignment assumes quotes only
+ * appear as field encapsulators (RFC 4180), not as literal characters inside unquoted fields.
+ */
+final class ParallelCsvLoader {
+
+    private static final int SEGMENT_SHIFT = 30; // 1 GiB mappings, so files beyond 2 GiB are supported
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final long MAX_CHUNK_BYTES = 1L << 28;
+    private static final byte QUOTE = '"';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private ParallelCsvLoader() {
+    }
+
+    static SimpleDataFrame load(Path file, char delimiter) throws IOException {
+        if (delimiter > 0x7F) throw new IOException("Only single-byte delimiters are supported: " + delimiter);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedFile data = new MappedFile(channel);
+            long headerStart = 0;
+            while (headerStart < data.size && (data.get(headerStart) == LF || data.get(headerStart) == CR)) headerStart++;
+            long headerEnd = data.nextRecordStart(headerStart, false);
+            RecordParser headerParser = new RecordParser(data.slice(channel, headerStart, headerEnd), (byte) delimiter);
+            List<String> headers = headerParser.nextRecord();
+            if (headers == null) return new SimpleDataFrame(List.of());
+            headers = new ArrayList<>(headers);
+            for (String h : headers) {
+                if (h.isEmpty()) throw new IOException("A header name is missing in " + headers + " of " + file);
+            }
+            return parseBody(channel, data, (byte) delimiter, headers, headerEnd);
+        }
+    }
+
+    private static SimpleDataFrame parseBody(FileChannel channel, MappedFile data, byte delimiter, List<String> headers, long dataStart) throws IOException {
+        long bodyBytes = data.size - dataStart;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long chunkCount = Math.max(1, Math.min((long) pool.getParallelism() * 4, bodyBytes / MIN_CHUNK_BYTES));
+        chunkCount = Math.max(chunkCount, (bodyBytes + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        int chunks = (int) chunkCount;
+
+        long[] rawStart = new long[chunks + 1];
+        for (int i = 0; i <= chunks; i++) rawStart[i] = dataStart + bodyBytes * i / chunks;
+
+        // Pass 1: quote parity of every raw range gives the quote state at each cut
+        List<ForkJoinTask<Boolean>> parities = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            long from = rawStart[i], to = rawStart[i + 1];
+            parities.add(pool.submit(() -> data.countQuotes(from, to) % 2 == 1));
+        }
+        boolean[] inQuotes = new boolean[chunks];
+        boolean state = false;
+        for (int i = 0; i < chunks; i++) {
+            inQuotes[i] = state;
+            state ^= parities.get(i).join();
+        }
+
+        // Pass 2: align each cut to the next record boundary
+        List<ForkJoinTask<Long>> aligned = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            long from = rawStart[i];
+            boolean quoted = inQuotes[i];
+            aligned.add(i == 0 ? pool.submit(() -> from) : pool.submit(() -> data.nextRecordStart(from, quoted)));
+        }
+        long[] start = new long[chunks + 1];
+        for (int i = 0; i < chunks; i++) start[i] = aligned.get(i).join();
+        start[chunks] = data.size;
+
+        // Pass 3: every aligned chunk holds whole records only; parse each into column buffers
+        List<ForkJoinTask<SimpleDataFrame>> parsed = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            long from = start[i], to = Math.max(start[i], start[i + 1]);
+            parsed.add(pool.submit(() -> parseChunk(data.slice(channel, from, to), delimiter, headers, from)));
+        }
+        SimpleDataFrame result = null;
+        for (ForkJoinTask<SimpleDataFrame> task : parsed) {
+            SimpleDataFrame chunk;
+            try {
+                chunk = task.join();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (result == null) result = chunk; else result.appendAll(chunk);
+        }
+        return result;
+    }
+
+    private static SimpleDataFrame parseChunk(ByteBuffer chunk, byte delimiter, List<String> headers, long offset) {
+        SimpleDataFrame frame = new SimpleDataFrame(headers);
+        RecordParser parser = new RecordParser(chunk, delimiter);
+        Object[] row = new Object[headers.size()];
+        try {
+            List<String> record;
+            while ((record = parser.nextRecord()) != null) {
+                if (record.size() < row.length) {
+                    throw new IOException("Record at byte " + (offset + parser.recordStart()) + " has " + record.size()
+                            + " values but the header has " + row.length);
+                }
+                for (int c = 0; c < row.length; c++) row[c] = record.get(c);
+                frame.addRow(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return frame;
+    }
+
+    /** Read-only view of a file as one or more 1 GiB memory mappings, used for the boundary scans. */
+    private static final class MappedFile {
+        final long size;
+        private final MappedByteBuffer[] segments;
+
+        MappedFile(FileChannel channel) throws IOException {
+            this.size = channel.size();
+            int count = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long offset = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SEGMENT_SIZE, size - offset));
+            }
+        }
+
+        byte get(long pos) {
+            return segments[(int) (pos >>> SEGMENT_SHIFT)].get((int) (pos & SEGMENT_MASK));
+        }
+
+        /** Maps {@code [from, to)} on its own so the parser can use int offsets. */
+        ByteBuffer slice(FileChannel channel, long from, long to) {
+            if (to - from > Integer.MAX_VALUE) {
+                throw new UncheckedIOException(new IOException("CSV record block at byte " + from + " exceeds 2 GiB"));
+            }
+            try {
+                return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        long countQuotes(long from, long to) {
+            long count = 0;
+            for (long p = from; p < to; p++) if (get(p) == QUOTE) count++;
+            return count;
+        }
+
+        /** First position after a line break that is not inside a quoted field, or {@code size}. */
+        long nextRecordStart(long from, boolean inQuotes) {
+            for (long p = from; p < size; p++) {
+                byte b = get(p);
+                if (b == QUOTE) inQuotes = !inQuotes;
+                else if (b == LF && !inQuotes) return p + 1;
+            }
+            return size;
+        }
+    }
+
+    /** Sequential record parser over a block that starts and ends on record boundaries. */
+    private static final class RecordParser {
+        private final ByteBuffer data;
+        private final int end;
+        private final byte delimiter;
+        private final List<String> fields = new ArrayList<>();
+        private int pos;
+        private int recordStart;
+        private byte[] buf = new byte[256];
+        private int len;
+
+        RecordParser(ByteBuffer data, byte delimiter) {
+            this.data = data;
+            this.end = data.limit();
+            this.delimiter = delimiter;
+        }
+
+        int recordStart() {
+            return recordStart;
+        }
+
+        /** Next record, or null at the end of the block. The returned list is reused by the next call. */
+        List<String> nextRecord() throws IOException {
+            // Skip empty lines
+            while (pos < end && (data.get(pos) == LF || data.get(pos) == CR)) pos++;
+            if (pos >= end) return null;
+            recordStart = pos;
+
+            fields.clear();
+            while (true) {
+                fields.add(nextField());
+                if (pos >= end) return fields;
+                byte b = data.get(pos++);
+                if (b == delimiter) {
+                    if (pos >= end) { fields.add(""); return fields; }
+                    continue;
+                }
+                // Line break ends the record
+                if (b == CR && pos < end && data.get(pos) == LF) pos++;
+                return fields;
+            }
+        }
+
+        private String nextField() throws IOException {
+            if (pos < end && data.get(pos) == QUOTE) return quotedField();
+            int from = pos;
+            while (pos < end) {
+                byte b = data.get(pos);
+                if (b == delimiter || b == LF || b == CR) break;
+                pos++;
+            }
+            int length = pos - from;
+            if (length > buf.length) buf = new byte[Math.max(length, buf.length * 2)];
+            data.get(from, buf, 0, length);
+            return new String(buf, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private String quotedField() throws IOException {
+            int opened = pos++;
+            len = 0;
+            while (true) {
+                if (pos >= end) throw new IOException("EOF reached before encapsulated token finished (quote at block byte " + opened + ")");
+                byte b = data.get(pos++);
+                if (b == QUOTE) {
+                    if (pos < end && data.get(pos) == QUOTE) { append(QUOTE); pos++; }
+                    else break;
+                } else {
+                    append(b);
+                }
+            }
+            if (pos < end) {
+                byte b = data.get(pos);
+                if (b != delimiter && b != LF && b != CR) {
+                    throw new IOException("Invalid char between encapsulated token and delimiter at block byte " + pos);
+                }
+            }
+            return new String(buf, 0, len, StandardCharsets.UTF_8);
+        }
+
+        private void append(byte b) {
+            if (len == buf.length) buf = Arrays.copyOf(buf, len * 2);
+            buf[len++] = b;
+        }
+    }
+}
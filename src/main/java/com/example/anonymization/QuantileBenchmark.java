@@ -0,0 +1,91 @@
+package com.example.anonymization;
+
+import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Cutoffs for top_bottom_coding at growing column sizes: commons-math Percentile over a copy of the
+ * column (exact) against a QuantileSketch built in one pass, and one merged from 8 chunk sketches.
+ * Reports the best time of {@code runs}, the values kept in memory and the worst rank error of the
+ * two cutoffs. The crossover AnonymizationTechniques.TOP_BOTTOM_EXACT_MAX_VALUES comes from this.
+ *
+ * Usage: QuantileBenchmark [maxValues] [runs] [lowerPercentile] [upperPercentile]
+ */
+public class QuantileBenchmark {
+
+    public static void main(String[] args) {
+        int maxValues = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        double lower = args.length > 2 ? Double.parseDouble(args[2]) : StrategyStep.DEFAULT_LOWER_PERCENTILE;
+        double upper = args.length > 3 ? Double.parseDouble(args[3]) : StrategyStep.DEFAULT_UPPER_PERCENTILE;
+
+        System.out.printf("%10s %-9s %10s %10s %12s%n", "values", "method", "best ms", "kept", "rank error");
+        Random random = new Random(42);
+        for (int n = 1_000; n <= maxValues; n *= 10) {
+            // Skewed, with ties: like counts and amounts in the data file
+            double[] values = new double[n];
+            for (int i = 0; i < n; i++) values[i] = Math.floor(Math.exp(random.nextGaussian() * 2 + 5));
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+
+            double best = Double.MAX_VALUE;
+            double[] cutoffs = null;
+            for (int r = 0; r < runs; r++) {
+                long t0 = System.nanoTime();
+                Percentile percentile = new Percentile();
+                percentile.setData(values.clone());
+                cutoffs = new double[]{percentile.evaluate(lower), percentile.evaluate(upper)};
+                best = Math.min(best, (System.nanoTime() - t0) / 1e6);
+            }
+            print(n, "exact", best, n, sorted, cutoffs, lower, upper);
+
+            QuantileSketch sketch = null;
+            best = Double.MAX_VALUE;
+            for (int r = 0; r < runs; r++) {
+                long t0 = System.nanoTime();
+                sketch = new QuantileSketch();
+                for (double v : values) sketch.update(v);
+                cutoffs = new double[]{sketch.quantile(lower / 100), sketch.quantile(upper / 100)};
+                best = Math.min(best, (System.nanoTime() - t0) / 1e6);
+            }
+            print(n, "sketch", best, sketch.retained(), sorted, cutoffs, lower, upper);
+
+            int chunks = 8;
+            QuantileSketch merged = new QuantileSketch();
+            for (int c = 0; c < chunks; c++) {
+                QuantileSketch part = new QuantileSketch();
+                for (int i = (int) ((long) n * c / chunks); i < (int) ((long) n * (c + 1) / chunks); i++) part.update(values[i]);
+                merged.merge(part);
+            }
+            cutoffs = new double[]{merged.quantile(lower / 100), merged.quantile(upper / 100)};
+            print(n, "merged", Double.NaN, merged.retained(), sorted, cutoffs, lower, upper);
+        }
+    }
+
+    private static void print(int n, String method, double ms, int kept, double[] sorted, double[] cutoffs, double lower, double upper) {
+        double error = Math.max(rankError(sorted, cutoffs[0], lower / 100), rankError(sorted, cutoffs[1], upper / 100));
+        System.out.printf("%10d %-9s %10.2f %10d %11.3f%%%n", n, method, ms, kept, error * 100);
+    }
+
+    /** Distance from {@code fraction} to the nearest rank {@code value} occupies, as a fraction of n. */
+    private static double rankError(double[] sorted, double value, double fraction) {
+        int n = sorted.length;
+        int first = lowerBound(sorted, value);
+        int last = lowerBound(sorted, Math.nextUp(value)); // Ties occupy ranks first .. last
+        double target = fraction * n;
+        if (target < first) return (first - target) / n;
+        if (target > last) return (target - last) / n;
+        return 0;
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.anonymization;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * KLL quantile sketch (Karnin, Lang, Liberty 2016): approximate quantiles of a stream of doubles in
+ * O(k log(n / k)) memory, built in one pass and mergeable, so chunks of a column (or batches of a
+ * streamed result) can be sketched separately and combined.
+ *
+ * Items live in levels; an item on level h stands for 2^h input values. When the sketch is full the
+ * lowest level over its capacity is sorted and every other item (odd or even positions, by coin flip)
+ * moves up one level. Level capacities shrink by 2/3 from the top level down. With the default k of
+ * 200 the rank error stays around 1-2% of n. The coin has a fixed seed, so the same values in the same
+ * order always give the same answers.
+ */
+final class QuantileSketch {
+
+    static final int DEFAULT_K = 200;
+    private static final int MIN_CAPACITY = 8;
+
+    private final int k;
+    private final SplittableRandom coin = new SplittableRandom(0x5DEECE66DL);
+    private double[][] levels = {new double[MIN_CAPACITY]};
+    private int[] sizes = {0};
+    private double[] scratch = new double[MIN_CAPACITY]; // Swapped with a level on every merge
+    private int levelCount = 1;
+    private int retained;
+    private int totalCapacity;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+    // Sorted (value, cumulative weight) view for queries; dropped on every change
+    private double[] sortedValues;
+    private long[] cumulativeWeights;
+
+    QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    QuantileSketch(int k) {
+        if (k < MIN_CAPACITY) throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY + ": " + k);
+        this.k = k;
+        this.totalCapacity = capacity(0);
+    }
+
+    /** Sketch of the numeric cells of {@code col}, built in parallel chunks when the column is large. */
+    static QuantileSketch of(Column col) {
+        int n = col.size();
+        int chunks = Math.min(ColumnExecutor.parallelism(), n / ColumnExecutor.MIN_PARALLEL_CELLS);
+        if (chunks < 2) return new QuantileSketch().updateAll(col, 0, n);
+        QuantileSketch[] parts = new QuantileSketch[chunks];
+        ColumnExecutor.forEachIndex(chunks, i -> parts[i] = new QuantileSketch().updateAll(col, (int) ((long) n * i / chunks),
+                (int) ((long) n * (i + 1) / chunks)));
+        for (int i = 1; i < chunks; i++) parts[0].merge(parts[i]); // In chunk order, so the result is deterministic
+        return parts[0];
+    }
+
+    /** Adds the numeric cells of {@code col}, e.g. one batch of a streamed result. */
+    void update(Column col) {
+        updateAll(col, 0, col.size());
+    }
+
+    private QuantileSketch updateAll(Column col, int from, int to) {
+        for (int i = from; i < to; i++) if (!col.isNull(i) && col.isNumber(i)) update(col.getDouble(i));
+        return this;
+    }
+
+    void update(double value) {
+        if (Double.isNaN(value)) return;
+        if (sizes[0] == levels[0].length) levels[0] = Arrays.copyOf(levels[0], levels[0].length * 2);
+        levels[0][sizes[0]++] = value;
+        retained++;
+        count++;
+        if (value < min) min = value;
+        if (value > max) max = value;
+        sortedValues = null;
+        if (retained > totalCapacity) compress();
+    }
+
+    /** Adds everything {@code other} has seen; {@code other} is left as it was. */
+    void merge(QuantileSketch other) {
+        if (other.count == 0) return;
+        while (levelCount < other.levelCount) addLevel();
+        int n0 = other.sizes[0];
+        if (sizes[0] + n0 > levels[0].length) levels[0] = Arrays.copyOf(levels[0], Math.max(levels[0].length * 2, sizes[0] + n0));
+        System.arraycopy(other.levels[0], 0, levels[0], sizes[0], n0);
+        sizes[0] += n0;
+        for (int h = 1; h < other.levelCount; h++) mergeInto(h, other.levels[h], 0, 1, other.sizes[h]);
+        retained += other.retained;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sortedValues = null;
+        while (retained > totalCapacity) compress();
+    }
+
+    long count() {
+        return count;
+    }
+
+    /** Items currently kept; the memory footprint in doubles. */
+    int retained() {
+        return retained;
+    }
+
+    /**
+     * Value whose rank is about {@code fraction} * count: the minimum at 0, the maximum at 1.
+     *
+     * @throws IllegalStateException if the sketch is empty
+     */
+    double quantile(double fraction) {
+        if (count == 0) throw new IllegalStateException("Quantile of an empty sketch");
+        if (!(fraction >= 0 && fraction <= 1)) throw new IllegalArgumentException("Quantile fraction must be in [0, 1]: " + fraction);
+        if (fraction == 0) return min;
+        if (fraction == 1) return max;
+        if (sortedValues == null) sortView();
+        long target = (long) Math.ceil(fraction * count);
+        int i = Arrays.binarySearch(cumulativeWeights, target);
+        return sortedValues[i >= 0 ? i : Math.min(-i - 1, sortedValues.length - 1)];
+    }
+
+    private void sortView() {
+        int n = retained;
+        double[] values = new double[n];
+        long[] weights = new long[n];
+        int j = 0;
+        for (int h = 0; h < levelCount; h++) {
+            for (int i = 0; i < sizes[h]; i++, j++) {
+                values[j] = levels[h][i];
+                weights[j] = 1L << h;
+            }
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        sortedValues = new double[n];
+        cumulativeWeights = new long[n];
+        long cumulative = 0;
+        for (int i = 0; i < n; i++) {
+            sortedValues[i] = values[order[i]];
+            cumulative += weights[order[i]];
+            cumulativeWeights[i] = cumulative;
+        }
+    }
+
+    private int capacity(int level) {
+        // Level 0 is an unsorted buffer of k values: sorting it now and then is cheaper than merging a
+        // few values up at a time, and its compactions (weight 1) add the least rank error
+        if (level == 0) return k;
+        int depth = levelCount - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(2.0 / 3.0, depth)));
+    }
+
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, levelCount + 1);
+        sizes = Arrays.copyOf(sizes, levelCount + 1);
+        levels[levelCount] = new double[MIN_CAPACITY];
+        levelCount++;
+        totalCapacity = 0;
+        for (int h = 0; h < levelCount; h++) totalCapacity += capacity(h);
+    }
+
+    /** Halves the lowest level that is at or over its capacity into the level above. */
+    private void compress() {
+        for (int h = 0; h < levelCount; h++) {
+            if (sizes[h] < capacity(h)) continue;
+            if (h + 1 == levelCount) addLevel();
+            double[] level = levels[h];
+            int n = sizes[h];
+            if (h == 0) sort(level, n); // Levels above are kept sorted
+            // An odd item out (the smallest) stays on this level
+            int from = n % 2;
+            int moved = (n - from) / 2;
+            mergeInto(h + 1, level, from + (coin.nextBoolean() ? 1 : 0), 2, moved);
+            sizes[h] = from;
+            retained -= moved;
+            return;
+        }
+    }
+
+    /** Merges the sorted items {@code src[start]}, {@code src[start + step]}, ... ({@code n} of them) into sorted level h. */
+    private void mergeInto(int h, double[] src, int start, int step, int n) {
+        double[] level = levels[h];
+        int size = sizes[h];
+        if (scratch.length < size + n) scratch = new double[Math.max(scratch.length * 2, size + n)];
+        double[] out = scratch;
+        int i = 0, j = 0, o = 0;
+        while (i < size && j < n) {
+            double next = src[start + j * step];
+            if (level[i] <= next) out[o++] = level[i++];
+            else { out[o++] = next; j++; }
+        }
+        while (i < size) out[o++] = level[i++];
+        while (j < n) out[o++] = src[start + (j++) * step];
+        scratch = level.length >= MIN_CAPACITY ? level : new double[MIN_CAPACITY];
+        levels[h] = out;
+        sizes[h] = o;
+    }
+
+    private static void sort(double[] values, int n) {
+        if (n > 32) {
+            Arrays.sort(values, 0, n);
+            return;
+        }
+        for (int i = 1; i < n; i++) { // Small levels: skips Arrays.sort's NaN and -0.0 passes (there are no NaNs)
+            double v = values[i];
+            int j = i;
+            for (; j > 0 && values[j - 1] > v; j--) values[j] = values[j - 1];
+            values[j] = v;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.anonymization;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Log of the columns executed queries filter on, one line per query, used to learn which columns are
+ * worth indexing. Only the column names are written, tab-separated, never the query: its literals are
+ * the very identifiers (emails, IDs) the guardrail protects. Once the file passes {@link #MAX_BYTES}
+ * it is cut back to the last {@link #WINDOW} lines.
+ *
+ * Column names are pulled from the WHERE clause with a lightweight pattern (identifier followed by a
+ * comparison, BETWEEN, IN, LIKE or IS) rather than a full SQL parser; names that are not columns of
+ * the table are dropped when the indexes are created.
+ */
+final class QueryLog {
+
+    /** A column must appear in this many logged WHERE clauses before it is indexed. */
+    static final int MIN_HITS = 2;
+    static final int MAX_LEARNED_COLUMNS = 8;
+    // Only the most recent entries count, so the learned set follows the current workload
+    private static final int WINDOW = 1000;
+    static final long MAX_BYTES = 64 * 1024;
+
+    private static final Pattern WHERE = Pattern.compile("(?is)\\bWHERE\\b(.*?)(?:\\bGROUP\\s+BY\\b|\\bORDER\\s+BY\\b|\\bLIMIT\\b|\\bHAVING\\b|$)");
+    private static final Pattern PREDICATE = Pattern.compile(
+            "(\"(?:[^\"]|\"\")+\"|`[^`]+`|\\[[^\\]]+\\]|[A-Za-z_][A-Za-z0-9_]*)\\s*(?:=|==|!=|<>|<=|>=|<|>|(?i:NOT\\s+)?(?i:BETWEEN|IN|LIKE|IS)\\b)");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    // Lines of logs written before only column names were kept
+    private static final Pattern RAW_QUERY = Pattern.compile("(?i)^\\s*(?:SELECT|WITH)\\b");
+    private static final Set<String> KEYWORDS = Set.of("and", "or", "not", "where", "null", "is", "in", "like", "between");
+
+    private QueryLog() {
+    }
+
+    /** Default log location for a database: {@code <db>.queries.log}. */
+    static Path pathFor(Path db) {
+        return db.resolveSibling(db.getFileName() + ".queries.log");
+    }
+
+    // Synchronized so concurrent server requests do not interleave their lines
+    static synchronized void record(Path log, String query) {
+        try {
+            Files.writeString(log, line(whereColumns(query)) + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (Files.size(log) > MAX_BYTES) keepRecent(log, read(log));
+        } catch (IOException e) {
+            System.err.println("Warning: could not append to query log " + log + ": " + e.getMessage());
+        }
+    }
+
+    /** Columns filtered on in at least {@link #MIN_HITS} recent queries, most frequent first. */
+    static List<String> frequentWhereColumns(Path log) throws IOException {
+        List<Set<String>> entries;
+        synchronized (QueryLog.class) {
+            try {
+                entries = read(log);
+            } catch (NoSuchFileException e) {
+                return List.of();
+            }
+        }
+        Map<String, Integer> hits = new HashMap<>();
+        for (Set<String> columns : entries.subList(Math.max(0, entries.size() - WINDOW), entries.size())) {
+            for (String column : columns) hits.merge(column, 1, Integer::sum);
+        }
+        List<String> columns = new ArrayList<>();
+        hits.entrySet().stream()
+                .filter(e -> e.getValue() >= MIN_HITS)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_LEARNED_COLUMNS)
+                .forEach(e -> columns.add(e.getKey()));
+        return columns;
+    }
+
+    /** The column sets of the log's lines; a log that still holds raw queries is rewritten without them. */
+    private static List<Set<String>> read(Path log) throws IOException {
+        List<Set<String>> entries = new ArrayList<>();
+        boolean raw = false;
+        for (String line : Files.readAllLines(log, StandardCharsets.UTF_8)) {
+            if (RAW_QUERY.matcher(line).find()) {
+                entries.add(whereColumns(line));
+                raw = true;
+            } else {
+                Set<String> columns = new LinkedHashSet<>();
+                for (String column : line.split("\t")) if (!column.isEmpty()) columns.add(column);
+                entries.add(columns);
+            }
+        }
+        if (raw) keepRecent(log, entries);
+        return entries;
+    }
+
+    /** Replaces the log with its last {@link #WINDOW} entries, through a temporary file moved into place. */
+    private static void keepRecent(Path log, List<Set<String>> entries) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (Set<String> columns : entries.subList(Math.max(0, entries.size() - WINDOW), entries.size())) {
+            text.append(line(columns)).append(System.lineSeparator());
+        }
+        Path tmp = Files.createTempFile(log.toAbsolutePath().getParent(), log.getFileName() + ".", ".tmp");
+        try {
+            Files.writeString(tmp, text, StandardCharsets.UTF_8);
+            Files.move(tmp, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    private static String line(Set<String> columns) {
+        StringBuilder line = new StringBuilder();
+        for (String column : columns) {
+            if (line.length() > 0) line.append('\t');
+            line.append(column.replaceAll("[\t\r\n]", " "));
+        }
+        return line.toString();
+    }
+
+    /** Distinct column names used in predicates of the query's WHERE clause. */
+    static Set<String> whereColumns(String query) {
+        Set<String> columns = new LinkedHashSet<>();
+        Matcher where = WHERE.matcher(STRING_LITERAL.matcher(query).replaceAll("?"));
+        while (where.find()) {
+            Matcher predicate = PREDICATE.matcher(where.group(1));
+            while (predicate.find()) {
+                String name = unquote(predicate.group(1));
+                if (!KEYWORDS.contains(name.toLowerCase(Locale.ROOT))) columns.add(name);
+            }
+        }
+        return columns;
+    }
+
+    private static String unquote(String identifier) {
+        char first = identifier.charAt(0);
+        if (first == '"') return identifier.substring(1, identifier.length() - 1).replace("\"\"", "\"");
+        if (first == '`' || first == '[') return identifier.substring(1, identifier.length() - 1);
+        return identifier;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.anonymization;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The per-query part of Main: run a query against data_df, pick strategies from the result type, its
+ * sensitivity and the user's KYU score, then anonymize and score the result.
+ *
+ * The sensitivity and KYU tables are indexed once and only read afterwards, so {@link #run} can be
+ * called from several threads at a time as long as each one brings its own connection.
+ */
+public final class QueryPipeline {
+
+    private final SensitivityCatalog sensitivities;
+    private final KyuScoreRegistry kyuScores;
+    private final Path queryLog;
+    private final ComplianceRepository compliance;
+    private final String dataOwner;
+    private final String dataDomain;
+
+    /** @param queryLog where executed queries are recorded for index learning; null to skip */
+    public QueryPipeline(List<SensitivityResult> sensitivityResults, List<KyuScore> kyuScores, Path queryLog) {
+        this(sensitivityResults, KyuScoreRegistry.of(kyuScores), queryLog, null, null, null);
+    }
+
+    /**
+     * {@code kyuScores} may be reloaded while requests run. With a compliance repository, the level it
+     * lists for ({@code dataOwner}, {@code dataDomain}) is a floor for every result's sensitivity.
+     */
+    public QueryPipeline(List<SensitivityResult> sensitivityResults, KyuScoreRegistry kyuScores, Path queryLog,
+                         ComplianceRepository compliance, String dataOwner, String dataDomain) {
+        this.sensitivities = SensitivityCatalog.of(sensitivityResults);
+        this.queryLog = queryLog;
+        this.compliance = compliance;
+        this.dataOwner = dataOwner;
+        this.dataDomain = dataDomain;
+        this.kyuScores = kyuScores;
+    }
+
+    /** What one request produced; {@code anonymized} and {@code score} are null when the query matched no rows. */
+    public record Outcome(String resultType, String kyuScore, String sensitivityLevel, List<String> strategies,
+                          String appliedStrategy, SimpleDataFrame original, SimpleDataFrame anonymized,
+                          AnonymizationScore score) {
+
+        public boolean isEmpty() {
+            return anonymized == null;
+        }
+    }
+
+    public Outcome run(Connection conn, String userId, String query) throws SQLException {
+        SimpleDataFrame resultSDF = Main.executeSqlQueryToSimpleDataFrame(conn, query);
+        if (queryLog != null) QueryLog.record(queryLog, query);
+
+        String kyuScoreString = kyuScoreFor(userId);
+        if (resultSDF.getRowCount() == 0) {
+            return new Outcome(null, kyuScoreString, null, List.of(), null, resultSDF, null, null);
+        }
+
+        String resultType = DataProcessor.determineQueryResultType(resultSDF);
+        String sensitivityLevelString = sensitivityFor(resultSDF, resultType);
+        StrategyPlan plan = StrategySelector.plan(Granularity.parse(resultType),
+                SensitivityLevel.parse(sensitivityLevelString), SensitivityLevel.parse(kyuScoreString));
+        List<String> selectedStrategies = plan.strategyNames();
+
+        SimpleDataFrame originalResultSdf = resultSDF.copy();
+        AnonymizationResult anonymizationOutput = AnonymizationService.anonymize(resultSDF, plan);
+        SimpleDataFrame anonymizedSdf = anonymizationOutput.getAnonymizedDataFrame();
+        AnonymizationScore scores = ScoreCalculator.calculateScore(originalResultSdf, anonymizedSdf);
+        return new Outcome(resultType, kyuScoreString, sensitivityLevelString, selectedStrategies,
+                anonymizationOutput.getAppliedStrategy(), originalResultSdf, anonymizedSdf, scores);
+    }
+
+    /** Lower-case KYU score of {@code userId}; "low" when the user is not in the KYU table. */
+    public String kyuScoreFor(String userId) {
+        return kyuScores.levelFor(userId);
+    }
+
+    private String sensitivityFor(SimpleDataFrame resultSDF, String resultType) {
+        String level = attributeSensitivity(resultSDF, resultType);
+        if (compliance == null) return level;
+        return DataProcessor.higherSensitivityLevel(level, compliance.sensitivityFor(dataOwner, dataDomain));
+    }
+
+    private String attributeSensitivity(SimpleDataFrame resultSDF, String resultType) {
+        if (resultSDF.getColumnCount() == 0) {
+            System.err.println("Query result has no columns. Defaulting sensitivity to Low.");
+            return "Low";
+        }
+        if ("cell".equals(resultType)) {
+            return sensitivities.cellLevel(resultSDF.getColumnHeaders().get(0));
+        }
+        return sensitivities.maxLevel(resultSDF.getColumnHeaders());
+    }
+}
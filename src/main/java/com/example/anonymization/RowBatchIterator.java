@@ -0,0 +1,91 @@
+package com.example.anonymization;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams a query result as SimpleDataFrame batches of at most {@code batchSize} rows.
+ *
+ * Rows are pulled from the ResultSet only when the next batch is requested and every batch is a new
+ * frame, so memory is bounded by one batch as long as the caller lets go of the previous one.
+ * Closing the iterator closes the statement; it is also closed once the last row has been read.
+ */
+public class RowBatchIterator implements Iterator<SimpleDataFrame>, AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final List<String> headers;
+    private final int batchSize;
+    private boolean hasRow;
+
+    public RowBatchIterator(Connection conn, String query, int batchSize) throws SQLException {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        this.batchSize = batchSize;
+        this.statement = conn.createStatement();
+        try {
+            statement.setFetchSize(batchSize);
+            this.resultSet = statement.executeQuery(query);
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            this.headers = new ArrayList<>(metaData.getColumnCount());
+            for (int i = 1; i <= metaData.getColumnCount(); i++) headers.add(metaData.getColumnLabel(i));
+            this.hasRow = resultSet.next();
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        if (!hasRow) close();
+    }
+
+    public List<String> getColumnHeaders() {
+        return new ArrayList<>(headers);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasRow;
+    }
+
+    @Override
+    public SimpleDataFrame next() {
+        if (!hasRow) throw new NoSuchElementException();
+        SimpleDataFrame batch = new SimpleDataFrame(headers);
+        Object[] row = new Object[headers.size()];
+        try {
+            int n = 0;
+            do {
+                for (int i = 0; i < row.length; i++) row[i] = resultSet.getObject(i + 1);
+                batch.addRow(row);
+                hasRow = resultSet.next();
+            } while (hasRow && ++n < batchSize);
+            if (!hasRow) close();
+        } catch (SQLException e) {
+            hasRow = false;
+            closeQuietly();
+            throw new IllegalStateException("Failed to read query result: " + e.getMessage(), e);
+        }
+        return batch;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        hasRow = false;
+        statement.close(); // Also closes the ResultSet
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (SQLException ignored) {
+            // Already failing
+        }
+    }
+}
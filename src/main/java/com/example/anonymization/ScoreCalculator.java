@@ -2,7 +2,6 @@ package com.example.anonymization;
 
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.List; // Manually adding based on SimpleDataFrame usage, prompt was missing this
@@ -64,6 +63,76 @@ public class ScoreCalculator {
         }
     }
 
+    /** Adds {@link #delta} over two numeric columns to {@code total}, without boxing or parsing. */
+    private static double numericDistance(Column orig, Column anon, int nRows, double total) {
+        for (int i = 0; i < nRows; i++) {
+            if (anon.isNull(i) || orig.isNull(i)) {
+                total += 1.0;
+                continue;
+            }
+            total += relativeDistance(orig.getDouble(i), anon.getDouble(i));
+        }
+        return total;
+    }
+
+    private static double relativeDistance(double origVal, double anonVal) {
+        if (origVal == anonVal) return 0.0;
+        if (origVal == 0.0) return (anonVal == 0.0) ? 0.0 : 1.0;
+        return Math.min(1.0, Math.abs(origVal - anonVal) / Math.abs(origVal));
+    }
+
+    /**
+     * Adds {@link #delta} over a column anonymized into strings (masks, group labels, ranges) to
+     * {@code total}. The marker, range and number checks run once per distinct anonymized string
+     * instead of once per cell.
+     */
+    private static double distanceToStrings(Column orig, StringColumn anon, int nRows, double total) {
+        int distinct = anon.dictionarySize();
+        boolean[] suppressed = new boolean[distinct];
+        boolean[] range = new boolean[distinct];
+        boolean[] numeric = new boolean[distinct];
+        double[] values = new double[distinct];
+        for (int d = 0; d < distinct; d++) {
+            String anonStr = anon.dictionaryValue(d).trim();
+            suppressed[d] = SUPPRESSION_MARKERS.contains(anonStr);
+            range[d] = isNumericRange(anonStr);
+            try {
+                values[d] = Double.parseDouble(anon.dictionaryValue(d));
+                numeric[d] = true;
+            } catch (NumberFormatException e) { /* Not a number */ }
+        }
+        boolean origMayEqual = !orig.type().isNumeric(); // A stored number never equals a string
+        for (int i = 0; i < nRows; i++) {
+            int d = anon.code(i);
+            if (d < 0 || suppressed[d]) {
+                total += 1.0;
+            } else if (origMayEqual && anon.dictionaryValue(d).equals(orig.get(i))) {
+                continue;
+            } else if (range[d]) {
+                total += 0.5;
+            } else if (numeric[d] && !orig.isNull(i) && orig.isNumber(i)) {
+                total += relativeDistance(orig.getDouble(i), values[d]);
+            } else {
+                total += 1.0;
+            }
+        }
+        return total;
+    }
+
+    /** "30-40" style generalized range (not a negative number). */
+    private static boolean isNumericRange(String anonStr) {
+        if (!anonStr.contains("-") || anonStr.startsWith("-")) return false;
+        try {
+            String[] parts = anonStr.split("-");
+            if (parts.length == 2) {
+                Double.parseDouble(parts[0].trim());
+                Double.parseDouble(parts[1].trim());
+                return true;
+            }
+        } catch (NumberFormatException e) { /* Not a numeric range */ }
+        return false;
+    }
+
     public static AnonymizationScore calculateScore(SimpleDataFrame originalDf, SimpleDataFrame anonymizedDf) {
         if (originalDf == null || anonymizedDf == null) {
             throw new IllegalArgumentException("Input DataFrames cannot be null.");
@@ -84,16 +153,23 @@ public class ScoreCalculator {
 
         double totalDistance = 0.0;
 
-        // These lines require "import java.util.List;"
-        List<String> columnHeaders = originalDf.getColumnHeaders(); 
-        List<Map<String, Object>> originalRows = originalDf.getRows();
-        List<Map<String, Object>> anonymizedRows = anonymizedDf.getRows();
-
-        for (int i = 0; i < nRows; i++) {
-            Map<String, Object> origRow = originalRows.get(i);
-            Map<String, Object> anonRow = anonymizedRows.get(i);
-            for (String colName : columnHeaders) { // Iterate in defined header order
-                totalDistance += delta(origRow.get(colName), anonRow.get(colName));
+        // Compare column by column straight from the column storage; no rows are materialised
+        List<String> columnHeaders = originalDf.getColumnHeaders();
+        for (String colName : columnHeaders) { // Iterate in defined header order
+            int origIdx = originalDf.columnIndex(colName);
+            int anonIdx = anonymizedDf.columnIndex(colName);
+            if (anonIdx < 0) {
+                for (int i = 0; i < nRows; i++) totalDistance += 1.0; // Every cell counts as suppressed
+                continue;
+            }
+            Column orig = originalDf.column(origIdx);
+            Column anon = anonymizedDf.column(anonIdx);
+            if (orig.type().isNumeric() && anon.type().isNumeric()) {
+                totalDistance = numericDistance(orig, anon, nRows, totalDistance);
+            } else if (anon.type() == ColumnType.STRING) {
+                totalDistance = distanceToStrings(orig, (StringColumn) anon, nRows, totalDistance);
+            } else {
+                for (int i = 0; i < nRows; i++) totalDistance += delta(orig.get(i), anon.get(i));
             }
         }
 
@@ -0,0 +1,191 @@
+package com.example.anonymization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Runs the generator scripts only when something they depend on changed.
+ *
+ * A manifest (a properties file) records, per script, a CRC32C of the script itself and the
+ * {@link SourceFingerprint} of every input and output after its last successful run. A script is up to
+ * date when the script, its list of inputs and the content of each input are unchanged and each output
+ * still holds what the script wrote; a touched file whose bytes did not change does not count.
+ * Stale scripts run in parallel, and the manifest entry of a script is only written once it succeeded.
+ */
+final class ScriptDependencies {
+
+    private static final String MISSING = "missing";
+
+    /** A script bundled as a classpath resource, with the files it reads and writes. */
+    record Script(String resourcePath, List<Path> inputs, List<Path> outputs) {
+        String key() {
+            return resourcePath.substring(resourcePath.lastIndexOf('/') + 1);
+        }
+    }
+
+    private final Path manifestPath;
+    private final Properties manifest = new Properties();
+
+    ScriptDependencies(Path manifestPath) {
+        this.manifestPath = manifestPath;
+        try (Reader in = Files.newBufferedReader(manifestPath, StandardCharsets.UTF_8)) {
+            manifest.load(in);
+        } catch (NoSuchFileException e) {
+            // First run: every script is stale
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Warning: ignoring unreadable script manifest " + manifestPath + ": " + e.getMessage());
+            manifest.clear();
+        }
+    }
+
+    /**
+     * Runs every stale script through {@code runner}, in parallel when more than one is stale, and waits
+     * for all of them. The first failure is rethrown once the others have finished.
+     */
+    void runStale(List<Script> scripts, Consumer<String> runner) {
+        List<Script> stale = new ArrayList<>();
+        for (Script script : scripts) {
+            String reason = staleReason(script);
+            if (reason == null) {
+                System.out.println("Skipping " + script.resourcePath() + ": inputs and outputs unchanged.");
+            } else {
+                System.out.println("Running " + script.resourcePath() + ": " + reason + ".");
+                stale.add(script);
+            }
+        }
+        if (stale.isEmpty()) return;
+        if (stale.size() == 1) {
+            Map<Path, String> inputs = fingerprintInputs(stale.get(0));
+            runner.accept(stale.get(0).resourcePath());
+            record(stale.get(0), inputs);
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(stale.size());
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (Script script : stale) {
+                Map<Path, String> inputs = fingerprintInputs(script);
+                runs.add(pool.submit(() -> {
+                    runner.accept(script.resourcePath());
+                    record(script, inputs);
+                }));
+            }
+            RuntimeException failure = null;
+            for (Future<?> run : runs) {
+                try {
+                    run.get();
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+                    if (failure == null) failure = cause;
+                    else failure.addSuppressed(cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for scripts", e);
+                }
+            }
+            if (failure != null) throw failure;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Why {@code script} has to run, or null when it is up to date. */
+    String staleReason(Script script) {
+        String prefix = script.key() + ".";
+        if (!manifest.containsKey(prefix + "script")) return "no previous run recorded";
+        try {
+            if (!manifest.getProperty(prefix + "script").equals(resourceHash(script.resourcePath()))) return "script changed";
+            if (!manifest.getProperty(prefix + "inputs", "").equals(joined(script.inputs()))) return "input list changed";
+            for (Path input : script.inputs()) {
+                if (!unchanged(manifest.getProperty(prefix + "input." + input), input)) return input + " changed";
+            }
+            for (Path output : script.outputs()) {
+                if (!Files.exists(output)) return output + " is missing";
+                if (!unchanged(manifest.getProperty(prefix + "output." + output), output)) return output + " was modified";
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return "could not check dependencies (" + e.getMessage() + ")";
+        }
+        return null;
+    }
+
+    private static boolean unchanged(String recorded, Path file) throws IOException {
+        if (recorded == null) return false;
+        if (MISSING.equals(recorded)) return !Files.exists(file);
+        return Files.exists(file) && SourceFingerprint.parse(recorded).sameContent(file);
+    }
+
+    /** Taken before the script starts, so an input edited while it runs still counts as a change next time. */
+    private static Map<Path, String> fingerprintInputs(Script script) {
+        Map<Path, String> fingerprints = new HashMap<>();
+        for (Path input : script.inputs()) {
+            try {
+                fingerprints.put(input, Files.exists(input) ? SourceFingerprint.of(input).toString() : MISSING);
+            } catch (IOException e) {
+                fingerprints.put(input, null); // Not recorded, so the script runs again next time
+            }
+        }
+        return fingerprints;
+    }
+
+    private synchronized void record(Script script, Map<Path, String> inputs) {
+        String prefix = script.key() + ".";
+        try {
+            manifest.stringPropertyNames().stream().filter(k -> k.startsWith(prefix)).forEach(manifest::remove);
+            for (Path input : script.inputs()) {
+                if (inputs.get(input) != null) manifest.setProperty(prefix + "input." + input, inputs.get(input));
+            }
+            for (Path output : script.outputs()) {
+                if (!Files.exists(output)) {
+                    System.err.println("Warning: " + script.resourcePath() + " did not produce " + output + "; it will run again next time.");
+                    return;
+                }
+                manifest.setProperty(prefix + "output." + output, SourceFingerprint.of(output).toString());
+            }
+            manifest.setProperty(prefix + "inputs", joined(script.inputs()));
+            manifest.setProperty(prefix + "script", resourceHash(script.resourcePath()));
+
+            Path tmp = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                manifest.store(out, "Generator script dependencies; delete to force the scripts to run");
+            }
+            Files.move(tmp, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Only costs a rerun next time
+            System.err.println("Warning: could not update script manifest " + manifestPath + ": " + e.getMessage());
+        }
+    }
+
+    private static String joined(List<Path> paths) {
+        return String.join(",", paths.stream().map(Path::toString).toList());
+    }
+
+    private static String resourceHash(String resourcePath) throws IOException {
+        try (InputStream in = ScriptDependencies.class.getResourceAsStream(resourcePath)) {
+            if (in == null) return MISSING;
+            CRC32C crc = new CRC32C();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0; ) crc.update(buffer, 0, n);
+            return Long.toHexString(crc.getValue());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.anonymization;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Attribute sensitivities from Sensitivity_Results, indexed by attribute id.
+ *
+ * Each interned id maps to a slot in byte arrays of {@link SensitivityLevel} ranks, so the level of a
+ * column set is one hash probe per header and a byte compare, with no scan of the results list.
+ * Levels of column sets are memoised, since the same SELECT lists come back again and again.
+ */
+final class SensitivityCatalog {
+
+    private static final int MAX_CACHED_COLUMN_SETS = 4096;
+
+    private final Map<String, Integer> slots;
+    private final byte[] maxRank; // Highest level listed for the id (0 = unrecognized)
+    private final String[] firstLevel; // Level text of the first row for the id, as listed
+    private final Map<List<String>, String> maxLevelCache = new ConcurrentHashMap<>();
+
+    SensitivityCatalog(List<SensitivityResult> results) {
+        Map<String, Integer> slots = new HashMap<>(results.size() * 2);
+        byte[] maxRank = new byte[results.size()];
+        String[] firstLevel = new String[results.size()];
+        for (SensitivityResult sr : results) {
+            String id = String.valueOf(sr.getAttributeId()).intern();
+            Integer slot = slots.get(id);
+            SensitivityLevel level = SensitivityLevel.parse(sr.getSensitivityLevel());
+            byte rank = level == null ? 0 : level.rank();
+            if (slot == null) {
+                slot = slots.size();
+                slots.put(id, slot);
+                firstLevel[slot] = sr.getSensitivityLevel();
+            }
+            if (rank > maxRank[slot]) maxRank[slot] = rank;
+        }
+        this.slots = slots;
+        this.maxRank = maxRank;
+        this.firstLevel = firstLevel;
+    }
+
+    static SensitivityCatalog of(List<SensitivityResult> results) {
+        return new SensitivityCatalog(results);
+    }
+
+    /** Level of a single-cell result: the first listed level of its column, "Low" if not listed. */
+    String cellLevel(String column) {
+        Integer slot = slots.get(column);
+        return slot == null ? "Low" : firstLevel[slot];
+    }
+
+    /**
+     * Highest level among {@code columns}, as {@link DataProcessor#getMaxSensitivityLevel}: "Low" when
+     * the listed columns have no recognized level, IllegalArgumentException when none is listed.
+     */
+    String maxLevel(List<String> columns) {
+        String cached = maxLevelCache.get(columns);
+        if (cached != null) return cached;
+
+        int max = -1; // -1: no column listed
+        for (String column : columns) {
+            Integer slot = slots.get(column);
+            if (slot != null && maxRank[slot] > max) max = maxRank[slot];
+        }
+        if (max < 0) {
+            throw new IllegalArgumentException("No matching columns found between DataFrame and sensitivity mapping for columns: " + columns);
+        }
+        String level;
+        if (max == 0) {
+            System.err.println("Warning: Matched columns found, but no recognized sensitivity levels ('Low', 'Moderate', 'High'). Defaulting to Low.");
+            level = SensitivityLevel.LOW.label();
+        } else {
+            level = SensitivityLevel.ofRank(max).label();
+        }
+        if (maxLevelCache.size() >= MAX_CACHED_COLUMN_SETS) maxLevelCache.clear();
+        maxLevelCache.put(List.copyOf(columns), level);
+        return level;
+    }
+
+    int size() {
+        return slots.size();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.anonymization;
+
+import java.util.Locale;
+
+/** Sensitivity levels in increasing order; the ordinal doubles as the byte-sized rank. */
+enum SensitivityLevel {
+    LOW("Low"), MODERATE("Moderate"), HIGH("High");
+
+    private static final SensitivityLevel[] VALUES = values();
+
+    private final String label;
+
+    SensitivityLevel(String label) {
+        this.label = label;
+    }
+
+    /** "Low", "Moderate" or "High", as in Sensitivity_Results.xlsx. */
+    String label() {
+        return label;
+    }
+
+    byte rank() {
+        return (byte) (ordinal() + 1);
+    }
+
+    /** Inverse of {@link #rank}; 0 (unrecognized) gives null. */
+    static SensitivityLevel ofRank(int rank) {
+        return rank <= 0 ? null : VALUES[rank - 1];
+    }
+
+    /** Case-insensitive, surrounding blanks ignored; null for anything else. */
+    static SensitivityLevel parse(String level) {
+        if (level == null) return null;
+        return switch (level.strip().toLowerCase(Locale.ROOT)) {
+            case "low" -> LOW;
+            case "moderate" -> MODERATE;
+            case "high" -> HIGH;
+            default -> null;
+        };
+    }
+}
@@ -1,32 +1,111 @@
 package com.example.anonymization;
 
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Column-oriented table. Each column is held in a typed {@link Column} (primitive arrays for numbers,
+ * dictionary-encoded arrays for strings, null bitmaps), while {@link #getRow(int)} and
+ * {@link #getColumnData(String)} expose map/list views over that storage.
+ *
+ * Copies share column storage and copy a column only on its first write (copy-on-write), so
+ * {@link #copy()} and {@link #snapshot()} cost O(columns) regardless of the row count.
+ */
 public class SimpleDataFrame {
+    // Never mutated in place, only replaced, so copies may share them
     private List<String> headers;
-    private List<Map<String, Object>> data;
+    private Map<String, Integer> headerIndex;
+    private Column[] columns;
+    // shared[c] means columns[c] may be referenced by another frame and must be copied before a write
+    private boolean[] shared;
+    private int rowCount;
+    private final boolean readOnly;
 
     public SimpleDataFrame(List<String> headers) {
         // Use a copy to prevent external modification
         this.headers = new ArrayList<>(headers);
-        this.data = new ArrayList<>();
+        this.headerIndex = indexOf(this.headers);
+        this.columns = new Column[this.headers.size()];
+        for (int i = 0; i < columns.length; i++) columns[i] = Column.empty();
+        this.shared = new boolean[columns.length];
+        this.readOnly = false;
     }
 
-    public void addRow(Map<String, Object> row) {
-        Map<String, Object> newRow = new LinkedHashMap<>();
-        for (String header : headers) {
-            if (row.containsKey(header)) {
-                newRow.put(header, row.get(header));
-            } else {
-                newRow.put(header, null); // Or some other placeholder for missing values
+    /** Frame over ready-made column storage, e.g. columns read back from a snapshot. */
+    static SimpleDataFrame ofColumns(List<String> headers, Column[] columns, int rowCount) {
+        SimpleDataFrame df = new SimpleDataFrame(headers);
+        if (columns.length != df.columns.length) {
+            throw new IllegalArgumentException("Got " + columns.length + " columns for " + df.columns.length + " headers.");
+        }
+        for (int c = 0; c < columns.length; c++) {
+            if (columns[c].size() != rowCount) {
+                throw new IllegalArgumentException("Column '" + headers.get(c) + "' has " + columns[c].size() + " cells, expected " + rowCount);
             }
+            df.columns[c] = columns[c];
+        }
+        df.rowCount = rowCount;
+        return df;
+    }
+
+    /** Structural copy: shares every column with {@code source} until one side writes to it. */
+    private SimpleDataFrame(SimpleDataFrame source, boolean readOnly) {
+        this.headers = source.headers;
+        this.headerIndex = source.headerIndex;
+        this.columns = source.columns.clone();
+        this.shared = new boolean[columns.length];
+        Arrays.fill(this.shared, true);
+        if (!source.readOnly) Arrays.fill(source.shared, true);
+        this.rowCount = source.rowCount;
+        this.readOnly = readOnly;
+    }
+
+    private void checkWritable() {
+        if (readOnly) throw new UnsupportedOperationException("DataFrame snapshot is read-only.");
+    }
+
+    /** Returns columns[c] ready for an in-place write, copying it first if it is shared. */
+    private Column writable(int c) {
+        checkWritable();
+        if (shared[c]) {
+            columns[c] = columns[c].copy();
+            shared[c] = false;
         }
-        data.add(newRow);
+        return columns[c];
+    }
+
+    private static Map<String, Integer> indexOf(List<String> headers) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < headers.size(); i++) index.put(headers.get(i), i);
+        return index;
+    }
+
+    public void addRow(Map<String, Object> row) {
+        for (int c = 0; c < columns.length; c++) {
+            // Missing keys become null cells
+            columns[c] = writable(c).append(row.get(headers.get(c)));
+        }
+        rowCount++;
+    }
+
+    /** Appends one row given in header order. */
+    void addRow(Object[] values) {
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException("Row has " + values.length + " values but frame has " + columns.length + " columns.");
+        }
+        for (int c = 0; c < columns.length; c++) columns[c] = writable(c).append(values[c]);
+        rowCount++;
     }
 
     public List<String> getColumnHeaders() {
@@ -34,14 +113,15 @@ public class SimpleDataFrame {
     }
 
     public List<Map<String, Object>> getRows() {
-        // Return a deep copy to prevent external modification of rows
-        return data.stream()
-                .map(LinkedHashMap::new)
-                .collect(Collectors.toList());
+        // Rows are views over a private copy-on-write copy, so edits never reach this frame
+        SimpleDataFrame detached = new SimpleDataFrame(this, false);
+        List<Map<String, Object>> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) rows.add(detached.new RowView(i));
+        return rows;
     }
 
     public int getRowCount() {
-        return data.size();
+        return rowCount;
     }
 
     public int getColumnCount() {
@@ -49,35 +129,93 @@ public class SimpleDataFrame {
     }
 
     public Map<String, Object> getRow(int rowIndex) {
-        if (rowIndex < 0 || rowIndex >= data.size()) {
+        if (rowIndex < 0 || rowIndex >= rowCount) {
             throw new IndexOutOfBoundsException("Row index out of bounds: " + rowIndex);
         }
-        // Return a DIRECT REFERENCE to the actual row map
-        return data.get(rowIndex);
+        // Return a live view: writes go straight to the column storage
+        return new RowView(rowIndex);
     }
 
     public List<Object> getColumnData(String columnName) {
-        if (!headers.contains(columnName)) {
+        Integer index = headerIndex.get(columnName);
+        if (index == null) {
             // Or return empty list: return new ArrayList<>();
             throw new IllegalArgumentException("Column not found: " + columnName);
         }
-        return data.stream()
-                .map(row -> row.get(columnName))
-                .collect(Collectors.toList());
+        return new ColumnView(index);
     }
 
     public List<Object> getColumnData(int columnIndex) {
         if (columnIndex < 0 || columnIndex >= headers.size()) {
             throw new IndexOutOfBoundsException("Column index out of bounds: " + columnIndex);
         }
-        String columnName = headers.get(columnIndex);
-        return getColumnData(columnName);
+        return new ColumnView(columnIndex);
+    }
+
+    public ColumnType getColumnType(String columnName) {
+        return column(columnName).type();
+    }
+
+    /* ---- Package-level access to the column storage ---- */
+
+    int columnIndex(String columnName) {
+        Integer index = headerIndex.get(columnName);
+        return index == null ? -1 : index;
+    }
+
+    Column column(String columnName) {
+        Integer index = headerIndex.get(columnName);
+        if (index == null) throw new IllegalArgumentException("Column not found: " + columnName);
+        return columns[index];
+    }
+
+    Column column(int columnIndex) {
+        return columns[columnIndex];
+    }
+
+    Object getValue(int rowIndex, int columnIndex) {
+        return columns[columnIndex].get(rowIndex);
+    }
+
+    void setValue(int rowIndex, int columnIndex, Object value) {
+        columns[columnIndex] = writable(columnIndex).set(rowIndex, value);
+    }
+
+    /** Replaces the storage of a column, e.g. with the output of a vectorised technique. */
+    void replaceColumn(String columnName, Column column) {
+        checkWritable();
+        Integer index = headerIndex.get(columnName);
+        if (index == null) throw new IllegalArgumentException("Column not found: " + columnName);
+        if (column.size() != rowCount) {
+            throw new IllegalArgumentException("Column '" + columnName + "' has " + column.size() + " cells, expected " + rowCount);
+        }
+        columns[index] = column;
+        shared[index] = false;
+    }
+
+    /** Moves numeric text columns into LONG / DOUBLE storage where that is lossless (see Column#inferNumeric). */
+    void inferColumnTypes() {
+        checkWritable();
+        for (int c = 0; c < columns.length; c++) {
+            Column inferred = columns[c].inferNumeric();
+            if (inferred != columns[c]) {
+                columns[c] = inferred;
+                shared[c] = false;
+            }
+        }
+    }
+
+    /** Appends all rows of a frame with the same headers, e.g. a chunk produced by a parallel loader. */
+    void appendAll(SimpleDataFrame other) {
+        if (!headers.equals(other.headers)) throw new IllegalArgumentException("Header mismatch when appending frames.");
+        for (int c = 0; c < columns.length; c++) columns[c] = writable(c).appendAll(other.columns[c]);
+        rowCount += other.rowCount;
     }
 
     public SimpleDataFrame subset(List<String> columnsToKeep) {
         List<String> newHeaders = new ArrayList<>();
         for (String col : columnsToKeep) {
-            if (this.headers.contains(col)) {
+            if (this.headerIndex.containsKey(col)) {
                 newHeaders.add(col);
             } else {
                 // Optionally, warn or throw exception for columns not found
@@ -86,23 +224,31 @@ public class SimpleDataFrame {
         }
 
         SimpleDataFrame newDf = new SimpleDataFrame(newHeaders);
-        for (Map<String, Object> oldRow : this.data) {
-            Map<String, Object> newRow = new LinkedHashMap<>();
-            for (String header : newHeaders) {
-                newRow.put(header, oldRow.get(header));
-            }
-            newDf.addRow(newRow);
+        for (int c = 0; c < newHeaders.size(); c++) {
+            int source = headerIndex.get(newHeaders.get(c));
+            newDf.columns[c] = columns[source];
+            newDf.shared[c] = true;
+            if (!readOnly) shared[source] = true;
         }
+        newDf.rowCount = rowCount;
         return newDf;
     }
 
+    /** Independent, writable copy. Column storage is shared until either frame writes to a column. */
     public SimpleDataFrame copy() {
-        SimpleDataFrame copyDf = new SimpleDataFrame(this.headers); // Headers list is already copied in constructor
-        // Deep copy data
-        for (Map<String, Object> row : this.data) {
-            copyDf.data.add(new LinkedHashMap<>(row)); // Add a copy of each row map
-        }
-        return copyDf;
+        return new SimpleDataFrame(this, false);
+    }
+
+    /**
+     * Immutable view of the current contents. Later writes to this frame copy the affected columns
+     * first, so a snapshot never changes and can be read from several threads at once.
+     */
+    public SimpleDataFrame snapshot() {
+        return readOnly ? this : new SimpleDataFrame(this, true);
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
     }
 
     @Override
@@ -113,25 +259,152 @@ public class SimpleDataFrame {
         sb.append(headers.stream().map(h -> "----").collect(Collectors.joining("\t|\t"))).append("\n");
 
         // Print first few rows (e.g., up to 5)
-        int rowsToPrint = Math.min(5, data.size());
+        int rowsToPrint = Math.min(5, rowCount);
         for (int i = 0; i < rowsToPrint; i++) {
-            Map<String, Object> row = data.get(i);
             List<String> rowValues = new ArrayList<>();
-            for (String header : headers) {
-                Object value = row.get(header);
+            for (int c = 0; c < columns.length; c++) {
+                Object value = columns[c].get(i);
                 rowValues.add(value == null ? "NULL" : value.toString());
             }
             sb.append(String.join("\t|\t", rowValues)).append("\n");
         }
-        if (data.size() > 5) {
-            sb.append("... (").append(data.size() - 5).append(" more rows)\n");
+        if (rowCount > 5) {
+            sb.append("... (").append(rowCount - 5).append(" more rows)\n");
         }
         return sb.toString();
     }
     public void setColumnHeaders(List<String> newHeaders) {
+        checkWritable();
         if (newHeaders == null || newHeaders.size() != this.headers.size()) {
             throw new IllegalArgumentException("New headers list must match existing header count.");
         }
         this.headers = new ArrayList<>(newHeaders);
+        this.headerIndex = indexOf(this.headers);
+    }
+
+    /* ---- Views ---- */
+
+    private final class RowView extends AbstractMap<String, Object> {
+        private final int row;
+
+        RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer c = headerIndex.get(key);
+            return c == null ? null : columns[c].get(row);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return headerIndex.containsKey(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Integer c = headerIndex.get(key);
+            if (c == null) throw new IllegalArgumentException("Column not found: " + key);
+            Object old = columns[c].get(row);
+            setValue(row, c, value);
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return headers.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int c = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return c < headers.size();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            return new CellEntry(row, c++);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return headers.size();
+                }
+            };
+        }
+    }
+
+    private final class CellEntry implements Map.Entry<String, Object> {
+        private final int row;
+        private final int col;
+
+        CellEntry(int row, int col) {
+            this.row = row;
+            this.col = col;
+        }
+
+        @Override
+        public String getKey() {
+            return headers.get(col);
+        }
+
+        @Override
+        public Object getValue() {
+            return columns[col].get(row);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = getValue();
+            SimpleDataFrame.this.setValue(row, col, value);
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private final class ColumnView extends AbstractList<Object> implements RandomAccess {
+        private final int col;
+
+        ColumnView(int col) {
+            this.col = col;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= rowCount) throw new IndexOutOfBoundsException("Row index out of bounds: " + index);
+            return columns[col].get(index);
+        }
+
+        @Override
+        public int size() {
+            return rowCount;
+        }
     }
 }
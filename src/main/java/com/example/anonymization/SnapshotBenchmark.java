@@ -0,0 +1,64 @@
+package com.example.anonymization;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Cold-vs-warm startup benchmark for the DatasetSnapshot cache.
+ *
+ * For every input file the snapshot is deleted, the file is loaded once through the parser (cold run,
+ * which also writes the snapshot) and then loaded repeatedly from the snapshot (warm runs). The warm
+ * frame is checked cell by cell against the parsed one.
+ *
+ * Usage: SnapshotBenchmark [warmRuns] [file ...]
+ * Defaults to the data, sensitivity and KYU files in the working directory.
+ */
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int warmRuns = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        String[] files = args.length > 1
+                ? Arrays.copyOfRange(args, 1, args.length)
+                : new String[]{"Data_2019-20.csv", "Sensitivity_Results.xlsx", "KYU Score.xlsx"};
+
+        System.out.printf("%-32s %8s %10s %10s %8s %6s%n", "file", "rows", "cold ms", "warm ms", "speedup", "equal");
+        for (String file : files) {
+            Path source = Paths.get(file);
+            if (!Files.exists(source)) {
+                System.err.println("Skipping missing file: " + file);
+                continue;
+            }
+            char delimiter = file.endsWith("Data_2019-20.csv") ? ';' : ',';
+            Files.deleteIfExists(DatasetSnapshot.pathFor(source));
+
+            long t0 = System.nanoTime();
+            SimpleDataFrame cold = DataLoader.loadDataDf(file, delimiter);
+            double coldMs = (System.nanoTime() - t0) / 1e6;
+
+            SimpleDataFrame warm = null;
+            double bestWarmMs = Double.MAX_VALUE;
+            for (int i = 0; i < warmRuns; i++) {
+                long t1 = System.nanoTime();
+                warm = DataLoader.loadDataDf(file, delimiter);
+                bestWarmMs = Math.min(bestWarmMs, (System.nanoTime() - t1) / 1e6);
+            }
+
+            System.out.printf("%-32s %8d %10.1f %10.1f %7.1fx %6s%n", file, cold.getRowCount(), coldMs, bestWarmMs,
+                    coldMs / bestWarmMs, warm != null && sameContents(cold, warm));
+        }
+    }
+
+    private static boolean sameContents(SimpleDataFrame a, SimpleDataFrame b) {
+        if (!a.getColumnHeaders().equals(b.getColumnHeaders()) || a.getRowCount() != b.getRowCount()) return false;
+        for (int c = 0; c < a.getColumnCount(); c++) {
+            if (a.column(c).type() != b.column(c).type()) return false;
+            for (int r = 0; r < a.getRowCount(); r++) {
+                if (!Objects.equals(a.getValue(r, c), b.getValue(r, c))) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.anonymization;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+/**
+ * Identity of a source file's contents: size, modification time and a CRC32C of the bytes.
+ * Derived artefacts (snapshots, databases) store it to tell whether they are still up to date.
+ */
+record SourceFingerprint(long size, long modifiedMillis, long contentHash) {
+
+    private static final long HASH_BLOCK = 64L << 20;
+
+    static SourceFingerprint of(Path file) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        return new SourceFingerprint(attrs.size(), attrs.lastModifiedTime().toMillis(), hash(file));
+    }
+
+    /** Compares size and mtime first, so the file is only hashed when those still match. */
+    boolean matches(Path file) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attrs.size() != size || attrs.lastModifiedTime().toMillis() != modifiedMillis) return false;
+        return hash(file) == contentHash;
+    }
+
+    /** Same bytes, whatever the mtime says: compares size, then the hash. */
+    boolean sameContent(Path file) throws IOException {
+        return Files.size(file) == size && hash(file) == contentHash;
+    }
+
+    private static long hash(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long pos = 0; pos < size; pos += HASH_BLOCK) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(HASH_BLOCK, size - pos)));
+            }
+        }
+        return crc.getValue();
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(size);
+        out.writeLong(modifiedMillis);
+        out.writeLong(contentHash);
+    }
+
+    static SourceFingerprint read(ByteBuffer in) {
+        return new SourceFingerprint(in.getLong(), in.getLong(), in.getLong());
+    }
+
+    /** Inverse of {@link #toString}. */
+    static SourceFingerprint parse(String text) {
+        String[] parts = text.split(":");
+        if (parts.length != 3) throw new IllegalArgumentException("Not a fingerprint: " + text);
+        return new SourceFingerprint(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseUnsignedLong(parts[2], 16));
+    }
+
+    @Override
+    public String toString() {
+        return size + ":" + modifiedMillis + ":" + Long.toHexString(contentHash);
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.anonymization;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk insert of a SimpleDataFrame into an existing SQLite table.
+ *
+ * A producer thread turns column storage into typed row blocks (each distinct string of a dictionary
+ * column is parsed once), while the calling thread binds them with setLong / setDouble / setString and
+ * flushes one executeBatch per block, so memory stays bounded by a few blocks of {@link #BLOCK_CELLS}.
+ *
+ * When the connection is in autocommit mode the loader owns the transaction: it commits every
+ * {@link #COMMIT_ROWS} rows and relaxes durability for the load (synchronous=OFF, and
+ * journal_mode=MEMORY unless the database is in WAL mode), restoring the previous settings afterwards.
+ * Inside a caller's transaction those PRAGMAs cannot change, so only the page cache is enlarged and the
+ * caller commits; such a caller relaxes durability itself with {@link Pragmas} before it begins (as
+ * SqliteStore does around its rebuild).
+ */
+final class SqliteBulkLoader {
+
+    // Cells per block (~6 MB of buffers), so wide tables get fewer rows per block
+    static final int BLOCK_CELLS = 1 << 18;
+    static final int COMMIT_ROWS = 200_000;
+    private static final int QUEUE_BLOCKS = 4;
+    private static final int CACHE_KIB = 256 * 1024;
+    private static final int MAX_VARIABLES = 32_766; // SQLITE_MAX_VARIABLE_NUMBER since 3.32
+    private static final int MAX_ROWS_PER_INSERT = 64;
+
+    private static final byte NULL = 0, LONG = 1, DOUBLE = 2, TEXT = 3;
+
+    private SqliteBulkLoader() {
+    }
+
+    /** Inserts every row of {@code sdf} into {@code tableName}; {@code affinities} come from TableSchema. */
+    static long insert(Connection conn, String tableName, List<String> headers, SimpleDataFrame sdf, List<String> affinities)
+            throws SQLException {
+        int cols = headers.size();
+        // Several rows per INSERT cut the per-statement overhead; the tail of each block goes row by row
+        int rowsPerInsert = Math.max(1, Math.min(MAX_ROWS_PER_INSERT, MAX_VARIABLES / cols));
+        String insert = "INSERT INTO " + TableSchema.quote(tableName) + " ("
+                + headers.stream().map(TableSchema::quote).collect(Collectors.joining(", ")) + ") VALUES ";
+        String tuple = "(" + headers.stream().map(h -> "?").collect(Collectors.joining(", ")) + ")";
+        String multiSql = insert + String.join(", ", Collections.nCopies(rowsPerInsert, tuple));
+
+        boolean ownsTransaction = conn.getAutoCommit();
+        Pragmas previous = Pragmas.relax(conn, ownsTransaction);
+        Producer producer = new Producer(sdf, affinities);
+        Thread thread = new Thread(producer, "sqlite-ingest-producer");
+        thread.setDaemon(true);
+        thread.start();
+        long written = 0;
+        try (PreparedStatement multi = conn.prepareStatement(multiSql);
+             PreparedStatement single = conn.prepareStatement(insert + tuple)) {
+            if (ownsTransaction) conn.setAutoCommit(false);
+            while (true) {
+                Block block = producer.take();
+                if (block.rows == 0) break;
+                int fullRows = block.rows - block.rows % rowsPerInsert;
+                int cell = 0;
+                for (int r = 0; r < fullRows; r += rowsPerInsert) {
+                    for (int p = 1; p <= rowsPerInsert * cols; p++, cell++) bind(multi, p, block, cell);
+                    multi.addBatch();
+                }
+                for (int r = fullRows; r < block.rows; r++) {
+                    for (int p = 1; p <= cols; p++, cell++) bind(single, p, block, cell);
+                    single.addBatch();
+                }
+                // Multi-row inserts first, so rows keep their order
+                if (fullRows > 0) multi.executeBatch();
+                if (fullRows < block.rows) single.executeBatch();
+                written += block.rows;
+                if (ownsTransaction && written % COMMIT_ROWS < block.rows) conn.commit();
+            }
+            if (ownsTransaction) conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            thread.interrupt();
+            if (ownsTransaction) conn.rollback();
+            throw e;
+        } finally {
+            if (ownsTransaction) conn.setAutoCommit(true);
+            previous.restore(conn);
+        }
+        return written;
+    }
+
+    private static void bind(PreparedStatement ps, int param, Block block, int cell) throws SQLException {
+        switch (block.tags[cell]) {
+            case LONG -> ps.setLong(param, block.longs[cell]);
+            case DOUBLE -> ps.setDouble(param, block.doubles[cell]);
+            case TEXT -> ps.setString(param, block.texts[cell]);
+            default -> ps.setNull(param, Types.NULL);
+        }
+    }
+
+    /** Row-major cells of a run of rows; a block with no rows marks the end of the data. */
+    private static final class Block {
+        final int rows;
+        final byte[] tags;
+        final long[] longs;
+        final double[] doubles;
+        final String[] texts;
+
+        Block(int rows, int cols) {
+            this.rows = rows;
+            int cells = rows * cols;
+            this.tags = new byte[cells];
+            this.longs = new long[cells];
+            this.doubles = new double[cells];
+            this.texts = new String[cells];
+        }
+    }
+
+    private static final class Producer implements Runnable {
+        private final SimpleDataFrame sdf;
+        private final List<String> affinities;
+        private final BlockingQueue<Block> queue = new ArrayBlockingQueue<>(QUEUE_BLOCKS);
+        private volatile Throwable failure;
+
+        Producer(SimpleDataFrame sdf, List<String> affinities) {
+            this.sdf = sdf;
+            this.affinities = affinities;
+        }
+
+        Block take() {
+            try {
+                Block block = queue.take();
+                if (failure instanceof RuntimeException e) throw e;
+                if (failure != null) throw new IllegalStateException("Ingest producer failed", failure);
+                return block;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for ingest rows", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                int cols = sdf.getColumnCount();
+                CellSource[] sources = new CellSource[cols];
+                for (int c = 0; c < cols; c++) sources[c] = CellSource.of(sdf.column(c), affinities.get(c));
+                int total = sdf.getRowCount();
+                int blockRows = Math.max(1, BLOCK_CELLS / Math.max(1, cols));
+                for (int from = 0; from < total; from += blockRows) {
+                    Block block = new Block(Math.min(blockRows, total - from), cols);
+                    for (int r = 0; r < block.rows; r++) {
+                        int base = r * cols;
+                        for (int c = 0; c < cols; c++) sources[c].fill(from + r, block, base + c);
+                    }
+                    queue.put(block);
+                }
+            } catch (InterruptedException e) {
+                return; // The writer gave up
+            } catch (RuntimeException | Error e) {
+                failure = e; // Handed to the writer, which would otherwise wait forever
+            }
+            try {
+                queue.put(new Block(0, 0));
+            } catch (InterruptedException ignored) {
+                // The writer gave up
+            }
+        }
+    }
+
+    /** Typed cell reader for one column, with dictionary entries converted once up front. */
+    private abstract static class CellSource {
+        abstract void fill(int row, Block block, int cell);
+
+        static CellSource of(Column column, String affinity) {
+            if (column instanceof LongColumn longs) {
+                return new CellSource() {
+                    @Override
+                    void fill(int row, Block block, int cell) {
+                        if (longs.isNull(row)) return;
+                        block.tags[cell] = LONG;
+                        block.longs[cell] = longs.getLong(row);
+                    }
+                };
+            }
+            if (column instanceof DoubleColumn doubles) {
+                return new CellSource() {
+                    @Override
+                    void fill(int row, Block block, int cell) {
+                        if (doubles.isNull(row)) return;
+                        block.tags[cell] = DOUBLE;
+                        block.doubles[cell] = doubles.getDouble(row);
+                    }
+                };
+            }
+            if (column instanceof StringColumn strings) {
+                int n = strings.dictionarySize();
+                byte[] tags = new byte[n];
+                long[] longs = new long[n];
+                double[] doubles = new double[n];
+                String[] texts = new String[n];
+                for (int code = 0; code < n; code++) {
+                    Object value = TableSchema.bindValue(strings.dictionaryValue(code), affinity);
+                    tags[code] = tag(value);
+                    if (value instanceof Long l) longs[code] = l;
+                    else if (value instanceof Double d) doubles[code] = d;
+                    else texts[code] = (String) value;
+                }
+                return new CellSource() {
+                    @Override
+                    void fill(int row, Block block, int cell) {
+                        int code = strings.code(row);
+                        if (code < 0) return;
+                        block.tags[cell] = tags[code];
+                        block.longs[cell] = longs[code];
+                        block.doubles[cell] = doubles[code];
+                        block.texts[cell] = texts[code];
+                    }
+                };
+            }
+            return new CellSource() {
+                @Override
+                void fill(int row, Block block, int cell) {
+                    Object value = TableSchema.bindValue(column.get(row), affinity);
+                    block.tags[cell] = tag(value);
+                    if (value instanceof Long l) block.longs[cell] = l;
+                    else if (value instanceof Double d) block.doubles[cell] = d;
+                    else if (value != null) block.texts[cell] = String.valueOf(value);
+                }
+            };
+        }
+
+        private static byte tag(Object value) {
+            if (value == null) return NULL;
+            if (value instanceof Long) return LONG;
+            if (value instanceof Double) return DOUBLE;
+            return TEXT;
+        }
+    }
+
+    /** Durability and cache settings of a connection, relaxed for a load and restored afterwards. */
+    static final class Pragmas {
+        private final String journalMode;
+        private final String synchronous;
+        private final String cacheSize;
+
+        private Pragmas(String journalMode, String synchronous, String cacheSize) {
+            this.journalMode = journalMode;
+            this.synchronous = synchronous;
+            this.cacheSize = cacheSize;
+        }
+
+        static Pragmas relax(Connection conn, boolean ownsTransaction) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                String cacheSize = read(stmt, "cache_size");
+                stmt.execute("PRAGMA cache_size = -" + CACHE_KIB);
+                if (!ownsTransaction) return new Pragmas(null, null, cacheSize);
+
+                String synchronous = read(stmt, "synchronous");
+                stmt.execute("PRAGMA synchronous = OFF");
+                String journalMode = read(stmt, "journal_mode");
+                // Leaving WAL would fail while other connections read the database
+                if ("wal".equalsIgnoreCase(journalMode)) journalMode = null;
+                else read(stmt, "journal_mode = MEMORY");
+                return new Pragmas(journalMode, synchronous, cacheSize);
+            }
+        }
+
+        void restore(Connection conn) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                if (journalMode != null) read(stmt, "journal_mode = " + journalMode);
+                if (synchronous != null) stmt.execute("PRAGMA synchronous = " + synchronous);
+                stmt.execute("PRAGMA cache_size = " + cacheSize);
+            }
+        }
+
+        private static String read(Statement stmt, String pragma) throws SQLException {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+}
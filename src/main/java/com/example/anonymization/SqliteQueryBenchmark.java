@@ -0,0 +1,147 @@
+package com.example.anonymization;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Point-lookup and range-query latency on a scaled-up copy of Data_2019-20, comparing the old layout
+ * (every column TEXT, no indexes) with the typed, indexed table built by createTableFromSimpleDataFrame.
+ *
+ * The first {@code columns} columns of the data file are replicated until the table has {@code rows}
+ * rows; district names get a replica suffix so a point lookup matches a single row.
+ *
+ * Usage: SqliteQueryBenchmark [dataFile] [rows] [columns] [queries]
+ */
+public class SqliteQueryBenchmark {
+
+    private static final String DISTRICT = "2";
+
+    public static void main(String[] args) throws Exception {
+        String dataFile = args.length > 0 ? args[0] : "Data_2019-20.csv";
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int columns = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int queries = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+        DataLoader.setSnapshotsEnabled(false);
+        SimpleDataFrame source = DataLoader.loadDataDf(dataFile, ';');
+        List<String> headers = new ArrayList<>(source.getColumnHeaders().subList(0, Math.min(columns, source.getColumnCount())));
+        if (!headers.contains(DISTRICT)) headers.add(DISTRICT);
+        SimpleDataFrame base = source.subset(headers);
+        String rangeColumn = pickNumericColumn(base);
+        SimpleDataFrame scaled = scale(base, rows);
+        System.out.printf("Scaled %s to %d rows x %d columns; range column \"%s\"%n", dataFile, rows, headers.size(), rangeColumn);
+
+        Path db = Files.createTempFile("guardrail-query-bench", ".sqlite");
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + db)) {
+            // One transaction for the setup; only query latency is measured here
+            conn.setAutoCommit(false);
+            long t0 = System.nanoTime();
+            Main.createTableFromSimpleDataFrame(conn, scaled, "data_df", List.of(DISTRICT, rangeColumn));
+            System.out.printf("Typed + indexed build: %.0f ms%n", (System.nanoTime() - t0) / 1e6);
+
+            // The old layout: every column TEXT and no indexes
+            try (Statement stmt = conn.createStatement()) {
+                StringBuilder ddl = new StringBuilder("CREATE TABLE data_text (");
+                for (int i = 0; i < headers.size(); i++) ddl.append(i == 0 ? "" : ", ").append(TableSchema.quote(headers.get(i))).append(" TEXT");
+                stmt.execute(ddl.append(")").toString());
+                stmt.execute("INSERT INTO data_text SELECT * FROM data_df");
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+
+            double[] bounds = rangeBounds(base, rangeColumn);
+            String point = "SELECT * FROM %s WHERE \"" + DISTRICT + "\" = ?";
+            String range = "SELECT * FROM %s WHERE \"" + rangeColumn + "\" BETWEEN ? AND ?";
+            List<String> districts = new ArrayList<>();
+            for (int r = 0; r < base.getRowCount(); r++) districts.add(String.valueOf(base.getValue(r, base.columnIndex(DISTRICT))));
+
+            System.out.printf("%-12s %-10s %12s %12s %10s%n", "query", "table", "median us", "p95 us", "rows/query");
+            for (String table : new String[]{"data_text", "data_df"}) {
+                Random random = new Random(42);
+                long[] pointTimes = new long[queries];
+                long pointRows = 0;
+                try (PreparedStatement ps = conn.prepareStatement(String.format(point, table))) {
+                    for (int q = 0; q < queries; q++) {
+                        ps.setString(1, districts.get(random.nextInt(districts.size())) + "#" + random.nextInt(Math.max(1, rows / districts.size())));
+                        long t = System.nanoTime();
+                        pointRows += drain(ps);
+                        pointTimes[q] = System.nanoTime() - t;
+                    }
+                }
+                report("point", table, pointTimes, pointRows, queries);
+
+                long[] rangeTimes = new long[queries];
+                long rangeRows = 0;
+                try (PreparedStatement ps = conn.prepareStatement(String.format(range, table))) {
+                    for (int q = 0; q < queries; q++) {
+                        double lo = bounds[0] + random.nextDouble() * (bounds[1] - bounds[0]) * 0.99;
+                        ps.setDouble(1, lo);
+                        ps.setDouble(2, lo + (bounds[1] - bounds[0]) * 0.01);
+                        long t = System.nanoTime();
+                        rangeRows += drain(ps);
+                        rangeTimes[q] = System.nanoTime() - t;
+                    }
+                }
+                report("range 1%", table, rangeTimes, rangeRows, queries);
+            }
+            System.out.println("Note: on data_text the range predicate compares strings, so its row counts differ as well.");
+        } finally {
+            Files.deleteIfExists(db);
+        }
+    }
+
+    private static String pickNumericColumn(SimpleDataFrame df) {
+        for (String h : df.getColumnHeaders()) {
+            if (!h.equals(DISTRICT) && !TableSchema.TEXT.equals(TableSchema.affinityOf(df.column(h)))) return h;
+        }
+        throw new IllegalStateException("No numeric column in the selected columns.");
+    }
+
+    private static SimpleDataFrame scale(SimpleDataFrame base, int rows) {
+        SimpleDataFrame scaled = new SimpleDataFrame(base.getColumnHeaders());
+        int district = base.columnIndex(DISTRICT);
+        Object[] row = new Object[base.getColumnCount()];
+        for (int r = 0; r < rows; r++) {
+            int sourceRow = r % base.getRowCount();
+            for (int c = 0; c < row.length; c++) row[c] = base.getValue(sourceRow, c);
+            row[district] = row[district] + "#" + (r / base.getRowCount());
+            scaled.addRow(row);
+        }
+        return scaled;
+    }
+
+    private static double[] rangeBounds(SimpleDataFrame df, String column) {
+        Column col = df.column(column);
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int r = 0; r < col.size(); r++) {
+            if (!col.isNumber(r)) continue;
+            min = Math.min(min, col.getDouble(r));
+            max = Math.max(max, col.getDouble(r));
+        }
+        return new double[]{min, max};
+    }
+
+    private static long drain(PreparedStatement ps) throws Exception {
+        long count = 0;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) count++;
+        }
+        return count;
+    }
+
+    private static void report(String query, String table, long[] times, long rows, int queries) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-12s %-10s %12.1f %12.1f %10.1f%n", query, table,
+                sorted[sorted.length / 2] / 1e3, sorted[(int) (sorted.length * 0.95)] / 1e3, (double) rows / queries);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.anonymization;
+
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+
+/**
+ * On-disk SQLite database (WAL mode) holding the data_df table, so repeated runs skip ingestion.
+ *
+ * A {@code source_meta} table records the {@link SourceFingerprint} of the file each table was built
+ * from, together with the load variant and {@link #STORE_FORMAT}. {@link #open} compares it with the
+ * current source: when it still matches, the database is opened read-only and the source is never
+ * parsed; otherwise the table is rebuilt inside one IMMEDIATE transaction, which also keeps a second
+ * process from rebuilding the same table concurrently, with synchronous=OFF until it commits.
+ *
+ * Requested index columns that have no index yet are added to a fresh table in place, without a rebuild.
+ * Callers always get a read-only connection, so the queries they run cannot change the store behind
+ * its fingerprint.
+ */
+final class SqliteStore {
+
+    static final String SUFFIX = ".sqlite";
+    // Bump when the table layout written by createTableFromSimpleDataFrame changes
+    static final int STORE_FORMAT = 2;
+    private static final String META_TABLE = "source_meta";
+
+    private SqliteStore() {
+    }
+
+    /** Default database location: {@code <source>.sqlite} next to the source file. */
+    static Path pathFor(Path source) {
+        return source.resolveSibling(source.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Opens {@code db} with {@code tableName} built from {@code source} and indexed on {@code indexColumns}.
+     * {@code loader} only runs when the table is missing or stale. The returned connection is read-only;
+     * the one that rebuilt the table or added indexes is closed first.
+     */
+    static Connection open(Path db, String tableName, Path source, String variant, DatasetSnapshot.Loader loader,
+                           Collection<String> indexColumns) throws IOException, SQLException {
+        if (Files.exists(db)) {
+            Connection readOnly = connect(db, true);
+            try {
+                if (isFresh(readOnly, tableName, source, variant)
+                        && TableSchema.missingIndexes(readOnly, tableName, indexColumns).isEmpty()) {
+                    return readOnly;
+                }
+            } catch (SQLException | IOException | RuntimeException e) {
+                readOnly.close();
+                throw e;
+            }
+            readOnly.close();
+        }
+
+        Connection conn = connect(db, false);
+        try {
+            // The rebuild must be one transaction, so the bulk loader cannot relax durability inside it:
+            // do it before BEGIN. The table is a cache of the source, rebuilt if a crash leaves it stale
+            SqliteBulkLoader.Pragmas relaxed = SqliteBulkLoader.Pragmas.relax(conn, true);
+            conn.setAutoCommit(false); // BEGIN IMMEDIATE: takes the write lock up front
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + META_TABLE + " (table_name TEXT PRIMARY KEY, format INTEGER,"
+                        + " variant TEXT, size INTEGER, modified_millis INTEGER, content_hash INTEGER)");
+            }
+            // Another process may have rebuilt the table while we waited for the lock
+            if (!isFresh(conn, tableName, source, variant)) {
+                SourceFingerprint fingerprint = SourceFingerprint.of(source);
+                SimpleDataFrame df = loader.load();
+                System.out.println("Rebuilding '" + tableName + "' in " + db + " from " + source + " (" + df.getRowCount() + " rows).");
+                Main.createTableFromSimpleDataFrame(conn, df, tableName, indexColumns);
+                writeFingerprint(conn, tableName, variant, fingerprint);
+            } else {
+                TableSchema.createIndexes(conn, tableName, indexColumns);
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+            relaxed.restore(conn);
+            conn.close();
+            return connect(db, true);
+        } catch (SQLException | IOException | RuntimeException e) {
+            try { conn.rollback(); } catch (SQLException ignored) { }
+            conn.close();
+            throw e;
+        }
+    }
+
+    /** Another read-only connection to a store that {@link #open} has already brought up to date. */
+    static Connection connectReadOnly(Path db) throws SQLException {
+        return connect(db, true);
+    }
+
+    private static Connection connect(Path db, boolean readOnly) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(readOnly);
+        config.setBusyTimeout(30_000);
+        if (!readOnly) {
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        }
+        return config.createConnection("jdbc:sqlite:" + db.toAbsolutePath());
+    }
+
+    private static boolean isFresh(Connection conn, String tableName, Path source, String variant) throws SQLException, IOException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet tables = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name = '" + META_TABLE + "'")) {
+            if (!tables.next()) return false;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT format, variant, size, modified_millis, content_hash FROM " + META_TABLE + " WHERE table_name = ?")) {
+            ps.setString(1, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return false;
+                if (rs.getInt(1) != STORE_FORMAT || !variant.equals(rs.getString(2))) return false;
+                return new SourceFingerprint(rs.getLong(3), rs.getLong(4), rs.getLong(5)).matches(source);
+            }
+        }
+    }
+
+    private static void writeFingerprint(Connection conn, String tableName, String variant, SourceFingerprint fingerprint) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT OR REPLACE INTO " + META_TABLE
+                + " (table_name, format, variant, size, modified_millis, content_hash) VALUES (?, ?, ?, ?, ?, ?)")) {
+            ps.setString(1, tableName);
+            ps.setInt(2, STORE_FORMAT);
+            ps.setString(3, variant);
+            ps.setLong(4, fingerprint.size());
+            ps.setLong(5, fingerprint.modifiedMillis());
+            ps.setLong(6, fingerprint.contentHash());
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.anonymization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/** Strategies to try on one result, in order, each already bound to its granularity and parameters. */
+final class StrategyPlan {
+
+    static final StrategyPlan EMPTY = new StrategyPlan(List.of());
+
+    private final List<StrategyStep> steps;
+    private final List<String> strategyNames;
+
+    StrategyPlan(List<StrategyStep> steps) {
+        this.steps = List.copyOf(steps);
+        List<String> names = new ArrayList<>(steps.size());
+        for (StrategyStep step : steps) names.add(step.name());
+        this.strategyNames = List.copyOf(names);
+    }
+
+    /** Binds {@code strategies} with their default parameters, for callers that still pass names. */
+    static StrategyPlan ofNames(Granularity granularity, List<String> strategies) {
+        List<StrategyStep> steps = new ArrayList<>(strategies.size());
+        for (String strategy : strategies) steps.add(StrategyStep.bind(granularity, strategy, Map.of()));
+        return new StrategyPlan(steps);
+    }
+
+    List<StrategyStep> steps() {
+        return steps;
+    }
+
+    List<String> strategyNames() {
+        return strategyNames;
+    }
+
+    boolean isEmpty() {
+        return steps.isEmpty();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.anonymization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The strategy policy (granularity x sensitivity x KYU score -> strategies to try, with parameters),
+ * compiled into an array of {@link StrategyPlan}s indexed by the three enums' ordinals.
+ *
+ * The policy is a properties file with one line per combination:
+ * <pre>
+ * # granularity.sensitivity.kyu = strategy[(name=value, ...)], ...
+ * cell.high.low = cell_suppression(threshold=2), differential_privacy_column(epsilon=0.1), full_masking
+ * </pre>
+ * Combinations the file leaves out get no strategies, like unknown keys of the old nested maps.
+ */
+final class StrategyPolicy {
+
+    private static final int LEVELS = SensitivityLevel.values().length;
+
+    private final StrategyPlan[] plans;
+
+    private StrategyPolicy(StrategyPlan[] plans) {
+        this.plans = plans;
+    }
+
+    static StrategyPolicy load(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Properties props = new Properties();
+            props.load(in);
+            return compile(props, file.toString());
+        }
+    }
+
+    static StrategyPolicy loadResource(String resource) throws IOException {
+        try (InputStream in = StrategyPolicy.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IOException("Strategy policy " + resource + " not found on the classpath");
+            Properties props = new Properties();
+            props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return compile(props, resource);
+        }
+    }
+
+    /** @throws IllegalArgumentException naming {@code source} and the key, for any malformed entry */
+    static StrategyPolicy compile(Properties props, String source) {
+        StrategyPlan[] plans = new StrategyPlan[Granularity.values().length * LEVELS * LEVELS];
+        Arrays.fill(plans, StrategyPlan.EMPTY);
+        for (String key : props.stringPropertyNames()) {
+            String[] parts = key.toLowerCase(Locale.ROOT).split("\\.");
+            Granularity granularity = parts.length == 3 ? Granularity.parse(parts[0]) : null;
+            SensitivityLevel sensitivity = parts.length == 3 ? SensitivityLevel.parse(parts[1]) : null;
+            SensitivityLevel trust = parts.length == 3 ? SensitivityLevel.parse(parts[2]) : null;
+            if (granularity == null || sensitivity == null || trust == null) {
+                throw new IllegalArgumentException(source + ": '" + key + "' is not granularity.sensitivity.kyu");
+            }
+            try {
+                List<StrategyStep> steps = new ArrayList<>();
+                for (Map.Entry<String, Map<String, String>> entry : parseStrategies(props.getProperty(key)).entrySet()) {
+                    steps.add(StrategyStep.bind(granularity, entry.getKey(), entry.getValue()));
+                }
+                plans[index(granularity, sensitivity, trust)] = new StrategyPlan(steps);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(source + ": " + key + ": " + e.getMessage(), e);
+            }
+        }
+        return new StrategyPolicy(plans);
+    }
+
+    private static int index(Granularity granularity, SensitivityLevel sensitivity, SensitivityLevel trust) {
+        return (granularity.ordinal() * LEVELS + sensitivity.ordinal()) * LEVELS + trust.ordinal();
+    }
+
+    /** {@code a, b(x=1, y=2)} -> {a: {}, b: {x: 1, y: 2}}, in order. */
+    static Map<String, Map<String, String>> parseStrategies(String value) {
+        Map<String, Map<String, String>> strategies = new LinkedHashMap<>();
+        int i = 0, n = value.length();
+        while (i < n) {
+            int end = i;
+            while (end < n && value.charAt(end) != ',' && value.charAt(end) != '(') end++;
+            String name = value.substring(i, end).strip();
+            Map<String, String> params = new LinkedHashMap<>();
+            if (end < n && value.charAt(end) == '(') {
+                int close = value.indexOf(')', end);
+                if (close < 0) throw new IllegalArgumentException("Missing ')' after " + name);
+                for (String param : value.substring(end + 1, close).split(",")) {
+                    if (param.isBlank()) continue;
+                    int eq = param.indexOf('=');
+                    if (eq < 0) throw new IllegalArgumentException("Parameter '" + param.strip() + "' of " + name + " has no value");
+                    params.put(param.substring(0, eq).strip().toLowerCase(Locale.ROOT), param.substring(eq + 1).strip());
+                }
+                end = close + 1;
+                while (end < n && value.charAt(end) != ',') {
+                    if (!Character.isWhitespace(value.charAt(end))) throw new IllegalArgumentException("Unexpected text after " + name + "(...)");
+                    end++;
+                }
+            }
+            if (name.isEmpty()) {
+                if (!params.isEmpty()) throw new IllegalArgumentException("Parameters without a strategy name");
+            } else if (strategies.putIfAbsent(name, params) != null) {
+                throw new IllegalArgumentException(name + " is listed twice");
+            }
+            i = end + 1;
+        }
+        return strategies;
+    }
+
+    /** The plan for the combination; {@link StrategyPlan#EMPTY} when any of the three is null. */
+    StrategyPlan plan(Granularity granularity, SensitivityLevel sensitivity, SensitivityLevel trust) {
+        if (granularity == null || sensitivity == null || trust == null) return StrategyPlan.EMPTY;
+        return plans[index(granularity, sensitivity, trust)];
+    }
+}
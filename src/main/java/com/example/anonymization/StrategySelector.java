@@ -1,119 +1,47 @@
 package com.example.anonymization;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
-import java.util.Map;
-
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the anonymization strategies for a result from the strategy policy (see {@link StrategyPolicy}).
+ *
+ * The policy bundled as {@value #DEFAULT_POLICY_RESOURCE} is used until {@link #usePolicyFile} points
+ * the selector at a file on disk. A file policy is checked for changes on a daemon thread and
+ * recompiled there; the new plans replace the old ones with a single volatile write, and a policy
+ * that fails to compile leaves the previous one in place.
+ */
 public class StrategySelector {
 
-    private static final Map<String, Map<String, Map<String, List<String>>>> strategiesMap = new HashMap<>();
-
-    static {
-        // Cell Data Level
-        Map<String, Map<String, List<String>>> cellStrategies = new HashMap<>();
-        
-        // Cell - High Sensitivity
-        Map<String, List<String>> cellHighSensitivity = new HashMap<>();
-        cellHighSensitivity.put("low", Arrays.asList("cell_suppression", "differential_privacy_column", "full_masking"));
-        cellHighSensitivity.put("moderate", Arrays.asList("top_bottom_coding", "microaggregation", "partial_masking"));
-        cellHighSensitivity.put("high", Arrays.asList("noise_injection"));
-        cellStrategies.put("high", cellHighSensitivity);
-
-        // Cell - Moderate Sensitivity
-        Map<String, List<String>> cellModerateSensitivity = new HashMap<>();
-        cellModerateSensitivity.put("low", Arrays.asList("microaggregation"));
-        cellModerateSensitivity.put("moderate", Arrays.asList("generalization", "partial_masking"));
-        cellModerateSensitivity.put("high", Arrays.asList("no_transformation"));
-        cellStrategies.put("moderate", cellModerateSensitivity);
-
-        // Cell - Low Sensitivity
-        Map<String, List<String>> cellLowSensitivity = new HashMap<>();
-        cellLowSensitivity.put("low", Arrays.asList("noise_injection"));
-        cellLowSensitivity.put("moderate", Arrays.asList("no_transformation"));
-        cellLowSensitivity.put("high", Arrays.asList("no_transformation"));
-        cellStrategies.put("low", cellLowSensitivity);
-        
-        strategiesMap.put("cell", cellStrategies);
-
-        // Column Data Level
-        Map<String, Map<String, List<String>>> columnStrategies = new HashMap<>();
-        
-        // Column - High Sensitivity
-        Map<String, List<String>> columnHighSensitivity = new HashMap<>();
-        columnHighSensitivity.put("low", Arrays.asList("generalization", "top_bottom_coding", "full_masking"));
-        columnHighSensitivity.put("moderate", Arrays.asList("cell_suppression", "partial_masking"));
-        columnHighSensitivity.put("high", Arrays.asList("noise_injection"));
-        columnStrategies.put("high", columnHighSensitivity);
-
-        // Column - Moderate Sensitivity
-        Map<String, List<String>> columnModerateSensitivity = new HashMap<>();
-        columnModerateSensitivity.put("low", Arrays.asList("binning"));
-        columnModerateSensitivity.put("moderate", Arrays.asList("binning", "partial_masking"));
-        columnModerateSensitivity.put("high", Arrays.asList("no_transformation"));
-        columnStrategies.put("moderate", columnModerateSensitivity);
-
-        // Column - Low Sensitivity
-        Map<String, List<String>> columnLowSensitivity = new HashMap<>();
-        columnLowSensitivity.put("low", Arrays.asList("generalization"));
-        columnLowSensitivity.put("moderate", Arrays.asList("no_transformation"));
-        columnLowSensitivity.put("high", Arrays.asList("no_transformation"));
-        columnStrategies.put("low", columnLowSensitivity);
-
-        strategiesMap.put("column", columnStrategies);
-
-        // Row Data Level
-        Map<String, Map<String, List<String>>> rowStrategies = new HashMap<>();
-
-        // Row - High Sensitivity
-        Map<String, List<String>> rowHighSensitivity = new HashMap<>();
-        rowHighSensitivity.put("low", Arrays.asList("full_masking"));
-        rowHighSensitivity.put("moderate", Arrays.asList("microaggregation", "partial_masking"));
-        rowHighSensitivity.put("high", Arrays.asList("microaggregation"));
-        rowStrategies.put("high", rowHighSensitivity);
-        
-        // Row - Moderate Sensitivity
-        Map<String, List<String>> rowModerateSensitivity = new HashMap<>();
-        rowModerateSensitivity.put("low", Arrays.asList("generalization"));
-        rowModerateSensitivity.put("moderate", Arrays.asList("microaggregation", "partial_masking"));
-        rowModerateSensitivity.put("high", Arrays.asList("no_transformation"));
-        rowStrategies.put("moderate", rowModerateSensitivity);
-
-        // Row - Low Sensitivity
-        Map<String, List<String>> rowLowSensitivity = new HashMap<>();
-        rowLowSensitivity.put("low", Arrays.asList("microaggregation"));
-        rowLowSensitivity.put("moderate", Arrays.asList("no_transformation"));
-        rowLowSensitivity.put("high", Arrays.asList("no_transformation"));
-        rowStrategies.put("low", rowLowSensitivity);
-
-        strategiesMap.put("row", rowStrategies);
-
-        // Table Data Level
-        Map<String, Map<String, List<String>>> tableStrategies = new HashMap<>();
-
-        // Table - High Sensitivity
-        Map<String, List<String>> tableHighSensitivity = new HashMap<>();
-        tableHighSensitivity.put("low", Arrays.asList("cell_suppression", "differential_privacy", "full_masking"));
-        tableHighSensitivity.put("moderate", Arrays.asList("microaggregation", "partial_masking"));
-        tableHighSensitivity.put("high", Arrays.asList("microaggregation"));
-        tableStrategies.put("high", tableHighSensitivity);
-
-        // Table - Moderate Sensitivity
-        Map<String, List<String>> tableModerateSensitivity = new HashMap<>();
-        tableModerateSensitivity.put("low", Arrays.asList("generalization"));
-        tableModerateSensitivity.put("moderate", Arrays.asList("partial_masking")); // NEW - ONLY partial_masking
-        tableModerateSensitivity.put("high", Arrays.asList("no_transformation"));
-        tableStrategies.put("moderate", tableModerateSensitivity);
-        
-        // Table - Low Sensitivity
-        Map<String, List<String>> tableLowSensitivity = new HashMap<>();
-        tableLowSensitivity.put("low", Arrays.asList("generalization"));
-        tableLowSensitivity.put("moderate", Arrays.asList("no_transformation"));
-        tableLowSensitivity.put("high", Arrays.asList("no_transformation"));
-        tableStrategies.put("low", tableLowSensitivity);
-
-        strategiesMap.put("table", tableStrategies);
+    static final String DEFAULT_POLICY_RESOURCE = "/strategy-policy.properties";
+
+    private static volatile StrategyPolicy policy;
+
+    private static Path policyFile;
+    private static long policySize;
+    private static long policyModifiedMillis;
+    private static ScheduledExecutorService watcher;
+
+    private static StrategyPolicy policy() {
+        StrategyPolicy current = policy;
+        if (current != null) return current;
+        synchronized (StrategySelector.class) {
+            if (policy == null) {
+                try {
+                    policy = StrategyPolicy.loadResource(DEFAULT_POLICY_RESOURCE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return policy;
+        }
     }
 
     /**
@@ -125,9 +53,55 @@ public class StrategySelector {
      * @return A list of strategy names. Returns an empty list if no matching strategies are found.
      */
     public static List<String> getStrategies(String dataLevel, String sensitivity, String userTrust) {
-        return strategiesMap
-                .getOrDefault(dataLevel.toLowerCase(), Collections.emptyMap())
-                .getOrDefault(sensitivity.toLowerCase(), Collections.emptyMap())
-                .getOrDefault(userTrust.toLowerCase(), Collections.emptyList());
+        return plan(Granularity.parse(dataLevel), SensitivityLevel.parse(sensitivity), SensitivityLevel.parse(userTrust))
+                .strategyNames();
+    }
+
+    /** The compiled plan; {@link StrategyPlan#EMPTY} when the policy has none or any argument is null. */
+    static StrategyPlan plan(Granularity dataLevel, SensitivityLevel sensitivity, SensitivityLevel userTrust) {
+        return policy().plan(dataLevel, sensitivity, userTrust);
+    }
+
+    /**
+     * Reads the policy from {@code file} instead of the bundled one and, if {@code reloadSeconds} is
+     * positive, rereads it that often when its size or modification time changed.
+     *
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if it does not compile
+     */
+    public static synchronized void usePolicyFile(Path file, long reloadSeconds) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        StrategyPolicy loaded = StrategyPolicy.load(file);
+        policyFile = file;
+        policySize = attrs.size();
+        policyModifiedMillis = attrs.lastModifiedTime().toMillis();
+        policy = loaded;
+        System.out.println("Strategy policy loaded from " + file);
+        if (watcher == null && reloadSeconds > 0) {
+            watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "strategy-policy-reload");
+                t.setDaemon(true);
+                return t;
+            });
+            watcher.scheduleWithFixedDelay(StrategySelector::refreshIfChanged, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Recompiles the policy file if it changed; returns true if new plans were swapped in. */
+    static synchronized boolean refreshIfChanged() {
+        if (policyFile == null) return false;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(policyFile, BasicFileAttributes.class);
+            if (attrs.size() == policySize && attrs.lastModifiedTime().toMillis() == policyModifiedMillis) return false;
+            // Remember the new stamps even if the file does not compile, so it is not retried until edited again
+            policySize = attrs.size();
+            policyModifiedMillis = attrs.lastModifiedTime().toMillis();
+            policy = StrategyPolicy.load(policyFile);
+            System.out.println("Strategy policy reloaded from " + policyFile);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: could not reload strategy policy " + policyFile + ": " + e.getMessage());
+            return false;
+        }
     }
 }
@@ -0,0 +1,273 @@
+package com.example.anonymization;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * One anonymization strategy bound to a granularity and its parameters. The strategy name and the
+ * parameters are resolved once, in {@link #bind}; {@link #applyTo} only calls the technique.
+ */
+final class StrategyStep {
+
+    // Defaults the strategies had before they could be configured
+    static final double DEFAULT_EPSILON = 0.1;
+    static final int DEFAULT_K = 2;
+    static final int DEFAULT_THRESHOLD = 2;
+    static final int DEFAULT_BINS = 3;
+    static final int DEFAULT_LEVEL = 1;
+    static final int DEFAULT_BIN_SIZE = 10;
+    static final double DEFAULT_LOWER_PERCENTILE = 10.0;
+    static final double DEFAULT_UPPER_PERCENTILE = 90.0;
+
+    private final Granularity granularity;
+    private final String name;
+    private final Map<String, String> parameters;
+    private final Consumer<SimpleDataFrame> action;
+
+    private StrategyStep(Granularity granularity, String name, Map<String, String> parameters, Consumer<SimpleDataFrame> action) {
+        this.granularity = granularity;
+        this.name = name;
+        this.parameters = parameters;
+        this.action = action;
+    }
+
+    Granularity granularity() {
+        return granularity;
+    }
+
+    /** Strategy name as listed in the policy. */
+    String name() {
+        return name;
+    }
+
+    Map<String, String> parameters() {
+        return parameters;
+    }
+
+    /** The parameters as bind parsed them, for callers that run the technique themselves (two-pass streaming). */
+    Params params() {
+        return new Params(name, parameters);
+    }
+
+    void applyTo(SimpleDataFrame df) {
+        action.accept(df);
+    }
+
+    /**
+     * Binds {@code strategy} at {@code granularity}. Parameters a strategy does not take are rejected;
+     * missing ones get the defaults above. A strategy that does not exist at this granularity still
+     * binds, to a step that fails when applied, so the next strategy of the plan is tried as before.
+     *
+     * @throws IllegalArgumentException for unknown or malformed parameters
+     */
+    static StrategyStep bind(Granularity granularity, String strategy, Map<String, String> parameters) {
+        Params p = new Params(strategy, parameters);
+        String key = strategy.toLowerCase(Locale.ROOT);
+        Consumer<SimpleDataFrame> action = switch (granularity) {
+            case CELL, COLUMN -> eachColumn(bindColumn(key, strategy, p));
+            case ROW -> bindRow(key, strategy, p);
+            case TABLE -> bindTable(key, strategy, p);
+        };
+        p.checkAllUsed();
+        return new StrategyStep(granularity, strategy, Map.copyOf(parameters), action);
+    }
+
+    private static Consumer<SimpleDataFrame> eachColumn(ColumnExecutor.ColumnTask task) {
+        // Cell and column results get the strategy on every column, as in the Python code
+        return df -> ColumnExecutor.forEachColumn(df, df.getColumnHeaders(), task);
+    }
+
+    private static ColumnExecutor.ColumnTask bindColumn(String key, String strategy, Params p) {
+        switch (key) {
+            case "full_masking":
+                return AnonymizationTechniques::full_masking_cell;
+            case "partial_masking":
+                return AnonymizationTechniques::partial_masking_cell;
+            case "noise_injection": {
+                double epsilon = p.positive("epsilon", DEFAULT_EPSILON);
+                return (df, c) -> AnonymizationTechniques.noise_injection(df, c, epsilon);
+            }
+            case "cell_suppression": {
+                int threshold = p.integer("threshold", DEFAULT_THRESHOLD);
+                boolean prefilter = p.flag("prefilter", false);
+                return (df, c) -> AnonymizationTechniques.cell_suppression(df, c, threshold, prefilter);
+            }
+            case "differential_privacy_column": {
+                double epsilon = p.positive("epsilon", DEFAULT_EPSILON);
+                return (df, c) -> AnonymizationTechniques.differential_privacy_column(df, c, epsilon);
+            }
+            case "top_bottom_coding": {
+                double lower = p.number("lower_percentile", DEFAULT_LOWER_PERCENTILE);
+                double upper = p.number("upper_percentile", DEFAULT_UPPER_PERCENTILE);
+                if (!(0 <= lower && lower < upper && upper <= 100)) {
+                    // top_bottom_coding itself would only warn and leave the column as is
+                    throw new IllegalArgumentException(strategy + ": needs 0 <= lower_percentile < upper_percentile <= 100, got "
+                            + lower + " and " + upper);
+                }
+                return (df, c) -> AnonymizationTechniques.top_bottom_coding(df, c, lower, upper);
+            }
+            case "microaggregation": {
+                int k = p.positiveInteger("k", DEFAULT_K);
+                return (df, c) -> AnonymizationTechniques.microaggregation_column(df, c, k);
+            }
+            case "generalization": {
+                int bins = p.positiveInteger("bins", DEFAULT_BINS);
+                int level = p.positiveInteger("level", DEFAULT_LEVEL);
+                return (df, c) -> AnonymizationTechniques.generalization_column(df, c, bins, level);
+            }
+            case "binning": {
+                int binSize = p.positiveInteger("bin_size", DEFAULT_BIN_SIZE);
+                return (df, c) -> AnonymizationTechniques.binning(df, c, binSize);
+            }
+            case "no_transformation":
+                return (df, c) -> { };
+            default:
+                return (df, c) -> {
+                    throw new IllegalArgumentException("Unknown strategy for column/cell granularity: " + strategy);
+                };
+        }
+    }
+
+    private static Consumer<SimpleDataFrame> bindRow(String key, String strategy, Params p) {
+        switch (key) {
+            case "full_masking":
+                return AnonymizationTechniques::full_masking_row;
+            case "partial_masking":
+                return AnonymizationTechniques::partial_masking_row;
+            case "microaggregation": {
+                int k = p.positiveInteger("k", DEFAULT_K);
+                return df -> replaceRows(df, AnonymizationTechniques.microaggregation_row(df, k));
+            }
+            case "mondrian": {
+                int k = p.positiveInteger("k", DEFAULT_K);
+                return df -> AnonymizationTechniques.mondrian_row(df, k);
+            }
+            case "no_transformation":
+                return df -> { };
+            default:
+                return df -> {
+                    throw new IllegalArgumentException("Unknown strategy for row granularity: " + strategy);
+                };
+        }
+    }
+
+    private static void replaceRows(SimpleDataFrame df, SimpleDataFrame aggregated) {
+        // getRows() hands out detached copies, so the aggregated content goes in column by column
+        if (aggregated == null) {
+            System.err.println("Warning: microaggregation_row returned null. Original DataFrame unchanged.");
+            return;
+        }
+        List<String> headers = df.getColumnHeaders();
+        if (!headers.equals(aggregated.getColumnHeaders()) || df.getRowCount() != aggregated.getRowCount()) {
+            System.err.println("Warning: Header mismatch or other issue after microaggregation_row. Original DataFrame unchanged.");
+            return;
+        }
+        for (int c = 0; c < headers.size(); c++) {
+            // Columns the copy did not write are still df's own storage
+            if (aggregated.column(c) != df.column(c)) df.replaceColumn(headers.get(c), aggregated.column(c));
+        }
+    }
+
+    private static Consumer<SimpleDataFrame> bindTable(String key, String strategy, Params p) {
+        switch (key) {
+            case "full_masking":
+                return AnonymizationTechniques::full_masking_table;
+            case "partial_masking":
+                return AnonymizationTechniques::partial_masking_table;
+            case "microaggregation": {
+                int k = p.positiveInteger("k", DEFAULT_K);
+                return df -> AnonymizationTechniques.microaggregation_table(df, k);
+            }
+            case "mondrian": {
+                int k = p.positiveInteger("k", DEFAULT_K);
+                return df -> AnonymizationTechniques.mondrian_table(df, k);
+            }
+            case "differential_privacy": {
+                double epsilon = p.positive("epsilon", DEFAULT_EPSILON);
+                return df -> AnonymizationTechniques.differential_privacy_table(df, epsilon);
+            }
+            case "cell_suppression": {
+                int threshold = p.integer("threshold", DEFAULT_THRESHOLD);
+                boolean prefilter = p.flag("prefilter", false);
+                return df -> AnonymizationTechniques.cell_suppression_table(df, threshold, prefilter);
+            }
+            case "generalization": {
+                int bins = p.positiveInteger("bins", DEFAULT_BINS);
+                int level = p.positiveInteger("level", DEFAULT_LEVEL);
+                return df -> AnonymizationTechniques.generalization_table(df, bins, level);
+            }
+            case "no_transformation":
+                return df -> { };
+            default:
+                return df -> {
+                    throw new IllegalArgumentException("Unknown strategy for table granularity: " + strategy);
+                };
+        }
+    }
+
+    /** Parameter values of one strategy, parsed at bind time. */
+    static final class Params {
+        private final String strategy;
+        private final Map<String, String> values;
+        private final Set<String> used = new HashSet<>();
+
+        Params(String strategy, Map<String, String> values) {
+            this.strategy = strategy;
+            this.values = values;
+        }
+
+        double number(String name, double defaultValue) {
+            String value = values.get(name);
+            used.add(name);
+            if (value == null) return defaultValue;
+            try {
+                return Double.parseDouble(value.strip());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(strategy + ": " + name + " is not a number: " + value);
+            }
+        }
+
+        double positive(String name, double defaultValue) {
+            double value = number(name, defaultValue);
+            if (!(value > 0)) throw new IllegalArgumentException(strategy + ": " + name + " must be positive, got " + value);
+            return value;
+        }
+
+        int integer(String name, int defaultValue) {
+            String value = values.get(name);
+            used.add(name);
+            if (value == null) return defaultValue;
+            try {
+                return Integer.parseInt(value.strip());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(strategy + ": " + name + " is not an integer: " + value);
+            }
+        }
+
+        int positiveInteger(String name, int defaultValue) {
+            int value = integer(name, defaultValue);
+            if (value <= 0) throw new IllegalArgumentException(strategy + ": " + name + " must be positive, got " + value);
+            return value;
+        }
+
+        boolean flag(String name, boolean defaultValue) {
+            String value = values.get(name);
+            used.add(name);
+            if (value == null) return defaultValue;
+            String v = value.strip().toLowerCase(Locale.ROOT);
+            if (v.equals("true")) return true;
+            if (v.equals("false")) return false;
+            throw new IllegalArgumentException(strategy + ": " + name + " must be true or false, got " + value);
+        }
+
+        void checkAllUsed() {
+            for (String name : values.keySet()) {
+                if (!used.contains(name)) throw new IllegalArgumentException(strategy + " does not take parameter '" + name + "'");
+            }
+        }
+    }
+}
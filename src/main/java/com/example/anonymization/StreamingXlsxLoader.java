@@ -0,0 +1,116 @@
+package com.example.anonymization;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Event-based XLSX reader. Rows are pushed from POI's SAX sheet handler straight into a SimpleDataFrame,
+ * so heap use is bounded by the frame itself plus the shared-strings table rather than by a full
+ * XSSFWorkbook object model.
+ *
+ * Produces the same frame as the XSSFWorkbook path in DataLoader: row 0 is the header, cells are
+ * formatted with DataFormatter, formulas are returned as formula text and blank cells become null.
+ */
+final class StreamingXlsxLoader {
+
+    private StreamingXlsxLoader() {
+    }
+
+    static SimpleDataFrame load(String filePath, String sheetName) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(filePath, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    if (sheetName != null && !sheetName.equals(sheets.getSheetName())) continue;
+
+                    FrameBuilder builder = new FrameBuilder();
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, builder, new DataFormatter(), true) {
+                        @Override
+                        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+                            // The SAX handler only reports cells with a value; the header also needs blank ones
+                            if ("c".equals(localName)) builder.cellStarted();
+                            super.startElement(uri, localName, qName, attributes);
+                        }
+                    });
+                    parser.parse(new InputSource(sheet));
+                    return builder.frame();
+                }
+            }
+            throw new IOException("Sheet '" + sheetName + "' not found in " + filePath);
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to stream " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** Collects the header row, then appends every later row to the frame as soon as it ends. */
+    private static final class FrameBuilder implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final List<String> headers = new ArrayList<>();
+        private SimpleDataFrame frame;
+        private Object[] row;
+        private int rowNum;
+        private int nextCol;
+
+        @Override
+        public void startRow(int rowNum) {
+            this.rowNum = rowNum;
+            this.nextCol = 0;
+            if (frame != null) Arrays.fill(row, null);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0) {
+                frame = new SimpleDataFrame(headers);
+                row = new Object[headers.size()];
+            } else if (frame != null) {
+                frame.addRow(row);
+            }
+        }
+
+        void cellStarted() {
+            // Like Row.forEach in the object model, the header takes every defined cell in order
+            if (frame == null && rowNum == 0) headers.add("");
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference == null ? nextCol : new CellReference(cellReference).getCol();
+            nextCol = col + 1;
+            if (rowNum == 0) {
+                if (!headers.isEmpty()) headers.set(headers.size() - 1, formattedValue);
+            } else if (frame != null && col < row.length) {
+                row[col] = formattedValue;
+            }
+        }
+
+        SimpleDataFrame frame() throws IOException {
+            if (frame == null) throw new IOException("Sheet has no header row");
+            return frame;
+        }
+    }
+}
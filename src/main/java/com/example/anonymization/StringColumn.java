@@ -0,0 +1,222 @@
+package com.example.anonymization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Dictionary-encoded string column: every distinct string is stored once and cells hold an
+ * {@code int} code into the dictionary ({@code -1} for null).
+ */
+final class StringColumn extends Column {
+    private static final int NULL_CODE = -1;
+
+    private int[] codes;
+    private int size;
+    private final List<String> dictionary;
+    private final Map<String, Integer> lookup;
+    // Numeric interpretation of each dictionary entry, parsed at most once per distinct string
+    private volatile ParsedDictionary parsed;
+
+    private static final class ParsedDictionary {
+        final double[] values;
+        final boolean[] numeric;
+
+        ParsedDictionary(double[] values, boolean[] numeric) {
+            this.values = values;
+            this.numeric = numeric;
+        }
+    }
+
+    StringColumn(int capacity) {
+        this.codes = new int[Math.max(capacity, 8)];
+        this.dictionary = new ArrayList<>();
+        this.lookup = new HashMap<>();
+    }
+
+    private StringColumn(int[] codes, int size, List<String> dictionary, Map<String, Integer> lookup) {
+        this.codes = codes;
+        this.size = size;
+        this.dictionary = dictionary;
+        this.lookup = lookup;
+    }
+
+    /** Rebuilds a column from its codes and dictionary, e.g. when reading a snapshot. */
+    static StringColumn of(int[] codes, int size, List<String> dictionary) {
+        Map<String, Integer> lookup = new HashMap<>(dictionary.size() * 2);
+        for (int i = 0; i < dictionary.size(); i++) lookup.put(dictionary.get(i), i);
+        return new StringColumn(codes, size, new ArrayList<>(dictionary), lookup);
+    }
+
+    @Override
+    ColumnType type() {
+        return ColumnType.STRING;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    boolean isNull(int row) {
+        return codes[row] == NULL_CODE;
+    }
+
+    @Override
+    Object get(int row) {
+        int code = codes[row];
+        return code == NULL_CODE ? null : dictionary.get(code);
+    }
+
+    int code(int row) {
+        return codes[row];
+    }
+
+    int dictionarySize() {
+        return dictionary.size();
+    }
+
+    String dictionaryValue(int code) {
+        return dictionary.get(code);
+    }
+
+    @Override
+    long[] valueKeys() {
+        // Each distinct string is hashed once
+        long[] dictionaryKeys = new long[dictionary.size()];
+        for (int code = 0; code < dictionaryKeys.length; code++) dictionaryKeys[code] = ValueKeys.ofString(dictionary.get(code));
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) if (codes[i] != NULL_CODE) keys[i] = dictionaryKeys[codes[i]];
+        return keys;
+    }
+
+    @Override
+    boolean isNumber(int row) {
+        int code = codes[row];
+        return code != NULL_CODE && parsed().numeric[code];
+    }
+
+    @Override
+    double getDouble(int row) {
+        int code = codes[row];
+        return code == NULL_CODE ? Double.NaN : parsed().values[code];
+    }
+
+    private ParsedDictionary parsed() {
+        ParsedDictionary p = parsed;
+        int n = dictionary.size();
+        if (p != null && p.values.length >= n) return p;
+
+        int from = p == null ? 0 : p.values.length;
+        double[] values = p == null ? new double[n] : Arrays.copyOf(p.values, n);
+        boolean[] numeric = p == null ? new boolean[n] : Arrays.copyOf(p.numeric, n);
+        for (int i = from; i < n; i++) {
+            try {
+                values[i] = Double.parseDouble(dictionary.get(i));
+                numeric[i] = true;
+            } catch (NumberFormatException e) {
+                values[i] = Double.NaN;
+            }
+        }
+        p = new ParsedDictionary(values, numeric);
+        parsed = p;
+        return p;
+    }
+
+    /**
+     * Converts the column to LONG or DOUBLE storage when every string is a canonical integer or decimal
+     * (the same test TableSchema uses for SQLite affinities), so each cell reads back as the identical
+     * text. Each distinct string is parsed once. Columns with empty strings, mixed integers and
+     * decimals, or anything else stay strings.
+     */
+    @Override
+    Column inferNumeric() {
+        if (dictionary.isEmpty() || lookup.containsKey("")) return this;
+        String affinity = TableSchema.affinityOf(this);
+        NullMask nulls = new NullMask(size);
+        for (int i = 0; i < size; i++) if (codes[i] == NULL_CODE) nulls.set(i);
+        if (TableSchema.INTEGER.equals(affinity)) {
+            long[] byCode = new long[dictionary.size()];
+            for (int d = 0; d < byCode.length; d++) byCode[d] = Long.parseLong(dictionary.get(d));
+            long[] values = new long[Math.max(size, 8)];
+            for (int i = 0; i < size; i++) if (codes[i] != NULL_CODE) values[i] = byCode[codes[i]];
+            return new LongColumn(values, nulls, size);
+        }
+        if (TableSchema.REAL.equals(affinity)) {
+            double[] byCode = new double[dictionary.size()];
+            for (int d = 0; d < byCode.length; d++) byCode[d] = Double.parseDouble(dictionary.get(d));
+            double[] values = new double[Math.max(size, 8)];
+            for (int i = 0; i < size; i++) if (codes[i] != NULL_CODE) values[i] = byCode[codes[i]];
+            return new DoubleColumn(values, nulls, size);
+        }
+        return this;
+    }
+
+    private int encode(String value) {
+        Integer code = lookup.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            lookup.put(value, code);
+        }
+        return code;
+    }
+
+    @Override
+    Column set(int row, Object value) {
+        if (value != null && !(value instanceof String)) return toObjectColumn().set(row, value);
+        codes[row] = value == null ? NULL_CODE : encode((String) value);
+        return this;
+    }
+
+    @Override
+    Column append(Object value) {
+        if (value != null && !(value instanceof String)) return toObjectColumn().append(value);
+        if (size == codes.length) codes = Arrays.copyOf(codes, Math.max(8, size * 2));
+        codes[size++] = value == null ? NULL_CODE : encode((String) value);
+        return this;
+    }
+
+    @Override
+    Column appendAll(Column other) {
+        if (!(other instanceof StringColumn)) return super.appendAll(other);
+        StringColumn o = (StringColumn) other;
+        int[] remap = new int[o.dictionary.size()];
+        for (int i = 0; i < remap.length; i++) remap[i] = encode(o.dictionary.get(i));
+        if (size + o.size > codes.length) codes = Arrays.copyOf(codes, Math.max(size + o.size, codes.length * 2));
+        for (int i = 0; i < o.size; i++) {
+            int code = o.codes[i];
+            codes[size + i] = code == NULL_CODE ? NULL_CODE : remap[code];
+        }
+        size += o.size;
+        return this;
+    }
+
+    /** Maps each distinct string once instead of once per cell. */
+    @Override
+    Column mapValues(UnaryOperator<Object> fn) {
+        int[] remap = new int[dictionary.size()];
+        StringColumn result = new StringColumn(size);
+        for (int i = 0; i < remap.length; i++) {
+            Object mapped = fn.apply(dictionary.get(i));
+            if (!(mapped instanceof String)) return super.mapValues(fn);
+            remap[i] = result.encode((String) mapped);
+        }
+        for (int i = 0; i < size; i++) {
+            int code = codes[i];
+            result.codes[i] = code == NULL_CODE ? NULL_CODE : remap[code];
+        }
+        result.size = size;
+        return result;
+    }
+
+    @Override
+    Column copy() {
+        return new StringColumn(Arrays.copyOf(codes, Math.max(size, 8)), size,
+                new ArrayList<>(dictionary), new HashMap<>(lookup));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.anonymization;
+
+/**
+ * Finds the values of one column that occur fewer than {@code threshold} times, for cell_suppression.
+ * The column can be seen whole or batch by batch (a streamed or spilled result): every pass calls
+ * {@link #count} for each batch and then {@link #endPass}, until endPass returns true; a last pass
+ * then calls {@link #suppress} on each batch.
+ *
+ * Values are counted by their {@link ValueKeys} key in a {@link LongCountMap}. Without the prefilter
+ * that takes one counting pass and one entry per distinct value. With it, a first pass fills a
+ * count-min sketch, which never undercounts: values it puts below the threshold are rare for sure, and
+ * only the others (the values that may reach the threshold) are counted exactly in a second pass. That
+ * keeps the exact map small on high-cardinality columns where most values are rare.
+ */
+final class SuppressionCounter {
+
+    private static final int SKETCH_DEPTH = 4;
+
+    private final int threshold;
+    private final int expectedCells;
+    private int[][] sketch; // Count-min rows; null without the prefilter
+    private boolean sketching;
+    private LongCountMap exact;
+    private boolean done;
+
+    /**
+     * @param expectedCells cells in the column if known (sizes the maps), otherwise a guess
+     * @param prefilter whether to sketch the counts in a first pass
+     */
+    SuppressionCounter(int threshold, boolean prefilter, int expectedCells) {
+        if (threshold <= 0) throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        this.threshold = threshold;
+        this.expectedCells = expectedCells;
+        if (prefilter) {
+            // One to two cells per counter: 16-32 bytes per cell, against 24-48 per distinct value in the
+            // exact map, and for threshold 2 only about a fifth of the unique values still get an exact count
+            int width = Integer.highestOneBit(Math.max(1024, Math.min(expectedCells, 1 << 24)));
+            sketch = new int[SKETCH_DEPTH][width];
+            sketching = true;
+        } else {
+            exact = new LongCountMap(Math.min(expectedCells, 1 << 20));
+        }
+    }
+
+    /** Counts the cells of one batch (or of the whole column). */
+    void count(Column col) {
+        if (done) throw new IllegalStateException("Counting is over");
+        long[] keys = col.valueKeys();
+        for (int i = 0; i < keys.length; i++) {
+            if (col.isNull(i)) continue;
+            if (sketching) {
+                for (int d = 0; d < SKETCH_DEPTH; d++) sketch[d][slot(keys[i], d)]++;
+            } else if (sketch == null || estimate(keys[i]) >= threshold) {
+                exact.increment(keys[i]);
+            }
+        }
+    }
+
+    /** Ends a counting pass; true when the counts are complete and {@link #suppress} may be called. */
+    boolean endPass() {
+        if (sketching) {
+            sketching = false;
+            exact = new LongCountMap(Math.min(expectedCells / threshold, 1 << 20));
+            return false;
+        }
+        done = true;
+        return true;
+    }
+
+    /** Sets the column's cells that hold a rare value to null. */
+    void suppress(SimpleDataFrame df, String columnName) {
+        if (!done) throw new IllegalStateException("Counting is not finished");
+        Column col = df.column(columnName);
+        int c = df.columnIndex(columnName);
+        long[] keys = col.valueKeys();
+        for (int i = 0; i < keys.length; i++) {
+            if (!col.isNull(i) && isRare(keys[i])) df.setValue(i, c, null);
+        }
+    }
+
+    private boolean isRare(long key) {
+        if (sketch != null && estimate(key) < threshold) return true; // Never counted exactly
+        return exact.get(key) < threshold;
+    }
+
+    private int estimate(long key) {
+        int min = Integer.MAX_VALUE;
+        for (int d = 0; d < SKETCH_DEPTH; d++) min = Math.min(min, sketch[d][slot(key, d)]);
+        return min;
+    }
+
+    private int slot(long key, int row) {
+        return (int) (row == 0 ? key : ValueKeys.mix(key + row * 0x9E3779B97F4A7C15L)) & (sketch[row].length - 1);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.anonymization;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SQLite schema helpers for tables built from a SimpleDataFrame: per-column affinity inference,
+ * single-column indexes and identifier quoting.
+ *
+ * A column is declared INTEGER or REAL only when every non-empty value converts to that type and back
+ * to the identical string, so typing a column never changes what a query returns as text. Anything
+ * else (leading zeros, "1.50", mixed "85" / "8.37") stays TEXT.
+ */
+final class TableSchema {
+
+    static final String INTEGER = "INTEGER";
+    static final String REAL = "REAL";
+    static final String TEXT = "TEXT";
+
+    private TableSchema() {
+    }
+
+    /** Affinity for every column of {@code df}, in header order. */
+    static List<String> inferAffinities(SimpleDataFrame df) {
+        List<String> affinities = new ArrayList<>(df.getColumnCount());
+        for (int c = 0; c < df.getColumnCount(); c++) affinities.add(affinityOf(df.column(c)));
+        return affinities;
+    }
+
+    static String affinityOf(Column column) {
+        return switch (column.type()) {
+            case LONG -> INTEGER;
+            case DOUBLE -> REAL;
+            case STRING -> {
+                // Each distinct string is checked once
+                StringColumn strings = (StringColumn) column;
+                Kind kind = Kind.NONE;
+                for (int code = 0; code < strings.dictionarySize() && kind != Kind.TEXT; code++) {
+                    kind = kind.merge(kindOf(strings.dictionaryValue(code)));
+                }
+                yield kind.affinity();
+            }
+            case OBJECT -> {
+                Kind kind = Kind.NONE;
+                for (int i = 0; i < column.size() && kind != Kind.TEXT; i++) {
+                    Object value = column.get(i);
+                    if (value != null) kind = kind.merge(kindOf(value));
+                }
+                yield kind.affinity();
+            }
+            case EMPTY -> TEXT;
+        };
+    }
+
+    /** Lossless SQL value for a cell of a column declared with {@code affinity}. */
+    static Object bindValue(Object value, String affinity) {
+        if (value == null) return null;
+        String text = String.valueOf(value);
+        if (text.isEmpty()) return text;
+        if (INTEGER.equals(affinity)) return value instanceof Long ? value : Long.parseLong(text);
+        if (REAL.equals(affinity)) return value instanceof Double ? value : Double.parseDouble(text);
+        return text;
+    }
+
+    static String indexName(String tableName, String column) {
+        return "idx_" + tableName + "_" + column;
+    }
+
+    /** Requested index columns that exist in the table but have no index yet. */
+    static List<String> missingIndexes(Connection conn, String tableName, Collection<String> columns) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        Set<String> tableColumns = new HashSet<>();
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + quote(tableName) + ")")) {
+                while (rs.next()) tableColumns.add(rs.getString("name"));
+            }
+            try (ResultSet rs = stmt.executeQuery("PRAGMA index_list(" + quote(tableName) + ")")) {
+                while (rs.next()) existing.add(rs.getString("name"));
+            }
+        }
+        List<String> missing = new ArrayList<>();
+        for (String column : new LinkedHashSet<>(columns)) {
+            if (!tableColumns.contains(column)) {
+                System.err.println("Warning: cannot index unknown column '" + column + "' of " + tableName);
+            } else if (!existing.contains(indexName(tableName, column))) {
+                missing.add(column);
+            }
+        }
+        return missing;
+    }
+
+    static void createIndexes(Connection conn, String tableName, Collection<String> columns) throws SQLException {
+        List<String> missing = missingIndexes(conn, tableName, columns);
+        try (Statement stmt = conn.createStatement()) {
+            for (String column : missing) {
+                System.out.println("Creating index on " + tableName + "." + quote(column));
+                stmt.execute("CREATE INDEX IF NOT EXISTS " + quote(indexName(tableName, column))
+                        + " ON " + quote(tableName) + " (" + quote(column) + ")");
+            }
+            if (!missing.isEmpty()) stmt.execute("ANALYZE " + quote(tableName));
+        }
+    }
+
+    static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private enum Kind {
+        NONE, INTEGER, REAL, TEXT;
+
+        Kind merge(Kind other) {
+            if (this == NONE || this == other) return other;
+            if (other == NONE) return this;
+            return TEXT;
+        }
+
+        String affinity() {
+            return this == INTEGER ? TableSchema.INTEGER : this == REAL ? TableSchema.REAL : TableSchema.TEXT;
+        }
+    }
+
+    private static Kind kindOf(Object value) {
+        if (value instanceof Long || value instanceof Integer) return Kind.INTEGER;
+        if (value instanceof Double) return Double.isFinite((Double) value) ? Kind.REAL : Kind.TEXT;
+        String s = String.valueOf(value);
+        if (s.isEmpty()) return Kind.NONE; // Stored as '' under any affinity
+        if (isCanonicalInteger(s)) return Kind.INTEGER;
+        if (isCanonicalReal(s)) return Kind.REAL;
+        return Kind.TEXT;
+    }
+
+    private static boolean isCanonicalInteger(String s) {
+        int start = s.charAt(0) == '-' ? 1 : 0;
+        if (start == s.length() || s.length() - start > 19) return false;
+        for (int i = start; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') return false;
+        }
+        try {
+            return Long.toString(Long.parseLong(s)).equals(s);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isCanonicalReal(String s) {
+        char first = s.charAt(0);
+        if (first != '-' && (first < '0' || first > '9')) return false; // Rules out NaN, Infinity, "+1.0"
+        try {
+            double d = Double.parseDouble(s);
+            return Double.isFinite(d) && Double.toString(d).equals(s);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
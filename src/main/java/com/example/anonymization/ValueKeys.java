@@ -0,0 +1,47 @@
+package com.example.anonymization;
+
+/**
+ * 64-bit keys for cell values, so values can be counted in primitive maps instead of a
+ * {@code HashMap<Object, Integer>}. Two cells get the same key exactly when their values are equal
+ * ({@link Object#equals}), up to hash collisions: none for longs and doubles, about n^2 / 2^65 for n
+ * distinct strings. The key does not depend on the column's storage, so counts from batches stored
+ * differently (e.g. LONG in one batch, OBJECT in the next) add up.
+ */
+final class ValueKeys {
+
+    private static final long LONG_TAG = 0x4C4F4E47L;
+    private static final long DOUBLE_TAG = 0x444F55424C45L;
+    private static final long STRING_TAG = 0xcbf29ce484222325L; // FNV-1a offset basis
+
+    private ValueKeys() {
+    }
+
+    static long of(Object value) {
+        if (value instanceof Long) return ofLong((Long) value);
+        if (value instanceof Double) return ofDouble((Double) value);
+        if (value instanceof String) return ofString((String) value);
+        // Other types only occur in OBJECT columns; their 32-bit hashCode is all there is
+        return mix(((long) value.getClass().getName().hashCode() << 32) ^ value.hashCode());
+    }
+
+    static long ofLong(long value) {
+        return mix(value ^ LONG_TAG);
+    }
+
+    static long ofDouble(double value) {
+        return mix(Double.doubleToLongBits(value) ^ DOUBLE_TAG); // Same equality as Double.equals
+    }
+
+    static long ofString(String value) {
+        long h = STRING_TAG;
+        for (int i = 0; i < value.length(); i++) h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        return mix(h);
+    }
+
+    /** SplitMix64 finalizer: spreads every input bit over the whole key. */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
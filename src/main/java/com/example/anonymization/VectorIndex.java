@@ -0,0 +1,39 @@
+package com.example.anonymization;
+
+/**
+ * Nearest-neighbour search over fixed-dimension float vectors (see FlatVectorIndex, HnswIndex).
+ * Queries are passed row-major in one array, {@code dimension()} floats per query.
+ */
+interface VectorIndex {
+
+    enum Metric { INNER_PRODUCT, L2 }
+
+    int dimension();
+
+    int size();
+
+    Metric metric();
+
+    /** The {@code k} best neighbours of every query, best first. */
+    Neighbors search(float[] queries, int k);
+
+    /**
+     * Search results for {@code ids.length / k} queries, {@code k} per query, best first. Scores follow
+     * FAISS: the inner product (higher is better) or the squared L2 distance (lower is better).
+     * Slots a query could not fill have id -1.
+     */
+    record Neighbors(int k, int[] ids, float[] scores) {
+
+        int queryCount() {
+            return k == 0 ? 0 : ids.length / k;
+        }
+
+        int id(int query, int rank) {
+            return ids[query * k + rank];
+        }
+
+        float score(int query, int rank) {
+            return scores[query * k + rank];
+        }
+    }
+}
@@ -0,0 +1,30 @@
+# export_domain_labels.py
+#
+# Writes id_to_domain.pkl as id_to_domain.tsv ("<faiss id>\t<domain>" per line) so the Java DomainMatcher
+# can label the neighbours it finds in domain_index.faiss. Rerun whenever the index is rebuilt:
+#
+#   python export_domain_labels.py [id_to_domain.pkl] [id_to_domain.tsv]
+
+import pickle
+import sys
+
+
+def main():
+    src = sys.argv[1] if len(sys.argv) > 1 else 'id_to_domain.pkl'
+    dst = sys.argv[2] if len(sys.argv) > 2 else 'id_to_domain.tsv'
+    with open(src, 'rb') as f:
+        id_to_domain = pickle.load(f)  # joblib.dump of a plain dict is a regular pickle
+    if not isinstance(id_to_domain, dict):
+        id_to_domain = dict(enumerate(id_to_domain))
+
+    with open(dst, 'w', encoding='utf-8') as f:
+        for idx in sorted(id_to_domain):
+            domain = str(id_to_domain[idx])
+            if '\t' in domain or '\n' in domain:
+                raise ValueError(f"Tabs and newlines are not supported in domain names: {domain!r}")
+            f.write(f"{int(idx)}\t{domain}\n")
+    print(f"Wrote {dst}: {len(id_to_domain)} ids")
+
+
+if __name__ == '__main__':
+    main()
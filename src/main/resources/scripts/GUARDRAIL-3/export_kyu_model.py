@@ -0,0 +1,80 @@
+# export_kyu_model.py
+#
+# Writes kyu_score_model.joblib and label_encoders.joblib to kyu_model.tsv, the portable format read by
+# the Java KyuModel, so KYU scores can be computed without Python. Run once after retraining:
+#
+#   python export_kyu_model.py [model.joblib] [encoders.joblib] [out.tsv]
+#
+# Format (tab-separated, one record per line):
+#   kyu-model   1
+#   features    Email_Type  Domain  Purpose
+#   classes     <label of class 0>  <label of class 1> ...
+#   encoder     <feature>   <category encoded as 0> <category encoded as 1> ...
+#   tree        <node count>
+#   node        <left> <right> <feature> <threshold> [<p0> <p1> ... on leaves]
+# Node lines follow their tree line in sklearn node order; leaves have left = right = -1.
+
+import sys
+
+import joblib
+import numpy as np
+
+FEATURES = ['Email_Type', 'Domain', 'Purpose']  # Column order used by predict_kyu_score in app.py
+REVERSE_MAP = {0: 'Low', 1: 'Moderate', 2: 'High'}
+
+
+def class_label(c):
+    try:
+        return REVERSE_MAP.get(int(c), str(c))
+    except (TypeError, ValueError):
+        return str(c)
+
+
+def clean(text):
+    text = str(text)
+    if '\t' in text or '\n' in text:
+        raise ValueError(f"Tabs and newlines are not supported in labels: {text!r}")
+    return text
+
+
+def trees_of(model):
+    if hasattr(model, 'estimators_'):  # RandomForest / ExtraTrees: mean of the trees' probabilities
+        return [est.tree_ for est in np.ravel(model.estimators_)]
+    if hasattr(model, 'tree_'):  # A single DecisionTreeClassifier
+        return [model.tree_]
+    raise TypeError(f"Unsupported model type: {type(model).__name__}")
+
+
+def main():
+    model_path = sys.argv[1] if len(sys.argv) > 1 else 'kyu_score_model.joblib'
+    encoders_path = sys.argv[2] if len(sys.argv) > 2 else 'label_encoders.joblib'
+    out_path = sys.argv[3] if len(sys.argv) > 3 else 'kyu_model.tsv'
+
+    model = joblib.load(model_path)
+    encoders = joblib.load(encoders_path)
+    if type(model).__name__ not in ('RandomForestClassifier', 'ExtraTreesClassifier', 'DecisionTreeClassifier'):
+        raise TypeError(f"Unsupported model type: {type(model).__name__}")
+
+    lines = ['kyu-model\t1', '\t'.join(['features'] + FEATURES),
+             '\t'.join(['classes'] + [clean(class_label(c)) for c in model.classes_])]
+    for feature in FEATURES:
+        lines.append('\t'.join(['encoder', feature] + [clean(c) for c in encoders[feature].classes_]))
+
+    for tree in trees_of(model):
+        lines.append(f"tree\t{tree.node_count}")
+        for node in range(tree.node_count):
+            left, right = tree.children_left[node], tree.children_right[node]
+            if left == -1:
+                counts = tree.value[node][0]
+                proba = counts / counts.sum()
+                lines.append('\t'.join(['node', '-1', '-1', '-1', '0'] + [repr(float(p)) for p in proba]))
+            else:
+                lines.append(f"node\t{left}\t{right}\t{tree.feature[node]}\t{float(tree.threshold[node])!r}")
+
+    with open(out_path, 'w', encoding='utf-8') as f:
+        f.write('\n'.join(lines) + '\n')
+    print(f"Wrote {out_path}: {len(trees_of(model))} tree(s), classes {list(model.classes_)}")
+
+
+if __name__ == '__main__':
+    main()